@@ -0,0 +1,81 @@
+package metric.correlation.analysis.tests.calculation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+import metric.correlation.analysis.calculation.ClassMetricTable;
+
+public class ClassMetricTableTest {
+
+	@Test
+	public void testColumns() {
+		ClassMetricTable table = new ClassMetricTable(Collections.singletonList("LLOC"), Arrays.asList("HIGH", "LOW"));
+		for (int i = 0; i < 100; i++) {
+			int row = table.addClass("a.C" + i);
+			table.setDouble(row, "LLOC", i + 0.5);
+		}
+		int row = table.addClass("a.C7");
+		table.increment(row, "HIGH");
+		table.increment(table.addClass("a.C7"), "HIGH");
+
+		assertEquals(100, table.size());
+		assertEquals(7, row);
+		assertEquals(2, table.getInt(row, "HIGH"));
+		assertEquals(2, table.intColumn("HIGH").sum());
+		assertEquals(5000, table.doubleColumn("LLOC").sum(), 0);
+		assertEquals(-1, table.getRow("a.D"));
+	}
+
+	@Test
+	public void testMapView() {
+		ClassMetricTable table = new ClassMetricTable(Arrays.asList("LLOC", "WMC"), Collections.singletonList("HIGH"));
+		int row = table.addClass("a.A");
+		table.setDouble(row, "LLOC", 12);
+		table.setDouble(row, "WMC", 1.5);
+		table.addClass("a.B");
+
+		Map<String, Map<String, String>> view = table.asMap();
+		assertEquals(2, view.size());
+		assertEquals("12", view.get("a.A").get("LLOC"));
+		assertEquals("1.5", view.get("a.A").get("WMC"));
+		assertEquals("0", view.get("a.B").get("HIGH"));
+		assertFalse(view.get("a.B").containsKey("LLOC"));
+		assertEquals(1, view.get("a.B").size());
+		assertNull(view.get("a.C"));
+
+		// The view reflects later changes
+		table.setDouble(row, "LLOC", 13);
+		assertEquals("13", view.get("a.A").get("LLOC"));
+	}
+
+	@Test
+	public void testBinaryForm() {
+		ClassMetricTable table = new ClassMetricTable(Arrays.asList("LLOC", "WMC"), Collections.singletonList("HIGH"));
+		for (int i = 0; i < 100; i++) {
+			int row = table.addClass("a.C" + i);
+			table.setDouble(row, "LLOC", i + 0.5);
+			table.setInt(row, "HIGH", i);
+		}
+
+		ClassMetricTable copy = ClassMetricTable.fromBytes(table.toBytes());
+		assertEquals(table.getMetricKeys(), copy.getMetricKeys());
+		assertEquals(table.getClassNames(), copy.getClassNames());
+		assertTrue(copy.isIntColumn("HIGH"));
+		assertEquals(table.asMap(), copy.asMap());
+		assertTrue(Double.isNaN(copy.getDouble(copy.getRow("a.C7"), "WMC")));
+		assertEquals(7, copy.getInt(copy.getRow("a.C7"), "HIGH"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidBinaryForm() {
+		ClassMetricTable.fromBytes(new byte[] { 1, 2, 3 });
+	}
+}
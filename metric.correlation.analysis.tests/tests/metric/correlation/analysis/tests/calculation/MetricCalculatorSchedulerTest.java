@@ -0,0 +1,254 @@
+package metric.correlation.analysis.tests.calculation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.junit.Test;
+
+import metric.correlation.analysis.calculation.ClassMetricTable;
+import metric.correlation.analysis.calculation.IMetricCalculator;
+import metric.correlation.analysis.calculation.IMetricClassCalculator;
+import metric.correlation.analysis.calculation.IResultCache;
+import metric.correlation.analysis.calculation.IResultCache.CachedResults;
+import metric.correlation.analysis.calculation.MetricCalculatorScheduler;
+import metric.correlation.analysis.calculation.MetricCalculatorScheduler.Outcome;
+import metric.correlation.analysis.calculation.MetricCalculatorScheduler.Status;
+
+public class MetricCalculatorSchedulerTest {
+
+	@Test
+	public void testTopologicalOrder() {
+		C c = new C();
+		B b = new B();
+		A a = new A();
+		MetricCalculatorScheduler scheduler = new MetricCalculatorScheduler(Arrays.asList(c, b, a));
+		assertTrue(scheduler.getCalculators().indexOf(a) < scheduler.getCalculators().indexOf(b));
+		assertTrue(scheduler.getCalculators().indexOf(b) < scheduler.getCalculators().indexOf(c));
+	}
+
+	@Test
+	public void testUpstreamResultsOnly() {
+		A a = new A();
+		B b = new B();
+		Independent independent = new Independent();
+		Map<IMetricCalculator, Outcome> outcomes = new MetricCalculatorScheduler(Arrays.asList(a, b, independent))
+				.execute(null, "product", "vendor", "1.0");
+		assertEquals(Status.SUCCESS, outcomes.get(b).getStatus());
+		assertEquals(Collections.singleton("A"), b.input.keySet());
+		assertTrue(independent.input.isEmpty());
+	}
+
+	@Test
+	public void testSkipDownstreamOfFailure() {
+		A a = new A();
+		a.fail = true;
+		B b = new B();
+		C c = new C();
+		Independent independent = new Independent();
+		Map<IMetricCalculator, Outcome> outcomes = new MetricCalculatorScheduler(
+				Arrays.asList(a, b, c, independent)).execute(null, "product", "vendor", "1.0");
+		assertEquals(Status.FAILED, outcomes.get(a).getStatus());
+		assertEquals(Status.SKIPPED, outcomes.get(b).getStatus());
+		assertEquals(Status.SKIPPED, outcomes.get(c).getStatus());
+		assertEquals(Status.SUCCESS, outcomes.get(independent).getStatus());
+		assertFalse(b.executed);
+	}
+
+	@Test
+	public void testCachedResults() {
+		Map<String, CachedResults> cache = new HashMap<>();
+		IResultCache resultCache = createCache(cache);
+		A a = new A();
+		B b = new B();
+		new MetricCalculatorScheduler(Arrays.asList(a, b), resultCache).execute(null, "product", "vendor", "1.0",
+				"abc");
+		assertEquals(2, cache.size());
+
+		A cachedA = new A();
+		B cachedB = new B();
+		Map<IMetricCalculator, Outcome> outcomes = new MetricCalculatorScheduler(Arrays.asList(cachedA, cachedB),
+				resultCache).execute(null, "product", "vendor", "1.0", "abc");
+		assertFalse(cachedA.executed);
+		assertFalse(cachedB.executed);
+		assertEquals(Collections.singletonMap("B", "1"), outcomes.get(cachedB).getResults());
+
+		A newA = new A();
+		newA.calculatorVersion = "2";
+		B newB = new B();
+		new MetricCalculatorScheduler(Arrays.asList(newA, newB), resultCache).execute(null, "product", "vendor", "1.0",
+				"abc");
+		assertTrue(newA.executed);
+		assertTrue(newB.executed);
+	}
+
+	@Test
+	public void testNonCacheableResults() {
+		Map<String, CachedResults> cache = new HashMap<>();
+		A a = new A();
+		a.cacheable = false;
+		B b = new B();
+		Independent independent = new Independent();
+		new MetricCalculatorScheduler(Arrays.asList(a, b, independent), createCache(cache)).execute(null, "product",
+				"vendor", "1.0", "abc");
+		// the results of B are based on the results of A
+		assertEquals(1, cache.size());
+		assertTrue(cache.keySet().iterator().next().startsWith("abc" + Independent.class.getName()));
+	}
+
+	@Test
+	public void testLazyClassResults() {
+		Classes classes = new Classes();
+		Map<IMetricCalculator, Outcome> outcomes = new MetricCalculatorScheduler(Arrays.asList(classes))
+				.execute(null, "product", "vendor", "1.0");
+		assertEquals(0, classes.requests);
+		assertEquals("1", outcomes.get(classes).getClassResults().get("a.A").get("LOC"));
+		assertEquals(1, classes.requests);
+
+		Map<String, CachedResults> cache = new HashMap<>();
+		Classes cached = new Classes();
+		new MetricCalculatorScheduler(Arrays.asList(cached), createCache(cache)).execute(null, "product", "vendor",
+				"1.0", "abc");
+		assertEquals(1, cached.requests);
+		ClassMetricTable table = cache.values().iterator().next().getClassMetrics();
+		assertEquals(Collections.singletonList("a.A"), table.getClassNames());
+
+		// the cached class metrics are only loaded on demand
+		int[] loads = new int[1];
+		cache.replaceAll((key, results) -> new CachedResults(results.getResults(), () -> {
+			loads[0]++;
+			return table;
+		}));
+		Classes reused = new Classes();
+		Outcome outcome = new MetricCalculatorScheduler(Arrays.asList(reused), createCache(cache))
+				.execute(null, "product", "vendor", "1.0", "abc").get(reused);
+		assertFalse(reused.executed);
+		assertEquals(0, loads[0]);
+		assertEquals(1, outcome.getClassMetrics().getInt(0, "LOC"));
+		assertEquals(Collections.singleton("a.A"), outcome.getClassResults().keySet());
+		assertEquals(1, loads[0]);
+		assertEquals(0, reused.requests);
+		assertEquals(1, outcomes.get(classes).getClassMetrics().size());
+	}
+
+	private static IResultCache createCache(Map<String, CachedResults> cache) {
+		return new IResultCache() {
+
+			@Override
+			public CachedResults get(String commitId, Class<? extends IMetricCalculator> calculator,
+					String versionHash) {
+				return cache.get(commitId + calculator.getName() + versionHash);
+			}
+
+			@Override
+			public void put(String commitId, Class<? extends IMetricCalculator> calculator, String versionHash,
+					CachedResults results) {
+				cache.put(commitId + calculator.getName() + versionHash, results);
+			}
+		};
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCycle() {
+		new MetricCalculatorScheduler(Arrays.asList(new Cycle1(), new Cycle2()));
+	}
+
+	private abstract static class TestCalculator implements IMetricCalculator {
+
+		private final Set<Class<? extends IMetricCalculator>> dependencies;
+		Map<String, String> input;
+		boolean executed;
+		boolean fail;
+		String calculatorVersion = "1";
+		boolean cacheable = true;
+
+		@SafeVarargs
+		TestCalculator(Class<? extends IMetricCalculator>... dependencies) {
+			this.dependencies = new HashSet<>(Arrays.asList(dependencies));
+		}
+
+		@Override
+		public boolean calculateMetric(IJavaProject project, String productName, String vendorName, String version,
+				Map<String, String> map) {
+			this.input = new HashMap<>(map);
+			this.executed = true;
+			return !this.fail;
+		}
+
+		@Override
+		public Map<String, String> getResults() {
+			return Collections.singletonMap(getClass().getSimpleName(), "1");
+		}
+
+		@Override
+		public Collection<String> getMetricKeys() {
+			return Collections.singleton(getClass().getSimpleName());
+		}
+
+		@Override
+		public Set<Class<? extends IMetricCalculator>> getDependencies() {
+			return this.dependencies;
+		}
+
+		@Override
+		public String getCalculatorVersion() {
+			return this.calculatorVersion;
+		}
+
+		@Override
+		public boolean isCacheable() {
+			return this.cacheable;
+		}
+	}
+
+	private static class A extends TestCalculator {
+	}
+
+	private static class B extends TestCalculator {
+		B() {
+			super(A.class);
+		}
+	}
+
+	private static class C extends TestCalculator {
+		C() {
+			super(B.class);
+		}
+	}
+
+	private static class Independent extends TestCalculator {
+	}
+
+	private static class Classes extends TestCalculator implements IMetricClassCalculator {
+		int requests;
+
+		@Override
+		public ClassMetricTable getClassMetrics() {
+			this.requests++;
+			ClassMetricTable table = new ClassMetricTable(Collections.emptySet(), Collections.singleton("LOC"));
+			table.setInt(table.addClass("a.A"), "LOC", 1);
+			return table;
+		}
+	}
+
+	private static class Cycle1 extends TestCalculator {
+		Cycle1() {
+			super(Cycle2.class);
+		}
+	}
+
+	private static class Cycle2 extends TestCalculator {
+		Cycle2() {
+			super(Cycle1.class);
+		}
+	}
+}
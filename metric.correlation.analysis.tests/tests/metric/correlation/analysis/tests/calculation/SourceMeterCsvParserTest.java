@@ -0,0 +1,60 @@
+package metric.correlation.analysis.tests.calculation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import metric.correlation.analysis.calculation.ClassMetricTable;
+import metric.correlation.analysis.calculation.impl.SourceMeterCsvParser;
+
+public class SourceMeterCsvParserTest {
+
+	private static final String CSV = "\"ID\",\"Name\",\"LongName\",\"LLOC\",\"DIT\"\n"
+			+ "\"L1\",\"A\",\"a.A\",\"10\",\"1\"\n"
+			+ "\"L2\",\"B\",\"a.B\",\"30.5\",\"3\"\n"
+			+ "\"L3\",\"C\",\"a.C\"\"x\",\"0\",\"2\"\n";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testAccumulate() throws IOException {
+		File csv = write("Class.csv", CSV);
+		File enums = write("Enum.csv", "\"ID\",\"LLOC\",\"DIT\"\n\"L4\",\"4\",\"5\"\n");
+		SourceMeterCsvParser parser = new SourceMeterCsvParser(Arrays.asList("LLOC", "DIT"));
+		parser.accumulate(csv);
+		parser.accumulate(enums);
+		assertEquals(4, parser.getCount());
+		assertEquals(44.5, parser.getSum("LLOC"), 0);
+		assertEquals(30.5, parser.getMax("LLOC"), 0);
+		assertEquals(11, parser.getSum("DIT"), 0);
+		assertEquals(5, parser.getMax("DIT"), 0);
+	}
+
+	@Test
+	public void testReadTable() throws IOException {
+		File csv = write("Class.csv", CSV);
+		ClassMetricTable table = new ClassMetricTable(Arrays.asList("LLOC", "WMC"), Collections.emptyList());
+		SourceMeterCsvParser.readTable(csv, table, "LongName");
+		assertEquals(3, table.size());
+		assertEquals(30.5, table.getDouble(table.getRow("a.B"), "LLOC"), 0);
+		assertEquals(0, table.getDouble(table.getRow("a.C\"x"), "LLOC"), 0);
+		assertTrue(Double.isNaN(table.getDouble(table.getRow("a.A"), "WMC")));
+	}
+
+	private File write(String name, String content) throws IOException {
+		File file = this.folder.newFile(name);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
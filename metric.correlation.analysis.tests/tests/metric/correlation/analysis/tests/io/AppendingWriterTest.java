@@ -0,0 +1,87 @@
+package metric.correlation.analysis.tests.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import metric.correlation.analysis.io.AppendingWriter;
+import metric.correlation.analysis.io.Storage;
+
+public class AppendingWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void concurrentRowsDontInterleave() throws Exception {
+		final var file = new File(this.folder.getRoot(), "rows.csv");
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try (var writer = new AppendingWriter(file, true, 128, 60_000)) {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 4; t++) {
+				final var thread = t;
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 500; i++) {
+						writer.append(thread + "," + i + ",some,longer,row,content\n");
+					}
+					return null;
+				}));
+			}
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		final var lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		assertEquals(2000, lines.size());
+		for (final String line : lines) {
+			assertTrue(line, line.matches("\\d,\\d+,some,longer,row,content"));
+		}
+		assertEquals(2000, new HashSet<>(lines).size());
+	}
+
+	@Test
+	public void flushPolicy() throws IOException, InterruptedException {
+		final var file = new File(this.folder.getRoot(), "policy.csv");
+		try (var writer = new AppendingWriter(file, true, 16, 100)) {
+			writer.append("a\n");
+			assertEquals(0, file.length());
+			// the size limit is exceeded
+			writer.append("bbbbbbbbbbbbbbbbbbbb\n");
+			assertEquals(23, file.length());
+			writer.append("c\n");
+			// the interval is exceeded
+			for (int i = 0; (i < 50) && (file.length() < 25); i++) {
+				Thread.sleep(20);
+			}
+			assertEquals(25, file.length());
+		}
+	}
+
+	@Test
+	public void storageWritesHeaderAndRows() throws IOException {
+		final var file = new File(this.folder.getRoot(), "results/results.csv");
+		try (var storage = new Storage(file, List.of("product", "version"))) {
+			assertTrue(storage.writeCSV("p", Map.of("product", "p", "version", "1.0")));
+			assertTrue(storage.writeCSV("p", Map.of("product", "p", "version", "2.0")));
+			storage.flush();
+			assertEquals(List.of("product,version", "p,1.0", "p,2.0"), Files.readAllLines(file.toPath()));
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package metric.correlation.analysis.tests.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import metric.correlation.analysis.io.ColumnarResults;
+import metric.correlation.analysis.io.Storage;
+
+public class ColumnarResultsTest {
+
+	private static final int ROWS = 5000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void writeAndRead() throws IOException {
+		final var csv = new File(this.folder.getRoot(), "results.csv");
+		final var keys = List.of("product", "version", "LOC", "bugs");
+		try (var storage = new Storage(csv, keys, List.of("product", "version"))) {
+			for (int i = 0; i < ROWS; i++) {
+				final Map<String, String> results = new HashMap<>();
+				results.put("product", "project" + (i % 3));
+				results.put("version", "1." + i);
+				results.put("LOC", Integer.toString(i * 10));
+				results.put("bugs", i == 7 ? "null" : Double.toString(i / 2.0));
+				storage.writeCSV("project", results);
+			}
+		}
+
+		final var columns = ColumnarResults.getColumnsFile(csv);
+		assertEquals("results.columns", columns.getName());
+		// an incomplete block of a crashed run
+		try (var out = new FileOutputStream(columns, true)) {
+			out.write(ByteBuffer.allocate(8).putInt(10).putInt(0).array());
+		}
+
+		final var results = ColumnarResults.read(columns);
+		assertEquals(keys, results.getKeys());
+		assertEquals(ROWS, results.getRowCount());
+		assertTrue(results.isText("product"));
+		assertFalse(results.isText("LOC"));
+		// the dictionary spans the blocks
+		assertEquals("project1", results.getStrings("product")[4999 - 3]);
+		assertEquals("1.4999", results.getStrings("version")[4999]);
+		assertArrayEquals(new double[] { 0, 10, 20 }, Arrays.copyOf(results.getDoubles("LOC"), 3), 0);
+		assertEquals(49990, results.getDoubles("LOC")[4999], 0);
+		assertTrue(Double.isNaN(results.getDoubles("bugs")[7]));
+		assertEquals(4, results.getDoubles("bugs")[8], 0);
+	}
+
+	@Test
+	public void outdatedColumns() throws IOException {
+		final var csv = new File(this.folder.getRoot(), "results.csv");
+		try (var storage = new Storage(csv, List.of("product", "LOC"), List.of("product"))) {
+			storage.writeCSV("project", Map.of("product", "project", "LOC", "10"));
+		}
+		final var columns = ColumnarResults.getColumnsFile(csv);
+		assertTrue(ColumnarResults.isCurrent(csv));
+		// e.g., a later run without a columnar file
+		assertTrue(csv.setLastModified(columns.lastModified() + 2000));
+		assertFalse(ColumnarResults.isCurrent(csv));
+		assertTrue(columns.delete());
+		assertFalse(ColumnarResults.isCurrent(csv));
+	}
+}
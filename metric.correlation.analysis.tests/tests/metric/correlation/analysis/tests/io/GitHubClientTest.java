@@ -0,0 +1,100 @@
+package metric.correlation.analysis.tests.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.JsonElement;
+import com.sun.net.httpserver.HttpServer;
+
+import metric.correlation.analysis.io.GitHubClient;
+
+public class GitHubClientTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private HttpServer server;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private final AtomicInteger fullResponses = new AtomicInteger();
+
+	@Before
+	public void startServer() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		this.server.setExecutor(Executors.newCachedThreadPool());
+		this.server.createContext("/", exchange -> {
+			int current = this.inFlight.incrementAndGet();
+			this.maxInFlight.accumulateAndGet(current, Math::max);
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			String etag = "\"" + exchange.getRequestURI().getPath() + "\"";
+			if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				exchange.sendResponseHeaders(304, -1);
+			} else {
+				this.fullResponses.incrementAndGet();
+				byte[] body = ("[\"" + exchange.getRequestURI().getPath() + "\"]").getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("ETag", etag);
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			}
+			exchange.close();
+			this.inFlight.decrementAndGet();
+		});
+		this.server.start();
+	}
+
+	@After
+	public void stopServer() {
+		this.server.stop(0);
+	}
+
+	@Test
+	public void testConditionalRequests() throws IOException {
+		String url = "http://localhost:" + this.server.getAddress().getPort() + "/issues";
+		try (GitHubClient client = new GitHubClient(2, this.folder.getRoot(), null)) {
+			assertEquals("/issues", client.getJson(url).getAsJsonArray().get(0).getAsString());
+		}
+		try (GitHubClient client = new GitHubClient(2, this.folder.getRoot(), null)) {
+			assertEquals("/issues", client.getJson(url).getAsJsonArray().get(0).getAsString());
+			assertEquals(1, client.getNotModifiedCount());
+		}
+		assertEquals(1, this.fullResponses.get());
+	}
+
+	@Test
+	public void testBoundedConcurrency() throws IOException {
+		String base = "http://localhost:" + this.server.getAddress().getPort() + "/page";
+		try (GitHubClient client = new GitHubClient(3, null, null)) {
+			List<CompletableFuture<JsonElement>> futures = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				futures.add(client.getJsonAsync(base + i));
+			}
+			for (int i = 0; i < 20; i++) {
+				assertEquals("/page" + i, futures.get(i).join().getAsJsonArray().get(0).getAsString());
+			}
+		}
+		assertTrue(this.maxInFlight.get() <= 3);
+		assertTrue(this.maxInFlight.get() > 1);
+	}
+}
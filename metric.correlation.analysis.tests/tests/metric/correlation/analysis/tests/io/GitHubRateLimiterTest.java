@@ -0,0 +1,98 @@
+package metric.correlation.analysis.tests.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.junit.Test;
+
+import metric.correlation.analysis.io.GitHubRateLimiter;
+import metric.correlation.analysis.io.GitHubRateLimiter.Resource;
+
+public class GitHubRateLimiterTest {
+
+	private static BasicHttpResponse response(final int status, final long remaining, final long reset) {
+		final var response = new BasicHttpResponse(new BasicStatusLine(HttpVersion.HTTP_1_1, status, ""));
+		response.addHeader("x-ratelimit-remaining", Long.toString(remaining));
+		response.addHeader("x-ratelimit-reset", Long.toString(reset));
+		return response;
+	}
+
+	@Test
+	public void roundRobin() throws InterruptedException {
+		final var limiter = new GitHubRateLimiter(List.of("a", "b"), GitHubRateLimiter.REQUESTS_PER_HOUR, 2);
+		assertEquals("a", limiter.acquire());
+		assertEquals("b", limiter.acquire());
+		assertEquals("a", limiter.acquire());
+		assertEquals("b", limiter.acquire());
+		assertEquals(4, limiter.getRequestCount());
+		assertEquals(0, limiter.getWaitMillis());
+	}
+
+	@Test
+	public void exhaustedTokenIsSkipped() throws InterruptedException {
+		final var limiter = new GitHubRateLimiter(List.of("a", "b"), GitHubRateLimiter.REQUESTS_PER_HOUR, 10);
+		final var reset = (System.currentTimeMillis() / 1000) + 3600;
+		assertFalse(limiter.update("b", response(200, 4000, reset)));
+		assertTrue(limiter.update("a", response(403, 0, reset)));
+		assertEquals(1, limiter.getRateLimitedCount());
+		assertEquals(4000, limiter.getRemaining());
+		for (int i = 0; i < 5; i++) {
+			assertEquals("b", limiter.acquire());
+		}
+	}
+
+	@Test
+	public void forbiddenWithoutLimitIsNotRetried() {
+		final var limiter = new GitHubRateLimiter(List.of(), GitHubRateLimiter.REQUESTS_PER_HOUR, 1);
+		final var reset = (System.currentTimeMillis() / 1000) + 3600;
+		assertFalse(limiter.update(null, response(403, 100, reset)));
+		assertEquals(0, limiter.getRateLimitedCount());
+	}
+
+	@Test
+	public void requestsArePaced() throws InterruptedException {
+		// 20 requests per second without burst
+		final var limiter = new GitHubRateLimiter(List.of(), 72000, 1);
+		limiter.acquire();
+		limiter.acquire();
+		limiter.acquire();
+		assertTrue(limiter.getWaitMillis() >= 50);
+	}
+
+	@Test
+	public void resourcesHaveSeparateBudgets() throws InterruptedException {
+		final var limiter = new GitHubRateLimiter(List.of("a", "b"), GitHubRateLimiter.REQUESTS_PER_HOUR, 10);
+		final var reset = (System.currentTimeMillis() / 1000) + 60;
+		final var search = response(403, 0, reset);
+		search.addHeader("x-ratelimit-resource", "search");
+		// the header selects the budget regardless of the resource of the request
+		assertTrue(limiter.update("a", Resource.CORE, search));
+		final var graphql = response(200, 1000, reset);
+		graphql.addHeader("x-ratelimit-resource", "graphql");
+		assertFalse(limiter.update("b", Resource.GRAPHQL, graphql));
+
+		assertEquals(GitHubRateLimiter.REQUESTS_PER_HOUR * 2, limiter.getRemaining());
+		assertEquals(30, limiter.getRemaining(Resource.SEARCH));
+		assertEquals(6000, limiter.getRemaining(Resource.GRAPHQL));
+		assertEquals("a", limiter.acquire(Resource.CORE));
+		assertEquals("b", limiter.acquire(Resource.CORE));
+		assertEquals("b", limiter.acquire(Resource.SEARCH));
+		assertEquals("b", limiter.acquire(Resource.SEARCH));
+		assertEquals(0, limiter.getWaitMillis());
+	}
+
+	@Test
+	public void resourceOfRequest() {
+		assertEquals(Resource.SEARCH, Resource.of(new HttpGet("https://api.github.com/search/repositories?q=x")));
+		assertEquals(Resource.GRAPHQL, Resource.of(new HttpPost("https://api.github.com/graphql")));
+		assertEquals(Resource.CORE, Resource.of(new HttpGet("https://api.github.com/repos/a/b/tags")));
+	}
+}
@@ -0,0 +1,56 @@
+package metric.correlation.analysis.tests.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import metric.correlation.analysis.io.GitReleaseResolver;
+
+public class GitReleaseResolverTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void resolveTags() throws IOException, GitAPIException {
+		final var location = this.folder.newFolder("project");
+		final String first;
+		final String second;
+		try (var git = Git.init().setDirectory(location).call()) {
+			first = commit(git, "2020-01-01T10:00:00Z");
+			git.tag().setName("v1.0").setAnnotated(true).setMessage("first release").call();
+			second = commit(git, "2020-06-01T10:00:00Z");
+			git.tag().setName("v2.0").setAnnotated(false).call();
+			git.tag().setName("v2.0-rc1").setAnnotated(false).call();
+		}
+
+		try (var resolver = new GitReleaseResolver(location)) {
+			final var releases = resolver.getReleases();
+			assertEquals(3, releases.size());
+			assertEquals(second, releases.get(0).getCommitId());
+			assertEquals(Instant.parse("2020-06-01T10:00:00Z"), releases.get(0).getDate());
+			final var last = releases.get(2);
+			assertEquals("v1.0", last.getName());
+			// the annotated tag is peeled to its commit
+			assertEquals(first, last.getCommitId());
+			assertEquals(Instant.parse("2020-01-01T10:00:00Z"), last.getDate());
+		}
+	}
+
+	private static String commit(final Git git, final String date) throws GitAPIException {
+		final var author = new PersonIdent("author", "author@example.org", Date.from(Instant.parse(date)),
+				TimeZone.getTimeZone("UTC"));
+		return git.commit().setAllowEmpty(true).setMessage(date).setAuthor(author).setCommitter(author).call()
+				.getName();
+	}
+}
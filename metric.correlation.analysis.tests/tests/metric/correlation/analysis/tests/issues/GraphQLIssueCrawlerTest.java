@@ -0,0 +1,127 @@
+package metric.correlation.analysis.tests.issues;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+
+import metric.correlation.analysis.io.GitHubClient;
+import metric.correlation.analysis.issues.GraphQLIssueCrawler;
+import metric.correlation.analysis.issues.Issue;
+import metric.correlation.analysis.issues.Issue.IssueType;
+import metric.correlation.analysis.issues.TrivialClassifier;
+
+public class GraphQLIssueCrawlerTest {
+
+	private HttpServer server;
+	private final List<JsonObject> requests = new CopyOnWriteArrayList<>();
+
+	@Before
+	public void startServer() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		this.server.createContext("/graphql", exchange -> {
+			final var request = new JsonParser()
+					.parse(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))
+					.getAsJsonObject();
+			this.requests.add(request);
+			final var variables = request.getAsJsonObject("variables");
+			final String response;
+			if (request.get("query").getAsString().contains("node(id: $id)")) {
+				response = "{\"data\":{\"node\":{\"comments\":" + comments(false, "third") + "}}}";
+			} else if (variables.get("cursor").isJsonNull()) {
+				response = issues(true, issue(1, "OPEN", "[{\"name\":\"Bug\"}]", comments(true, "first", "second")));
+			} else {
+				response = issues(false, issue(2, "CLOSED", "[]", comments(false)));
+			}
+			final var bytes = response.getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		});
+		this.server.start();
+	}
+
+	@After
+	public void stopServer() {
+		this.server.stop(0);
+	}
+
+	/**
+	 * Exposes the crawling of the issues
+	 */
+	private static final class TestCrawler extends GraphQLIssueCrawler {
+
+		TestCrawler(final GitHubClient client, final String endpoint) {
+			super(new TrivialClassifier(), client, endpoint);
+		}
+
+		List<Issue> crawl(final String vendor, final String product, final String since) throws IOException {
+			return crawlIssues(vendor, product, since);
+		}
+	}
+
+	private static String issues(final boolean hasNextPage, final String node) {
+		return "{\"data\":{\"repository\":{\"issues\":{\"pageInfo\":{\"hasNextPage\":" + hasNextPage
+				+ ",\"endCursor\":\"c1\"},\"nodes\":[" + node + "]}}}}";
+	}
+
+	private static String issue(final int number, final String state, final String labels, final String comments) {
+		return "{\"id\":\"I" + number + "\",\"databaseId\":" + (100 + number) + ",\"number\":" + number
+				+ ",\"state\":\"" + state + "\",\"title\":\"Issue " + number + "\",\"body\":\"text\","
+				+ "\"createdAt\":\"2020-01-0" + number + "T10:00:00Z\",\"closedAt\":"
+				+ ("CLOSED".equals(state) ? "\"2020-02-01T10:00:00Z\"" : "null") + ",\"updatedAt\":\"2020-03-0"
+				+ number + "T10:00:00Z\",\"labels\":{\"nodes\":" + labels + "},\"comments\":" + comments + "}";
+	}
+
+	private static String comments(final boolean hasNextPage, final String... bodies) {
+		final var nodes = new StringBuilder();
+		for (final String body : bodies) {
+			nodes.append(nodes.length() == 0 ? "" : ",").append("{\"body\":\"").append(body).append("\"}");
+		}
+		return "{\"pageInfo\":{\"hasNextPage\":" + hasNextPage + ",\"endCursor\":\"k1\"},\"nodes\":[" + nodes + "]}";
+	}
+
+	@Test
+	public void crawlIssues() throws IOException {
+		try (var client = new GitHubClient(2, null, null)) {
+			final var crawler = new TestCrawler(client,
+					"http://localhost:" + this.server.getAddress().getPort() + "/graphql");
+			final var issues = crawler.crawl("vendor", "product", "2020-01-01");
+
+			// two issue pages and one comment page
+			assertEquals(3, this.requests.size());
+			assertEquals("2020-01-01T00:00:00Z",
+					this.requests.get(0).getAsJsonObject("variables").get("since").getAsString());
+			assertEquals("c1", this.requests.get(2).getAsJsonObject("variables").get("cursor").getAsString());
+
+			assertEquals(2, issues.size());
+			final var first = issues.get(0);
+			assertEquals("101", first.getId());
+			assertEquals("https://api.github.com/repos/vendor/product/issues/1", first.getUrl());
+			assertFalse(first.isClosed());
+			assertEquals(List.of("bug"), first.getLabels());
+			assertEquals(List.of("first", "second", "third"), first.getComments());
+			assertEquals(IssueType.BUG, first.getType());
+
+			final var second = issues.get(1);
+			assertTrue(second.isClosed());
+			assertTrue(second.getComments().isEmpty());
+		}
+	}
+}
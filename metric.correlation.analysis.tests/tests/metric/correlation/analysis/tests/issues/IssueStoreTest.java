@@ -0,0 +1,80 @@
+package metric.correlation.analysis.tests.issues;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import metric.correlation.analysis.issues.Issue;
+import metric.correlation.analysis.issues.Issue.IssueType;
+import metric.correlation.analysis.issues.IssueStore;
+
+public class IssueStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static Issue createIssue(final String id, final String title, final boolean closed) {
+		final var issue = new Issue();
+		issue.setId(id);
+		issue.setUrl("https://api.github.com/repos/vendor/product/issues/" + id);
+		issue.setNumber(Integer.parseInt(id));
+		issue.setTitle(title);
+		issue.setBody("body");
+		issue.setCreationDate(LocalDate.of(2020, 1, 1));
+		issue.setClosed(closed);
+		if (closed) {
+			issue.setClosingDate(LocalDate.of(2020, 2, 1));
+		}
+		issue.setType(IssueType.BUG);
+		issue.addLabel("bug");
+		issue.addComment("comment");
+		return issue;
+	}
+
+	@Test
+	public void mergeAndReload() throws IOException {
+		final var store = new IssueStore(this.folder.getRoot(), "vendor", "product");
+		assertFalse(store.covers(LocalDate.of(2020, 1, 1)));
+		store.merge(List.of(createIssue("1", "first", false), createIssue("2", "second", false)),
+				"2020-03-01T10:00:00Z", LocalDate.of(2019, 6, 1));
+		store.save();
+
+		final var reloaded = new IssueStore(this.folder.getRoot(), "vendor", "product");
+		assertTrue(reloaded.covers(LocalDate.of(2020, 1, 1)));
+		assertFalse(reloaded.covers(LocalDate.of(2019, 1, 1)));
+		assertFalse(reloaded.needsRefresh());
+		assertEquals("2020-03-01T10:00:00Z", reloaded.getNewestUpdate());
+		assertEquals(2, reloaded.getIssues().size());
+
+		// an updated issue replaces the stored one
+		reloaded.merge(List.of(createIssue("2", "second", true)), "2020-04-01T10:00:00Z", null);
+		reloaded.save();
+
+		final var issues = new IssueStore(this.folder.getRoot(), "vendor", "product").getIssues();
+		assertEquals(2, issues.size());
+		final var updated = issues.get(1);
+		assertEquals("2", updated.getId());
+		assertTrue(updated.isClosed());
+		assertEquals(LocalDate.of(2020, 2, 1), updated.getClosingDate());
+		assertEquals(IssueType.BUG, updated.getType());
+		assertEquals(List.of("bug"), updated.getLabels());
+		assertEquals(List.of("comment"), updated.getComments());
+	}
+
+	@Test
+	public void olderUpdateKeepsNewest() throws IOException {
+		final var store = new IssueStore(this.folder.getRoot(), "vendor", "product");
+		store.merge(List.of(createIssue("1", "first", false)), "2020-03-01T10:00:00Z", LocalDate.of(2020, 1, 1));
+		store.merge(List.of(), "2020-02-01T10:00:00Z", LocalDate.of(2019, 1, 1));
+		assertEquals("2020-03-01T10:00:00Z", store.getNewestUpdate());
+		assertEquals(LocalDate.of(2019, 1, 1), store.getCoveredSince());
+	}
+}
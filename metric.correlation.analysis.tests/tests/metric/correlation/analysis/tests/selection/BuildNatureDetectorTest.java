@@ -0,0 +1,126 @@
+package metric.correlation.analysis.tests.selection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+
+import metric.correlation.analysis.io.GitHubClient;
+import metric.correlation.analysis.selection.BuildNatureDetector;
+import metric.correlation.analysis.selection.FileBasedGithubprojectSelector;
+
+public class BuildNatureDetectorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private HttpServer server;
+	private final List<String> queries = new CopyOnWriteArrayList<>();
+	private final List<String> fallbacks = new CopyOnWriteArrayList<>();
+
+	/**
+	 * A selector which doesn't send requests to GitHub
+	 */
+	private FileBasedGithubprojectSelector selector(final String fileName) {
+		return new FileBasedGithubprojectSelector(fileName) {
+
+			@Override
+			public boolean accept(final String repositoryName, final String oAuthToken) {
+				BuildNatureDetectorTest.this.fallbacks.add(repositoryName);
+				return false;
+			}
+		};
+	}
+
+	@Before
+	public void startServer() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		this.server.createContext("/graphql", exchange -> {
+			this.queries.add(new JsonParser()
+					.parse(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)).getAsJsonObject()
+					.get("query").getAsString());
+			final var bytes = ("{\"data\":{"
+					+ "\"r0\":{\"object\":{\"entries\":[{\"name\":\"README.md\"},{\"name\":\"pom.xml\"}]}},"
+					+ "\"r1\":null,"
+					+ "\"r2\":{\"object\":{\"entries\":[{\"name\":\"README.md\"}]}}},"
+					+ "\"errors\":[{\"type\":\"TIMEOUT\",\"path\":[\"r1\"]}]}").getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		});
+		this.server.createContext("/unavailable", exchange -> {
+			exchange.sendResponseHeaders(502, -1);
+			exchange.close();
+		});
+		this.server.start();
+	}
+
+	@After
+	public void stopServer() {
+		this.server.stop(0);
+	}
+
+	@Test
+	public void detectAndCache() throws IOException {
+		final var endpoint = "http://localhost:" + this.server.getAddress().getPort() + "/graphql";
+		final var cache = new File(this.folder.getRoot(), "build-nature.properties");
+		final var repositories = List.of("maven/project", "timeout/project", "other/project");
+		try (var client = new GitHubClient(2, null, null)) {
+			final var detector = new BuildNatureDetector(List.of(selector("build.gradle"), selector("pom.xml")),
+					client, endpoint, cache);
+			final var verdicts = detector.detect(repositories);
+			assertEquals(1, this.queries.size());
+			assertTrue(this.queries.get(0).contains("r2: repository(owner: \"other\", name: \"project\")"));
+			assertTrue(verdicts.get("maven/project"));
+			assertFalse(verdicts.get("timeout/project"));
+			assertFalse(verdicts.get("other/project"));
+			assertEquals(List.of("timeout/project", "timeout/project"), this.fallbacks);
+
+			// only the repository with an error is queried again
+			detector.detect(repositories);
+			assertEquals(2, this.queries.size());
+			assertTrue(this.queries.get(1).contains("r0: repository(owner: \"timeout\", name: \"project\")"));
+			assertFalse(this.queries.get(1).contains("maven"));
+
+			final var reloaded = new BuildNatureDetector(List.of(selector("pom.xml")), client, endpoint, cache);
+			assertTrue(reloaded.detect(List.of("maven/project")).get("maven/project"));
+			assertFalse(reloaded.detect(List.of("other/project")).get("other/project"));
+			assertEquals(2, this.queries.size());
+		}
+	}
+
+	@Test
+	public void failedQueryIsNotCached() throws IOException {
+		final var endpoint = "http://localhost:" + this.server.getAddress().getPort() + "/unavailable";
+		final var cache = new File(this.folder.getRoot(), "build-nature.properties");
+		try (var client = new GitHubClient(2, null, null)) {
+			final var detector = new BuildNatureDetector(List.of(selector("pom.xml")), client, endpoint, cache);
+			assertFalse(detector.detect(List.of("maven/project")).get("maven/project"));
+			assertEquals(List.of("maven/project"), this.fallbacks);
+			assertFalse(cache.exists());
+
+			// the selector verdict isn't reused
+			detector.detect(List.of("maven/project"));
+			assertEquals(List.of("maven/project", "maven/project"), this.fallbacks);
+			assertFalse(cache.exists());
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package metric.correlation.analysis.tests.selection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import metric.correlation.analysis.selection.DiscoveryCheckpoint;
+import metric.correlation.analysis.selection.DiscoveryShard;
+
+public class DiscoveryShardTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void divideAndSplit() {
+		final var from = Instant.parse("2020-01-01T00:00:00Z");
+		final var shards = DiscoveryShard.divide(from, Instant.parse("2020-01-18T00:00:00Z"), Duration.ofDays(7));
+		assertEquals(3, shards.size());
+		assertEquals(Instant.parse("2020-01-18T00:00:00Z"), shards.get(2).getTo());
+		assertEquals("created:2020-01-01T00:00:00Z..2020-01-07T23:59:59Z", shards.get(0).getQualifier());
+
+		final var halves = shards.get(0).split();
+		assertEquals(from, halves.get(0).getFrom());
+		assertEquals(Instant.parse("2020-01-04T12:00:00Z"), halves.get(0).getTo());
+		assertEquals(halves.get(0).getTo(), halves.get(1).getFrom());
+		// the halves are the same after a restart
+		assertEquals(halves.get(1).getKey(), shards.get(0).split().get(1).getKey());
+
+		assertFalse(new DiscoveryShard(from, from.plusSeconds(90)).canSplit());
+	}
+
+	@Test
+	public void checkpointIsPersisted() throws IOException {
+		final var file = new File(this.folder.getRoot(), "discovery.checkpoint");
+		final var checkpoint = new DiscoveryCheckpoint(file);
+		checkpoint.put("a", "3");
+		checkpoint.put("b", DiscoveryCheckpoint.SPLIT);
+		checkpoint.put("c", DiscoveryCheckpoint.DONE);
+		checkpoint.remove("c");
+
+		final var reloaded = new DiscoveryCheckpoint(file);
+		assertEquals("3", reloaded.get("a"));
+		assertEquals(DiscoveryCheckpoint.SPLIT, reloaded.get("b"));
+		assertNull(reloaded.get("c"));
+		assertTrue(file.exists());
+	}
+}
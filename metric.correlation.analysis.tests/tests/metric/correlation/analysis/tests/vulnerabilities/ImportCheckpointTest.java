@@ -0,0 +1,55 @@
+package metric.correlation.analysis.tests.vulnerabilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import metric.correlation.analysis.vulnerabilities.ImportCheckpoint;
+
+public class ImportCheckpointTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testAdvanceOverCompletedPrefix() throws IOException {
+		File file = new File(this.folder.getRoot(), "checkpoint");
+		ImportCheckpoint checkpoint = new ImportCheckpoint(file);
+		assertEquals(0, checkpoint.load());
+		checkpoint.register(0, 10, Arrays.asList("a", "b"));
+		checkpoint.register(10, 20, Collections.singleton("c"));
+		checkpoint.acknowledge("c", true);
+		assertEquals(0, checkpoint.getCompleted());
+		checkpoint.acknowledge("a", true);
+		checkpoint.acknowledge("b", true);
+		assertEquals(20, checkpoint.getCompleted());
+		assertTrue(checkpoint.isDone());
+		assertEquals(20, new ImportCheckpoint(file).load());
+		checkpoint.delete();
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void testFailedPageIsRetried() throws IOException {
+		File file = new File(this.folder.getRoot(), "checkpoint");
+		ImportCheckpoint checkpoint = new ImportCheckpoint(file);
+		checkpoint.register(0, 10, Collections.emptyList());
+		checkpoint.register(10, 20, Arrays.asList("a", "b"));
+		checkpoint.register(20, 30, Collections.singleton("c"));
+		checkpoint.acknowledge("a", false);
+		checkpoint.acknowledge("b", true);
+		checkpoint.acknowledge("c", true);
+		assertEquals(10, checkpoint.getCompleted());
+		assertFalse(checkpoint.isDone());
+		assertEquals(10, new ImportCheckpoint(file).load());
+	}
+}
@@ -0,0 +1,100 @@
+package metric.correlation.analysis.tests.vulnerabilities;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import metric.correlation.analysis.vulnerabilities.InMemoryVulnerabilityIndex;
+import metric.correlation.analysis.vulnerabilities.VulnerabilityQuery;
+
+public class InMemoryVulnerabilityIndexTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final InMemoryVulnerabilityIndex index = new InMemoryVulnerabilityIndex(Arrays.asList(
+			document("CVE-1", "apache", "xmlgraphicsbatik", "1.7", "1.8"),
+			document("CVE-2", "apache", "xmlgraphicsbatki", "*"),
+			document("CVE-3", "apache", "xmlgraphicsbtk", "*"),
+			document("CVE-4", "lingochamp", "filedownloader", "1.0"),
+			document("CVE-5", "lingochamp", "filedownlaoder", "1.0")));
+
+	@Test
+	public void testFuzziness() {
+		VulnerabilityQuery query = new VulnerabilityQuery("xmlgraphics-batik", "Apache", "");
+		assertEquals(Set.of("CVE-1", "CVE-2", "CVE-3"), ids(this.index.getVulnerabilities(query, "ZERO")));
+
+		// The vendor search doesn't find anything as the prefix differs
+		VulnerabilityQuery byProduct = new VulnerabilityQuery("xmlgraphics-batik", "zpache", "");
+		assertEquals(Set.of("CVE-1"), ids(this.index.getVulnerabilities(byProduct, "ZERO")));
+		assertEquals(Set.of("CVE-1", "CVE-2"), ids(this.index.getVulnerabilities(byProduct, "ONE")));
+		assertEquals(Set.of("CVE-1", "CVE-2", "CVE-3"), ids(this.index.getVulnerabilities(byProduct, "TWO")));
+		assertEquals(Set.of("CVE-1", "CVE-2", "CVE-3"), ids(this.index.getVulnerabilities(byProduct, "AUTO")));
+	}
+
+	@Test
+	public void testPrefixHasToMatch() {
+		VulnerabilityQuery query = new VulnerabilityQuery("filedownloader", "xingochamp", "");
+		assertEquals(Set.of("CVE-4", "CVE-5"), ids(this.index.getVulnerabilities(query, "TWO")));
+		VulnerabilityQuery changedPrefix = new VulnerabilityQuery("fildedownloader", "xingochamp", "");
+		assertEquals(Set.of(), ids(this.index.getVulnerabilities(changedPrefix, "TWO")));
+	}
+
+	@Test
+	public void testVersion() {
+		VulnerabilityQuery query = new VulnerabilityQuery("xmlgraphics-batik", "zpache", "1.8");
+		assertEquals(Set.of("CVE-1"), ids(this.index.getVulnerabilities(query, "TWO")));
+		VulnerabilityQuery unknown = new VulnerabilityQuery("xmlgraphics-batik", "zpache", "2.0");
+		assertEquals(Set.of(), ids(this.index.getVulnerabilities(unknown, "TWO")));
+	}
+
+	@Test
+	public void testLoad() throws IOException {
+		File page = this.folder.newFile("page.json");
+		Files.write(page.toPath(), ("{\"resultsPerPage\":1,\"totalResults\":1,\"vulnerabilities\":["
+				+ "{\"cve\":{\"id\":\"CVE-2023-0001\",\"vulnStatus\":\"Modified\","
+				+ "\"descriptions\":[{\"lang\":\"en\",\"value\":\"Test\"}],\"metrics\":{},"
+				+ "\"configurations\":[{\"nodes\":[{\"cpeMatch\":[{\"vulnerable\":true,"
+				+ "\"criteria\":\"cpe:2.3:a:lingochamp:file_downloader:1.0:*:*:*:*:*:*:*\"}]}]}]}}]}")
+				.getBytes(StandardCharsets.UTF_8));
+		InMemoryVulnerabilityIndex loaded = InMemoryVulnerabilityIndex.load(this.folder.getRoot());
+		assertEquals(1, loaded.size());
+		VulnerabilityQuery query = new VulnerabilityQuery("FileDownloader", "lingochamp", "1.0");
+		assertEquals(Set.of("CVE-2023-0001"), ids(loaded.getVulnerabilities(query, "AUTO")));
+	}
+
+	private static Map<String, Object> document(String id, String vendor, String product, String... versions) {
+		Map<String, Object> document = new HashMap<>();
+		document.put("ID", id);
+		document.put("Vendor", vendor);
+		document.put("Product", product);
+		document.put("Versions", new HashSet<>(Arrays.asList(versions)));
+		document.put("CVSS2_baseScore", -1D);
+		document.put("CVSS3_baseScore", -1D);
+		return document;
+	}
+
+	private static Set<String> ids(Collection<Map<String, Object>> documents) {
+		List<String> ids = new ArrayList<>();
+		for (Map<String, Object> document : documents) {
+			ids.add((String) document.get("ID"));
+		}
+		return new TreeSet<>(ids);
+	}
+}
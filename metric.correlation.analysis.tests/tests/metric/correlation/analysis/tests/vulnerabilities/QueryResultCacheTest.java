@@ -0,0 +1,40 @@
+package metric.correlation.analysis.tests.vulnerabilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import metric.correlation.analysis.vulnerabilities.QueryResultCache;
+
+public class QueryResultCacheTest {
+
+	@Test
+	public void testLeastRecentlyUsedEviction() {
+		QueryResultCache<String, String> cache = new QueryResultCache<>(2, 1, TimeUnit.HOURS);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		assertEquals("1", cache.get("a"));
+		cache.put("c", "3");
+		assertNull(cache.get("b"));
+		assertEquals("1", cache.get("a"));
+		assertEquals("3", cache.get("c"));
+		assertEquals(3, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testExpiration() {
+		AtomicLong clock = new AtomicLong();
+		QueryResultCache<String, String> cache = new QueryResultCache<>(10, 5, TimeUnit.SECONDS, clock::get);
+		cache.put("a", "1");
+		clock.set(TimeUnit.SECONDS.toNanos(5));
+		assertEquals("1", cache.get("a"));
+		clock.set(TimeUnit.SECONDS.toNanos(6));
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.size());
+	}
+}
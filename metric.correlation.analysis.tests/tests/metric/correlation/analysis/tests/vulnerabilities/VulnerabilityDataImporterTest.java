@@ -0,0 +1,103 @@
+package metric.correlation.analysis.tests.vulnerabilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sun.net.httpserver.HttpServer;
+
+import metric.correlation.analysis.vulnerabilities.VulnerabilityDataImporter;
+
+public class VulnerabilityDataImporterTest {
+
+	private static final String PAGE = "{\"resultsPerPage\":2,\"startIndex\":0,\"totalResults\":2,"
+			+ "\"format\":\"NVD_CVE\",\"version\":\"2.0\",\"vulnerabilities\":["
+			+ "{\"cve\":{\"id\":\"CVE-2023-0001\",\"vulnStatus\":\"Modified\","
+			+ "\"descriptions\":[{\"lang\":\"en\",\"value\":\"A test-vulnerability\"}],\"metrics\":{},"
+			+ "\"configurations\":[{\"nodes\":[{\"cpeMatch\":["
+			+ "{\"vulnerable\":true,\"criteria\":\"cpe:2.3:a:some_vendor:some-product:1.0:*:*:*:*:*:*:*\"}]}]}]}},"
+			+ "{\"cve\":{\"id\":\"CVE-2023-0002\",\"vulnStatus\":\"Rejected\",\"descriptions\":[],\"metrics\":{}}}]}";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private HttpServer server;
+	private final List<String> queries = new ArrayList<>();
+
+	@Before
+	public void startServer() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		this.server.createContext("/cves", exchange -> {
+			synchronized (this.queries) {
+				this.queries.add(exchange.getRequestURI().getQuery());
+			}
+			byte[] body = PAGE.getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		this.server.start();
+	}
+
+	@After
+	public void stopServer() {
+		this.server.stop(0);
+	}
+
+	@Test
+	public void testSyncModifiedCVEs() throws IOException {
+		File syncFile = this.folder.newFile("sync");
+		Files.write(syncFile.toPath(),
+				OffsetDateTime.now(ZoneOffset.UTC).minusDays(200).toString().getBytes(StandardCharsets.UTF_8));
+		RecordingImporter importer = new RecordingImporter();
+		importer.setNvdUrl("http://localhost:" + this.server.getAddress().getPort() + "/cves");
+		importer.setSyncFile(syncFile);
+		importer.syncCVEs();
+
+		// 200 days are split into two windows
+		assertEquals(2, this.queries.size());
+		for (String query : this.queries) {
+			assertTrue(query, query.contains("lastModStartDate="));
+			assertTrue(query, query.contains("lastModEndDate="));
+		}
+		assertEquals(new HashSet<>(List.of("CVE-2023-0001", "CVE-2023-0002")), importer.cveIDs);
+		assertEquals(Set.of("CVE-2023-0001:somevendor:someproduct"), importer.documents.keySet());
+
+		OffsetDateTime lastSync = OffsetDateTime
+				.parse(new String(Files.readAllBytes(syncFile.toPath()), StandardCharsets.UTF_8));
+		assertTrue(lastSync.isAfter(OffsetDateTime.now(ZoneOffset.UTC).minusMinutes(1)));
+	}
+
+	private static class RecordingImporter extends VulnerabilityDataImporter {
+
+		final Set<String> cveIDs = new HashSet<>();
+		final Map<String, Map<String, Object>> documents = new HashMap<>();
+
+		@Override
+		protected void applyChanges(Set<String> cveIDs, Map<String, Map<String, Object>> documents) {
+			this.cveIDs.addAll(cveIDs);
+			this.documents.putAll(documents);
+		}
+	}
+}
@@ -20,20 +20,34 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.apache.log4j.FileAppender;
 import org.apache.log4j.Level;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
+import org.apache.log4j.MDC;
 import org.apache.log4j.PatternLayout;
+import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LoggingEvent;
 import org.bson.Document;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.errors.RevisionSyntaxException;
+import org.eclipse.jgit.lib.ObjectId;
 import org.gravity.eclipse.importer.ImportException;
 import org.gravity.eclipse.importer.NoRootFolderException;
 import org.gravity.eclipse.importer.ProjectImport;
@@ -44,15 +58,25 @@ import org.gravity.eclipse.io.FileUtils;
 import org.gravity.eclipse.io.GitCloneException;
 import org.gravity.eclipse.io.GitTools;
 
-import com.google.common.io.Files;
 
+import metric.correlation.analysis.calculation.ClassMetricTable;
 import metric.correlation.analysis.calculation.IMetricCalculator;
+import metric.correlation.analysis.calculation.IMetricClassCalculator;
+import metric.correlation.analysis.calculation.IResultCache;
+import metric.correlation.analysis.calculation.MetricCalculatorScheduler;
+import metric.correlation.analysis.calculation.MetricCalculatorScheduler.Outcome;
+import metric.correlation.analysis.calculation.MetricCalculatorScheduler.Status;
 import metric.correlation.analysis.calculation.impl.IssueMetrics;
 import metric.correlation.analysis.calculation.impl.SourceMeterMetrics;
 import metric.correlation.analysis.calculation.impl.SpotBugsMetrics;
 import metric.correlation.analysis.calculation.impl.VersionMetrics;
 import metric.correlation.analysis.configuration.ProjectConfiguration;
 import metric.correlation.analysis.database.MongoDBHelper;
+import metric.correlation.analysis.database.MongoDBResultCache;
+import metric.correlation.analysis.io.AppendingWriter;
+import metric.correlation.analysis.io.GitReleaseResolver;
+import metric.correlation.analysis.io.GitWorktrees;
+import metric.correlation.analysis.io.SourceLocations;
 import metric.correlation.analysis.io.Storage;
 import metric.correlation.analysis.io.VersionHelper;
 import metric.correlation.analysis.statistic.StatisticExecuter;
@@ -77,7 +101,48 @@ public class MetricCalculation {
 	/**
 	 * The location where the git repositories should be cloned to
 	 */
-	private static final File REPOSITORIES = new File("repositories");
+	private static final File REPOSITORIES = GitReleaseResolver.REPOSITORIES;
+
+	/**
+	 * If true, each version is checked out into its own git worktree instead of
+	 * resetting the clone of the project for every version
+	 */
+	private static final boolean USE_WORKTREES = true;
+
+	/**
+	 * The location where the worktrees of the versions should be created
+	 */
+	private static final File WORKTREES = new File(REPOSITORIES, ".worktrees");
+
+	/**
+	 * The maximal number of versions of a project which are processed at the same
+	 * time if worktrees are used
+	 */
+	private static final int MAX_PARALLEL_VERSIONS = 2;
+
+	/**
+	 * Serializes the imports into the workspace. The importers name a project
+	 * after its build file, so an imported project is renamed to a unique name
+	 * before the next import may use the same name.
+	 */
+	private static final Object IMPORT_LOCK = new Object();
+
+	/**
+	 * The names of the workspace projects which are analyzed at the moment,
+	 * guarded by {@link #IMPORT_LOCK}
+	 */
+	private static final Set<String> ACTIVE_PROJECTS = new HashSet<>();
+
+	/**
+	 * If true, results of calculators are cached in the database and reused for
+	 * commits which have already been analyzed
+	 */
+	private static final boolean USE_RESULT_CACHE = true;
+
+	/**
+	 * If true, the metrics of the individual classes are stored in the database
+	 */
+	private static final boolean STORE_CLASS_METRICS = false;
 
 	/**
 	 * The classes of the calculators which should be executed
@@ -89,6 +154,12 @@ public class MetricCalculation {
 			// CVEMetrics.class,
 			VersionMetrics.class);
 
+	/**
+	 * The maximal number of projects which are processed at the same time by
+	 * {@link #calculateAll(Collection)}
+	 */
+	private static final int MAX_PARALLEL_PROJECTS = 4;
+
 	// END
 	// Don't edit below here
 
@@ -97,7 +168,18 @@ public class MetricCalculation {
 	 */
 	private static final Logger LOGGER = LogManager.getLogger(MetricCalculation.class);
 
-	private final SortedSet<IMetricCalculator> calculators;
+	/**
+	 * The MDC key identifying the project processed by the current thread
+	 */
+	private static final String MDC_PROJECT = "project";
+
+	private final MetricCalculatorScheduler scheduler;
+
+	/**
+	 * The cache for the results of the calculators or null, if results aren't
+	 * cached
+	 */
+	private final IResultCache resultCache;
 	private final String timestamp;
 	private Set<String> errors;
 	private final Storage storage;
@@ -112,7 +194,10 @@ public class MetricCalculation {
 	 */
 	private final File outputFolder;
 
-	private final File errorFile;
+	/**
+	 * The writer of the versions whose metrics couldn't be calculated
+	 */
+	private final AppendingWriter errorWriter;
 
 	private List<String> successFullVersions;
 	private List<String> notApplicibleVersions;
@@ -130,20 +215,13 @@ public class MetricCalculation {
 
 		// Initialize the metric calculators
 		final FileAppender initLogger = addLogAppender("initialization");
-		this.calculators = new TreeSet<>();
-		for (final Class<? extends IMetricCalculator> clazz : METRIC_CALCULATORS) {
-			try {
-				this.calculators.add(clazz.getConstructor().newInstance());
-			} catch (InstantiationException | IllegalAccessException | IllegalArgumentException
-					| InvocationTargetException | NoSuchMethodException | SecurityException e) {
-				LOGGER.warn(e.getMessage(), e);
-			}
-		}
+		this.resultCache = USE_RESULT_CACHE ? new MongoDBResultCache() : null;
+		this.scheduler = new MetricCalculatorScheduler(createCalculators(), this.resultCache);
 
 		this.allMetricResults = new LinkedHashMap<>();
 		// Collect all metric keys
 		final Set<String> metricKeys = new HashSet<>();
-		for (final IMetricCalculator calculator : this.calculators) {
+		for (final IMetricCalculator calculator : this.scheduler.getCalculators()) {
 			metricKeys.addAll(calculator.getMetricKeys());
 		}
 
@@ -152,25 +230,124 @@ public class MetricCalculation {
 			this.allMetricResults.put(metricKey, new LinkedList<>());
 		}
 		this.outputFolder = new File(RESULTS, "Results-" + this.timestamp);
-		this.storage = new Storage(new File(this.outputFolder, "results.csv"), metricKeys);
-		this.errorFile = new File(this.outputFolder, "errors.csv");
-		Files.write("vendor,product,version,errors\n".getBytes(), this.errorFile);
+		final List<String> textKeys = Arrays.stream(VersionMetrics.MetricKeysImpl.values()).map(Object::toString)
+				.collect(Collectors.toList());
+		this.storage = new Storage(new File(this.outputFolder, "results.csv"), metricKeys, textKeys);
+		this.errorWriter = new AppendingWriter(new File(this.outputFolder, "errors.csv"), true);
+		this.errorWriter.append("vendor,product,version,errors\n");
+		this.errorWriter.flush();
 		dropLogAppender(initLogger);
 	}
 
+	/**
+	 * Creates a worker which shares the results, the storage and the error file of
+	 * the given parent but uses its own calculators and error set
+	 *
+	 * @param parent The metric calculation the worker belongs to
+	 */
+	private MetricCalculation(final MetricCalculation parent) {
+		this.errors = new HashSet<>();
+		this.timestamp = parent.timestamp;
+		this.resultCache = parent.resultCache;
+		this.scheduler = new MetricCalculatorScheduler(createCalculators(), this.resultCache);
+		this.allMetricResults = parent.allMetricResults;
+		this.outputFolder = parent.outputFolder;
+		this.storage = parent.storage;
+		this.errorWriter = parent.errorWriter;
+	}
+
+	/**
+	 * Creates new instances of all configured metric calculators
+	 *
+	 * @return The calculators
+	 */
+	private static List<IMetricCalculator> createCalculators() {
+		final List<IMetricCalculator> calculators = new ArrayList<>(METRIC_CALCULATORS.size());
+		for (final Class<? extends IMetricCalculator> clazz : METRIC_CALCULATORS) {
+			try {
+				calculators.add(clazz.getConstructor().newInstance());
+			} catch (InstantiationException | IllegalAccessException | IllegalArgumentException
+					| InvocationTargetException | NoSuchMethodException | SecurityException e) {
+				LOGGER.warn(e.getMessage(), e);
+			}
+		}
+		return calculators;
+	}
+
 	/**
 	 * The main method for calculating metrics for multiple versions of multiple
 	 * projects. This method has to be called from a running eclipse workspace!
 	 *
 	 * @param configurations The project configurations which should be considered
+	 * @return true, iff the metrics of all projects have been calculated
+	 *         successfully
 	 */
 	public boolean calculateAll(final Collection<ProjectConfiguration> configurations) {
-		for (final ProjectConfiguration config : configurations) {
-			if (!calculate(config)) {
+		return calculateAll(configurations, MAX_PARALLEL_PROJECTS);
+	}
+
+	/**
+	 * Calculates the metrics of multiple projects using a bounded number of
+	 * workers. Each worker has its own calculators, log appenders and errors. A
+	 * failing project doesn't stop the other projects. Configurations with the same
+	 * product name share a clone directory and are therefore processed one after
+	 * another by the same worker. This method has to be called from a running
+	 * eclipse workspace!
+	 *
+	 * @param configurations The project configurations which should be considered
+	 * @param parallelism    The maximal number of projects processed at the same
+	 *                       time
+	 * @return true, iff the metrics of all projects have been calculated
+	 *         successfully
+	 */
+	public boolean calculateAll(final Collection<ProjectConfiguration> configurations, final int parallelism) {
+		final Map<String, List<ProjectConfiguration>> byProduct = configurations.stream().collect(
+				Collectors.groupingBy(ProjectConfiguration::getProductName, LinkedHashMap::new, Collectors.toList()));
+		if (byProduct.isEmpty()) {
+			return true;
+		}
+		final ThreadLocal<MetricCalculation> workers = ThreadLocal.withInitial(() -> new MetricCalculation(this));
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, byProduct.size())));
+		final Map<String, Future<Boolean>> futures = new LinkedHashMap<>();
+		for (final Entry<String, List<ProjectConfiguration>> entry : byProduct.entrySet()) {
+			futures.put(entry.getKey(), executor.submit(() -> {
+				final MetricCalculation worker = workers.get();
+				boolean success = true;
+				for (final ProjectConfiguration config : entry.getValue()) {
+					try {
+						if (!worker.calculate(config)) {
+							LOGGER.error("Metric calculation failed for " + getProjectId(config) + ": "
+									+ worker.getLastErrors());
+							success = false;
+						}
+					} catch (final RuntimeException e) {
+						// continue with the other configurations of the product
+						LOGGER.error("Metric calculation crashed for " + getProjectId(config), e);
+						worker.errors.add(e.getClass().getSimpleName());
+						worker.writeError(config.getProductName(), config.getVendorName(), "all versions");
+						success = false;
+					}
+				}
+				return success;
+			}));
+		}
+		executor.shutdown();
+
+		boolean success = true;
+		for (final Entry<String, Future<Boolean>> entry : futures.entrySet()) {
+			try {
+				success &= entry.getValue().get();
+			} catch (final ExecutionException e) {
+				LOGGER.error("Metric calculation crashed for " + entry.getKey(), e.getCause());
+				success = false;
+			} catch (final InterruptedException e) {
+				LOGGER.error(e.getMessage(), e);
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
 				return false;
 			}
 		}
-		return true;
+		return success;
 	}
 
 	/**
@@ -184,16 +361,37 @@ public class MetricCalculation {
 		this.notApplicibleVersions = new ArrayList<>();
 
 		// Create a project specific file logger
+		MDC.put(MDC_PROJECT, getProjectId(config));
 		final FileAppender fileAppender = addLogAppender(config);
 
 		// Reset previously recored errors
 		this.errors = new HashSet<>();
+		try {
+			return calculateVersions(config);
+		} finally {
+			flushResults();
+			// Drop the project specific file logger
+			dropLogAppender(fileAppender);
+			MDC.remove(MDC_PROJECT);
+		}
+	}
 
+	/**
+	 * Clones the project and calculates the metrics for all versions of the
+	 * configuration
+	 *
+	 * @param config The project configuration
+	 * @return true, iff the metrics have been calculated for all versions
+	 */
+	private boolean calculateVersions(final ProjectConfiguration config) {
 		// Clone the project
 		boolean success = true;
 		final String productName = config.getProductName();
 		final String vendorName = config.getVendorName();
 		final File srcLocation = new File(REPOSITORIES, productName);
+		if (USE_WORKTREES) {
+			return calculateVersionsInWorktrees(config, srcLocation);
+		}
 		if (REUSE_REPOSITORIES && srcLocation.exists()) {
 			cleanGradle(srcLocation);
 
@@ -207,9 +405,9 @@ public class MetricCalculation {
 						LOGGER.error("Error while checking out commit", e);
 						return false;
 					}
-					success &= setMetricResults(productName, vendorName, version, srcLocation);
+					success &= setMetricResults(productName, vendorName, version, resolveCommit(srcLocation, commitId),
+							srcLocation);
 				}
-				dropLogAppender(fileAppender);
 				return success;
 			} catch (final IOException e) {
 				LOGGER.error("Error while opening location as git repository", e);
@@ -238,18 +436,116 @@ public class MetricCalculation {
 				}
 				FileUtils.recursiveDelete(new File(RESULTS, "SourceMeter"));
 
-				success &= setMetricResults(productName, vendorName, version, srcLocation);
+				success &= setMetricResults(productName, vendorName, version, resolveCommit(srcLocation, commitId),
+						srcLocation);
 			}
 		} catch (GitCloneException | IOException e) {
 			LOGGER.log(Level.ERROR, e);
 			success = false;
 		}
+		return success;
+	}
 
-		// Drop the project specific file logger
-		dropLogAppender(fileAppender);
+	/**
+	 * Calculates the metrics for all versions of the configuration. Each version
+	 * is checked out into its own worktree of the shared clone and up to
+	 * {@link #MAX_PARALLEL_VERSIONS} versions are analyzed at the same time.
+	 *
+	 * @param config      The project configuration
+	 * @param srcLocation The location of the clone
+	 * @return true, iff the metrics have been calculated for all versions
+	 */
+	private boolean calculateVersionsInWorktrees(final ProjectConfiguration config, final File srcLocation) {
+		if (!srcLocation.exists()) {
+			try {
+				// Creating the tools clones the repository, the versions use worktrees
+				new GitTools(config.getGitUrl(), REPOSITORIES, true, true).close();
+				LOGGER.info("Cloned " + config.getGitUrl());
+			} catch (GitCloneException | IOException e) {
+				LOGGER.log(Level.ERROR, e);
+				return false;
+			}
+		}
+		final String productName = config.getProductName();
+		final String vendorName = config.getVendorName();
+		final String projectId = getProjectId(config);
+		final GitWorktrees worktrees = new GitWorktrees(srcLocation, new File(WORKTREES, productName));
+
+		// The workers of the versions share the bookkeeping of this project
+		this.errors = Collections.synchronizedSet(this.errors);
+		this.successFullVersions = Collections.synchronizedList(this.successFullVersions);
+		this.notApplicibleVersions = Collections.synchronizedList(this.notApplicibleVersions);
+		final ThreadLocal<MetricCalculation> workers = ThreadLocal.withInitial(() -> {
+			final MetricCalculation worker = new MetricCalculation(this);
+			worker.errors = this.errors;
+			worker.successFullVersions = this.successFullVersions;
+			worker.notApplicibleVersions = this.notApplicibleVersions;
+			return worker;
+		});
+
+		final Collection<Entry<String, String>> versions = config.getVersionCommitIdPairs();
+		final ExecutorService executor = Executors
+				.newFixedThreadPool(Math.max(1, Math.min(MAX_PARALLEL_VERSIONS, versions.size())));
+		final Map<String, Future<Boolean>> futures = new LinkedHashMap<>();
+		for (final Entry<String, String> entry : versions) {
+			final String version = entry.getKey();
+			final String commitId = entry.getValue();
+			futures.put(version, executor.submit(() -> {
+				MDC.put(MDC_PROJECT, projectId);
+				try {
+					LOGGER.log(Level.INFO, "Checkingout commit " + commitId + " into a worktree");
+					final File worktree;
+					try {
+						worktree = worktrees.checkout(commitId);
+					} catch (final IOException e) {
+						LOGGER.error("Error while checking out commit", e);
+						this.errors.add("change commit");
+						return false;
+					}
+					cleanGradle(worktree);
+					return workers.get().setMetricResults(productName, vendorName, version,
+							resolveCommit(srcLocation, commitId), worktree);
+				} finally {
+					MDC.remove(MDC_PROJECT);
+				}
+			}));
+		}
+		executor.shutdown();
+
+		boolean success = true;
+		for (final Entry<String, Future<Boolean>> entry : futures.entrySet()) {
+			try {
+				success &= entry.getValue().get();
+			} catch (final ExecutionException e) {
+				LOGGER.error("Metric calculation crashed for version " + entry.getKey(), e.getCause());
+				success = false;
+			} catch (final InterruptedException e) {
+				LOGGER.error(e.getMessage(), e);
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
 		return success;
 	}
 
+	/**
+	 * Resolves the SHA of a commit
+	 *
+	 * @param repository The location of the git repository
+	 * @param commitId   The id of the commit, e.g., an abbreviated SHA
+	 * @return The SHA or null, if the commit cannot be resolved
+	 */
+	private static String resolveCommit(final File repository, final String commitId) {
+		try (Git git = Git.open(repository)) {
+			final ObjectId id = git.getRepository().resolve(commitId + "^{commit}");
+			return id == null ? null : id.name();
+		} catch (final IOException | RevisionSyntaxException e) {
+			LOGGER.warn("Couldn't resolve commit " + commitId + ": " + e.getMessage());
+			return null;
+		}
+	}
+
 	private void cleanGradle(final File srcLocation) {
 		final File buildGradle = new File(srcLocation.getAbsolutePath(), "build.gradle");
 		String cleanContent = "";
@@ -278,13 +574,15 @@ public class MetricCalculation {
 	}
 
 	private boolean setMetricResults(final String productName, final String vendorName, final String version,
-			final File srcLocation) {
+			final String commitId, final File srcLocation) {
 		boolean success = true;
 		LOGGER.log(Level.INFO, "Start metric calculation");
 		try {
-			success &= calculateMetrics(productName, vendorName, version, srcLocation);
+			success &= calculateMetrics(productName, vendorName, version, commitId, srcLocation);
 		} catch (final Exception e) {
 			LOGGER.log(Level.ERROR, e.getLocalizedMessage(), e);
+			this.errors.add(e.getClass().getSimpleName());
+			writeError(productName, vendorName, version);
 			success = false;
 		}
 		if (success) {
@@ -349,7 +647,28 @@ public class MetricCalculation {
 	 * @return The project specific logger
 	 */
 	private FileAppender addLogAppender(final ProjectConfiguration config) {
-		return addLogAppender(config.getVendorName() + '-' + config.getProductName());
+		final String projectId = getProjectId(config);
+		final FileAppender fileAppender = addLogAppender(projectId);
+		if (fileAppender != null) {
+			// Only log events of the threads working on this project
+			fileAppender.addFilter(new Filter() {
+				@Override
+				public int decide(final LoggingEvent event) {
+					return projectId.equals(event.getMDC(MDC_PROJECT)) ? Filter.NEUTRAL : Filter.DENY;
+				}
+			});
+		}
+		return fileAppender;
+	}
+
+	/**
+	 * Returns an ID consisting out of the name of vendor and product
+	 *
+	 * @param config The project configuration
+	 * @return The ID
+	 */
+	private static String getProjectId(final ProjectConfiguration config) {
+		return config.getVendorName() + '-' + config.getProductName();
 	}
 
 	/**
@@ -389,45 +708,142 @@ public class MetricCalculation {
 	 * @param productName The name of the software project
 	 * @param vendorName  The name of the projects vendor
 	 * @param version     The version which should be inspected
+	 * @param commitId    The SHA of the inspected commit or null, if it is unknown
 	 * @param src         The location of the source code
 	 * @return true if everything went okay, otherwise false
 	 */
 	private boolean calculateMetrics(final String productName, final String vendorName, final String version,
-			final File src) {
+			final String commitId, final File src) {
 		// Import the sourcecode as maven or gradle project
 		IJavaProject project;
+		synchronized (IMPORT_LOCK) {
+			try {
+				project = importProject(src, true);
+			} catch (final ImportException e) {
+				return false;
+			}
+			if (project == null) {
+				return false;
+			}
+			try {
+				project = renameProject(project, getWorkspaceProjectName(productName, version, commitId));
+			} catch (final CoreException e) {
+				LOGGER.log(Level.ERROR, e.getMessage(), e);
+				this.errors.add("rename project");
+				return false;
+			}
+			ACTIVE_PROJECTS.add(project.getProject().getName());
+		}
 		try {
-			project = importProject(src, true);
-		} catch (final ImportException e) {
-			return false;
+			SourceLocations.register(project, src);
+			try {
+				return calculateMetrics(project, productName, vendorName, version, commitId);
+			} finally {
+				SourceLocations.unregister(project);
+			}
+		} finally {
+			removeProject(project);
+			synchronized (IMPORT_LOCK) {
+				ACTIVE_PROJECTS.remove(project.getProject().getName());
+			}
 		}
-		if (project == null) {
-			return false;
+	}
+
+	/**
+	 * Returns the name of the workspace project of a version, which is unique
+	 * among the projects analyzed at the same time, e.g., if two versions refer to
+	 * the same commit. Has to be called while holding {@link #IMPORT_LOCK}.
+	 *
+	 * @param productName The name of the software project
+	 * @param version     The inspected version
+	 * @param commitId    The SHA of the inspected commit or null, if it is unknown
+	 * @return The name, e.g., "product@sha"
+	 */
+	private static String getWorkspaceProjectName(final String productName, final String version,
+			final String commitId) {
+		final String name = (productName + '@' + (commitId == null ? version : commitId)).replaceAll("[^\\w.@-]",
+				"_");
+		String unique = name;
+		for (int i = 2; ACTIVE_PROJECTS.contains(unique); i++) {
+			unique = name + '~' + i;
+		}
+		return unique;
+	}
+
+	/**
+	 * Renames an imported project. A project of the same name, which isn't
+	 * analyzed at the moment, has been left behind by an aborted run and is
+	 * removed.
+	 *
+	 * @param project The imported project
+	 * @param name    The new name
+	 * @return The renamed project
+	 * @throws CoreException If the project cannot be renamed
+	 */
+	private static IJavaProject renameProject(final IJavaProject project, final String name) throws CoreException {
+		final IProject iproject = project.getProject();
+		if (iproject.getName().equals(name)) {
+			return project;
 		}
+		final IWorkspaceRoot root = iproject.getWorkspace().getRoot();
+		final IProject previous = root.getProject(name);
+		if (previous.exists()) {
+			removeProject(JavaCore.create(previous));
+		}
+		final IProjectDescription description = iproject.getDescription();
+		description.setName(name);
+		iproject.move(description, IResource.FORCE | IResource.SHALLOW, new NullProgressMonitor());
+		return JavaCore.create(root.getProject(name));
+	}
+
+	/**
+	 * Removes an analyzed project from the workspace. The content is only deleted
+	 * if it is located in the workspace, the checkout of the version is kept.
+	 *
+	 * @param project The project
+	 */
+	private static void removeProject(final IJavaProject project) {
+		final IProject iproject = project.getProject();
+		try {
+			final IPath location = iproject.getLocation();
+			final boolean inWorkspace = (location != null)
+					&& iproject.getWorkspace().getRoot().getLocation().isPrefixOf(location);
+			iproject.delete(inWorkspace, true, new NullProgressMonitor());
+		} catch (final CoreException e) {
+			LOGGER.log(Level.WARN, "Cannot remove the project " + iproject.getName() + " from the workspace", e);
+		}
+	}
+
+	/**
+	 * Calculate the correlation metrics of an imported project
+	 *
+	 * @param project     The imported project
+	 * @param productName The name of the software project
+	 * @param vendorName  The name of the projects vendor
+	 * @param version     The version which should be inspected
+	 * @param commitId    The SHA of the inspected commit or null, if cached
+	 *                    results shouldn't be used
+	 * @return true if everything went okay, otherwise false
+	 */
+	private boolean calculateMetrics(final IJavaProject project, final String productName, final String vendorName,
+			final String version, final String commitId) {
 
 		// Calculate all metrics
 		boolean success = true;
 		final HashMap<String, String> results = new HashMap<>();
-		for (final IMetricCalculator calc : this.calculators) {
-			LOGGER.log(Level.INFO, "Execute metric calculation: " + calc.getClass().getSimpleName());
-			try {
-				if (calc.calculateMetric(project, productName, vendorName, version,
-						Collections.unmodifiableMap(results))) {
-					results.putAll(calc.getResults());
-					success &= plausabilityCheck(calc);
-					/*
-					 * if (calc instanceof IMetricClassCalculator) {
-					 * LOGGER.info("processing class metrics"); processClassMetrics(productName,
-					 * vendorName, version, ((IMetricClassCalculator) calc).getClassResults()); }
-					 */
-				} else {
-					this.errors.add(calc.getClass().getSimpleName());
-					success = false;
+		for (final Outcome outcome : this.scheduler.execute(project, productName, vendorName, version, commitId)
+				.values()) {
+			final IMetricCalculator calc = outcome.getCalculator();
+			if (outcome.getStatus() == Status.SUCCESS) {
+				results.putAll(outcome.getResults());
+				success &= plausabilityCheck(calc, outcome.getResults());
+				if (STORE_CLASS_METRICS && (calc instanceof IMetricClassCalculator)) {
+					LOGGER.info("processing class metrics");
+					processClassMetrics(productName, vendorName, version, outcome);
 				}
-			} catch (final Exception e) {
-				success = false;
+			} else {
 				this.errors.add(calc.getClass().getSimpleName());
-				LOGGER.log(Level.ERROR, "A detection failed with an Exception: " + e.getMessage(), e);
+				success = false;
 			}
 		}
 		LOGGER.info("writing to log");
@@ -448,46 +864,77 @@ public class MetricCalculation {
 				LOGGER.error("could not store results in database");
 				LOGGER.log(Level.ERROR, e.getStackTrace());
 			}
-			for (final Entry<String, String> entry : results.entrySet()) {
-				if (!this.allMetricResults.containsKey(entry.getKey())) {
-					this.allMetricResults.put(entry.getKey(), new LinkedList<>());
+			synchronized (this.allMetricResults) {
+				for (final Entry<String, String> entry : results.entrySet()) {
+					if (!this.allMetricResults.containsKey(entry.getKey())) {
+						this.allMetricResults.put(entry.getKey(), new LinkedList<>());
+					}
+					this.allMetricResults.get(entry.getKey()).add(entry.getValue());
 				}
-				this.allMetricResults.get(entry.getKey()).add(entry.getValue());
 			}
 		} else {
-			try (FileWriter writer = new FileWriter(this.errorFile, true)) {
-				writer.append(vendorName);
-				writer.append(',');
-				writer.append(productName);
-				writer.append(',');
-				writer.append(version);
-				writer.append(',');
-				writer.append(this.errors.stream().collect(Collectors.joining(" - ")));
-				writer.append('\n');
-			} catch (final IOException e) {
-				LOGGER.log(Level.ERROR, e.getLocalizedMessage(), e);
-			}
+			writeError(productName, vendorName, version);
 		}
 		LOGGER.info("finished writing");
 		return success;
 	}
 
+	/**
+	 * Writes the pending results and errors of all workers to the disk
+	 */
+	private void flushResults() {
+		try {
+			this.storage.flush();
+			this.errorWriter.flush();
+		} catch (final IOException e) {
+			LOGGER.log(Level.ERROR, e.getLocalizedMessage(), e);
+		}
+	}
+
+	/**
+	 * Appends the errors recorded for a version to the error file
+	 *
+	 * @param productName The name of the software project
+	 * @param vendorName  The name of the projects vendor
+	 * @param version     The inspected version
+	 */
+	private void writeError(final String productName, final String vendorName, final String version) {
+		try {
+			this.errorWriter.append(vendorName + ',' + productName + ',' + version + ','
+					+ this.errors.stream().collect(Collectors.joining(" - ")) + '\n');
+		} catch (final IOException e) {
+			LOGGER.log(Level.ERROR, e.getLocalizedMessage(), e);
+		}
+	}
+
+	/**
+	 * Stores the class metrics of an outcome in the database. Calculated metrics
+	 * are read from the columns of the class metric table, cached ones from their
+	 * map.
+	 */
 	private void processClassMetrics(final String productName, final String vendorName, final String version,
-			final Map<String, Map<String, String>> classResults) {
+			final Outcome outcome) {
 		try (MongoDBHelper helper = new MongoDBHelper(MongoDBHelper.DEFAULT_DATABASE, MongoDBHelper.CLASS_COLLECTION)) {
-			helper.storeClassMetrics(productName, vendorName, version, classResults);
+			final ClassMetricTable table = outcome.getClassMetrics();
+			if (table != null) {
+				helper.storeClassMetrics(productName, vendorName, version, table);
+			} else {
+				helper.storeClassMetrics(productName, vendorName, version, outcome.getClassResults());
+			}
+		} catch (final Exception e) {
+			LOGGER.log(Level.ERROR, "could not store class metrics in database", e);
 		}
-
 	}
 
 	/**
 	 * Checks if the results of the metric calculator are plausible
 	 *
-	 * @param calc The executed metric calculator
+	 * @param calc    The executed metric calculator
+	 * @param results The results of the calculator
 	 * @return true iff the results are plausible
 	 */
-	private boolean plausabilityCheck(final IMetricCalculator calc) {
-		for (final String value : calc.getResults().values()) {
+	private boolean plausabilityCheck(final IMetricCalculator calc, final Map<String, String> results) {
+		for (final String value : results.values()) {
 			if ((value == null) || value.isEmpty() || Double.toString(Double.NaN).equals(value)) {
 				this.errors.add("Values not plausible: " + calc.getClass().getSimpleName());
 				return false;
@@ -0,0 +1,527 @@
+package metric.correlation.analysis.calculation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A columnar table of class metrics. The class names are kept in a dictionary
+ * mapping them to rows and each metric is stored in a primitive column, either
+ * as double or as int values. Missing double values are represented by NaN.
+ *
+ * String based consumers can use {@link #asMap()}, which is a view on the table
+ * and doesn't copy the values. A table can be serialized into a compact binary
+ * form with {@link #toBytes()}, which stores the columns as they are.
+ */
+public class ClassMetricTable {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * The version of the binary format written by {@link #toBytes()}
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	private final List<String> metrics;
+	private final Map<String, Integer> metricIndex;
+
+	/**
+	 * The double columns by metric index, null for int columns
+	 */
+	private final double[][] doubleColumns;
+
+	/**
+	 * The int columns by metric index, null for double columns
+	 */
+	private final int[][] intColumns;
+
+	private final List<String> classNames;
+	private final Map<String, Integer> classIndex;
+
+	/**
+	 * Creates a new empty table
+	 *
+	 * @param doubleMetrics The metrics stored as double values
+	 * @param intMetrics    The metrics stored as int values
+	 */
+	public ClassMetricTable(final Collection<String> doubleMetrics, final Collection<String> intMetrics) {
+		this.metrics = new ArrayList<>(doubleMetrics.size() + intMetrics.size());
+		this.metrics.addAll(doubleMetrics);
+		this.metrics.addAll(intMetrics);
+		this.metricIndex = new HashMap<>();
+		for (int i = 0; i < this.metrics.size(); i++) {
+			if (this.metricIndex.put(this.metrics.get(i), i) != null) {
+				throw new IllegalArgumentException("Duplicated metric: " + this.metrics.get(i));
+			}
+		}
+		this.doubleColumns = new double[this.metrics.size()][];
+		this.intColumns = new int[this.metrics.size()][];
+		for (int i = 0; i < this.metrics.size(); i++) {
+			if (i < doubleMetrics.size()) {
+				this.doubleColumns[i] = new double[INITIAL_CAPACITY];
+			} else {
+				this.intColumns[i] = new int[INITIAL_CAPACITY];
+			}
+		}
+		this.classNames = new ArrayList<>();
+		this.classIndex = new HashMap<>();
+	}
+
+	/**
+	 * Returns the row of a class and adds a row if the class isn't contained. The
+	 * values of a new row are NaN for double columns and 0 for int columns.
+	 *
+	 * @param className The qualified name of the class
+	 * @return The row
+	 */
+	public int addClass(final String className) {
+		final Integer existing = this.classIndex.get(className);
+		if (existing != null) {
+			return existing;
+		}
+		final int row = this.classNames.size();
+		ensureCapacity(row + 1);
+		for (final double[] column : this.doubleColumns) {
+			if (column != null) {
+				column[row] = Double.NaN;
+			}
+		}
+		this.classNames.add(className);
+		this.classIndex.put(className, row);
+		return row;
+	}
+
+	private void ensureCapacity(final int capacity) {
+		for (int i = 0; i < this.metrics.size(); i++) {
+			if ((this.doubleColumns[i] != null) && (this.doubleColumns[i].length < capacity)) {
+				this.doubleColumns[i] = Arrays.copyOf(this.doubleColumns[i],
+						Math.max(capacity, this.doubleColumns[i].length * 2));
+			} else if ((this.intColumns[i] != null) && (this.intColumns[i].length < capacity)) {
+				this.intColumns[i] = Arrays.copyOf(this.intColumns[i], Math.max(capacity, this.intColumns[i].length * 2));
+			}
+		}
+	}
+
+	/**
+	 * Returns the row of a class
+	 *
+	 * @param className The qualified name of the class
+	 * @return The row or -1, if the class isn't contained
+	 */
+	public int getRow(final String className) {
+		final Integer row = this.classIndex.get(className);
+		return row == null ? -1 : row;
+	}
+
+	/**
+	 * A getter for the number of classes
+	 *
+	 * @return The number of rows
+	 */
+	public int size() {
+		return this.classNames.size();
+	}
+
+	/**
+	 * A getter for the name of the class stored in a row
+	 *
+	 * @param row The row
+	 * @return The qualified class name
+	 */
+	public String getClassName(final int row) {
+		return this.classNames.get(row);
+	}
+
+	/**
+	 * A getter for the class names in the order of the rows
+	 *
+	 * @return An unmodifiable view on the class names
+	 */
+	public List<String> getClassNames() {
+		return Collections.unmodifiableList(this.classNames);
+	}
+
+	/**
+	 * A getter for the metrics of the table
+	 *
+	 * @return An unmodifiable view on the metrics
+	 */
+	public List<String> getMetricKeys() {
+		return Collections.unmodifiableList(this.metrics);
+	}
+
+	/**
+	 * Checks if a metric is stored as int values
+	 *
+	 * @param metric The metric
+	 * @return true, iff the column holds int values
+	 */
+	public boolean isIntColumn(final String metric) {
+		return this.intColumns[column(metric)] != null;
+	}
+
+	/**
+	 * Returns a value as double
+	 *
+	 * @param row    The row
+	 * @param metric The metric
+	 * @return The value
+	 */
+	public double getDouble(final int row, final String metric) {
+		checkRow(row);
+		final int column = column(metric);
+		if (this.doubleColumns[column] != null) {
+			return this.doubleColumns[column][row];
+		}
+		return this.intColumns[column][row];
+	}
+
+	/**
+	 * Returns the value of an int column
+	 *
+	 * @param row    The row
+	 * @param metric The metric
+	 * @return The value
+	 */
+	public int getInt(final int row, final String metric) {
+		checkRow(row);
+		return intValues(metric)[row];
+	}
+
+	/**
+	 * Sets a value of a double column
+	 *
+	 * @param row    The row
+	 * @param metric The metric
+	 * @param value  The new value
+	 */
+	public void setDouble(final int row, final String metric, final double value) {
+		checkRow(row);
+		doubleValues(metric)[row] = value;
+	}
+
+	/**
+	 * Sets a value of an int column
+	 *
+	 * @param row    The row
+	 * @param metric The metric
+	 * @param value  The new value
+	 */
+	public void setInt(final int row, final String metric, final int value) {
+		checkRow(row);
+		intValues(metric)[row] = value;
+	}
+
+	/**
+	 * Increments a value of an int column by one
+	 *
+	 * @param row    The row
+	 * @param metric The metric
+	 */
+	public void increment(final int row, final String metric) {
+		checkRow(row);
+		intValues(metric)[row]++;
+	}
+
+	/**
+	 * Returns the values of a column as stream without copying them
+	 *
+	 * @param metric The metric
+	 * @return The values in the order of the rows
+	 */
+	public DoubleStream doubleColumn(final String metric) {
+		final int column = column(metric);
+		if (this.doubleColumns[column] != null) {
+			return Arrays.stream(this.doubleColumns[column], 0, size());
+		}
+		return Arrays.stream(this.intColumns[column], 0, size()).asDoubleStream();
+	}
+
+	/**
+	 * Returns the values of an int column as stream without copying them
+	 *
+	 * @param metric The metric
+	 * @return The values in the order of the rows
+	 */
+	public IntStream intColumn(final String metric) {
+		return Arrays.stream(intValues(metric), 0, size());
+	}
+
+	/**
+	 * Returns a value formatted as string like it is stored in the result files
+	 *
+	 * @param row    The row
+	 * @param metric The metric
+	 * @return The value or null, if the value is missing
+	 */
+	public String getString(final int row, final String metric) {
+		checkRow(row);
+		final int column = column(metric);
+		if (this.intColumns[column] != null) {
+			return Integer.toString(this.intColumns[column][row]);
+		}
+		return format(this.doubleColumns[column][row]);
+	}
+
+	private static String format(final double value) {
+		if (Double.isNaN(value)) {
+			return null;
+		}
+		if ((value == Math.rint(value)) && !Double.isInfinite(value) && (Math.abs(value) < Long.MAX_VALUE)) {
+			return Long.toString((long) value);
+		}
+		return Double.toString(value);
+	}
+
+	/**
+	 * Serializes the table. The metrics and class names are followed by the
+	 * values column by column and the whole table is deflated.
+	 *
+	 * @return The binary form of the table
+	 * @see #fromBytes(byte[])
+	 */
+	public byte[] toBytes() {
+		final List<String> doubleMetrics = new ArrayList<>();
+		final List<String> intMetrics = new ArrayList<>();
+		for (int i = 0; i < this.metrics.size(); i++) {
+			(this.intColumns[i] == null ? doubleMetrics : intMetrics).add(this.metrics.get(i));
+		}
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+			out.writeInt(FORMAT_VERSION);
+			writeStrings(out, doubleMetrics);
+			writeStrings(out, intMetrics);
+			writeStrings(out, this.classNames);
+			for (int i = 0; i < this.metrics.size(); i++) {
+				for (int row = 0; row < size(); row++) {
+					if (this.intColumns[i] == null) {
+						out.writeDouble(this.doubleColumns[i][row]);
+					} else {
+						out.writeInt(this.intColumns[i][row]);
+					}
+				}
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Deserializes a table
+	 *
+	 * @param bytes The binary form created by {@link #toBytes()}
+	 * @return The table
+	 * @throws IllegalArgumentException If the bytes aren't a serialized table
+	 */
+	public static ClassMetricTable fromBytes(final byte[] bytes) {
+		try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+			final int version = in.readInt();
+			if (version != FORMAT_VERSION) {
+				throw new IllegalArgumentException("Unsupported format version: " + version);
+			}
+			final ClassMetricTable table = new ClassMetricTable(readStrings(in), readStrings(in));
+			for (final String className : readStrings(in)) {
+				table.addClass(className);
+			}
+			for (int i = 0; i < table.metrics.size(); i++) {
+				for (int row = 0; row < table.size(); row++) {
+					if (table.intColumns[i] == null) {
+						table.doubleColumns[i][row] = in.readDouble();
+					} else {
+						table.intColumns[i][row] = in.readInt();
+					}
+				}
+			}
+			return table;
+		} catch (final IOException e) {
+			throw new IllegalArgumentException("Not a serialized class metric table", e);
+		}
+	}
+
+	private static void writeStrings(final DataOutputStream out, final List<String> strings) throws IOException {
+		out.writeInt(strings.size());
+		for (final String string : strings) {
+			out.writeUTF(string);
+		}
+	}
+
+	private static List<String> readStrings(final DataInputStream in) throws IOException {
+		final int size = in.readInt();
+		final List<String> strings = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			strings.add(in.readUTF());
+		}
+		return strings;
+	}
+
+	/**
+	 * Returns a read only view of the table mapping class names to their
+	 * formatted metrics. Missing values are left out.
+	 *
+	 * @return The view
+	 */
+	public Map<String, Map<String, String>> asMap() {
+		return new TableView();
+	}
+
+	/**
+	 * Returns a read only view of a row mapping metrics to their formatted values
+	 *
+	 * @param row The row
+	 * @return The view
+	 */
+	public Map<String, String> getRowView(final int row) {
+		checkRow(row);
+		return new RowView(row);
+	}
+
+	private int column(final String metric) {
+		final Integer column = this.metricIndex.get(metric);
+		if (column == null) {
+			throw new IllegalArgumentException("Unknown metric: " + metric);
+		}
+		return column;
+	}
+
+	private double[] doubleValues(final String metric) {
+		final double[] column = this.doubleColumns[column(metric)];
+		if (column == null) {
+			throw new IllegalArgumentException("Not a double column: " + metric);
+		}
+		return column;
+	}
+
+	private int[] intValues(final String metric) {
+		final int[] column = this.intColumns[column(metric)];
+		if (column == null) {
+			throw new IllegalArgumentException("Not an int column: " + metric);
+		}
+		return column;
+	}
+
+	private void checkRow(final int row) {
+		if ((row < 0) || (row >= size())) {
+			throw new IndexOutOfBoundsException("Row " + row + " of " + size());
+		}
+	}
+
+	/**
+	 * A view of the whole table
+	 */
+	private class TableView extends AbstractMap<String, Map<String, String>> {
+
+		@Override
+		public Map<String, String> get(final Object key) {
+			final Integer row = ClassMetricTable.this.classIndex.get(key);
+			return row == null ? null : new RowView(row);
+		}
+
+		@Override
+		public boolean containsKey(final Object key) {
+			return ClassMetricTable.this.classIndex.containsKey(key);
+		}
+
+		@Override
+		public int size() {
+			return ClassMetricTable.this.size();
+		}
+
+		@Override
+		public Set<Entry<String, Map<String, String>>> entrySet() {
+			return new AbstractSet<>() {
+
+				@Override
+				public Iterator<Entry<String, Map<String, String>>> iterator() {
+					return new Iterator<>() {
+						private int row;
+
+						@Override
+						public boolean hasNext() {
+							return this.row < ClassMetricTable.this.size();
+						}
+
+						@Override
+						public Entry<String, Map<String, String>> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+							final int current = this.row++;
+							return new SimpleImmutableEntry<>(getClassName(current), new RowView(current));
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return ClassMetricTable.this.size();
+				}
+			};
+		}
+	}
+
+	/**
+	 * A view of a single row
+	 */
+	private class RowView extends AbstractMap<String, String> {
+
+		private final int row;
+
+		RowView(final int row) {
+			this.row = row;
+		}
+
+		@Override
+		public String get(final Object key) {
+			final Integer column = ClassMetricTable.this.metricIndex.get(key);
+			return column == null ? null : getString(this.row, (String) key);
+		}
+
+		@Override
+		public boolean containsKey(final Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public Set<Entry<String, String>> entrySet() {
+			final List<Entry<String, String>> entries = new ArrayList<>(ClassMetricTable.this.metrics.size());
+			for (final String metric : ClassMetricTable.this.metrics) {
+				final String value = getString(this.row, metric);
+				if (value != null) {
+					entries.add(new SimpleImmutableEntry<>(metric, value));
+				}
+			}
+			return new AbstractSet<>() {
+
+				@Override
+				public Iterator<Entry<String, String>> iterator() {
+					return Collections.unmodifiableList(entries).iterator();
+				}
+
+				@Override
+				public int size() {
+					return entries.size();
+				}
+			};
+		}
+	}
+}
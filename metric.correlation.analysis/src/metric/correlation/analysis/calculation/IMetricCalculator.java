@@ -7,7 +7,7 @@ import java.util.Set;
 
 import org.eclipse.jdt.core.IJavaProject;
 
-public interface IMetricCalculator extends Comparable<IMetricCalculator> {
+public interface IMetricCalculator {
 
 	boolean calculateMetric(IJavaProject project, String productName, String vendorName, String version, final Map<String, String> map) throws IOException;
 
@@ -15,19 +15,36 @@ public interface IMetricCalculator extends Comparable<IMetricCalculator> {
 
 	Collection<String> getMetricKeys();
 
+	/**
+	 * Returns the calculators whose results are needed by this calculator. The
+	 * calculators are executed along these dependencies by the
+	 * {@link MetricCalculatorScheduler}.
+	 *
+	 * @return The classes of the required calculators
+	 */
 	Set<Class<? extends IMetricCalculator>> getDependencies();
 
-	@Override
-	default int compareTo(final IMetricCalculator other) {
-		if(other.getClass().equals(getClass())) {
-			return 0;
-		}
-		if(getDependencies().contains(other.getClass())) {
-			if(other.getDependencies().contains(getClass())) {
-				throw new IllegalStateException("There is a cycle in the dependencies of metric calculators");
-			}
-			return 1;
-		}
-		return -1;
+	/**
+	 * Returns the version of the calculator. Cached results of other versions are
+	 * not reused, so the version has to change whenever the implementation or the
+	 * configuration of the calculator changes its results.
+	 *
+	 * @return The version
+	 */
+	default String getCalculatorVersion() {
+		return "1";
+	}
+
+	/**
+	 * Checks if the results of the calculator only depend on the analyzed commit.
+	 * Results of calculators which also depend on the product, vendor or version
+	 * of the configuration, e.g., because they query external data by these
+	 * names, must not be cached by the commit, as two configurations can share a
+	 * commit.
+	 *
+	 * @return true, iff the results can be cached by the commit
+	 */
+	default boolean isCacheable() {
+		return true;
 	}
 }
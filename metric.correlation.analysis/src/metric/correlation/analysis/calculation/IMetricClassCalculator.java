@@ -3,5 +3,21 @@ package metric.correlation.analysis.calculation;
 import java.util.Map;
 
 public interface IMetricClassCalculator extends IMetricCalculator {
-	public Map<String, Map<String, String>> getClassResults();
+
+	/**
+	 * Returns the metrics of the individual classes of the last calculation
+	 *
+	 * @return A table containing a row per class
+	 */
+	ClassMetricTable getClassMetrics();
+
+	/**
+	 * Returns the metrics of the individual classes as strings. The returned map
+	 * is a view on {@link #getClassMetrics()}.
+	 *
+	 * @return A mapping from class names to their metrics
+	 */
+	default Map<String, Map<String, String>> getClassResults() {
+		return getClassMetrics().asMap();
+	}
 }
@@ -0,0 +1,91 @@
+package metric.correlation.analysis.calculation;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * A cache for the results of metric calculators. Entries are addressed by the
+ * analyzed commit, the calculator and a hash of the calculator version. An entry
+ * stored with another version hash is never returned.
+ */
+public interface IResultCache {
+
+	/**
+	 * Looks up the cached results of a calculator
+	 *
+	 * @param commitId    The SHA of the analyzed commit
+	 * @param calculator  The class of the calculator
+	 * @param versionHash The hash of the calculator version
+	 * @return The cached results or null, if there is no matching entry
+	 */
+	CachedResults get(String commitId, Class<? extends IMetricCalculator> calculator, String versionHash);
+
+	/**
+	 * Stores the results of a calculator and replaces entries of older versions
+	 *
+	 * @param commitId    The SHA of the analyzed commit
+	 * @param calculator  The class of the calculator
+	 * @param versionHash The hash of the calculator version
+	 * @param results     The results
+	 */
+	void put(String commitId, Class<? extends IMetricCalculator> calculator, String versionHash,
+			CachedResults results);
+
+	/**
+	 * The cached results of a calculator. The class metrics are only loaded once
+	 * they are requested.
+	 */
+	class CachedResults {
+
+		private final Map<String, String> results;
+		private Supplier<ClassMetricTable> loader;
+		private ClassMetricTable classMetrics;
+
+		/**
+		 * Creates new cached results
+		 *
+		 * @param results      The results of the calculator
+		 * @param classMetrics The class metrics of the calculator or null, if it
+		 *                     doesn't calculate class metrics
+		 */
+		public CachedResults(final Map<String, String> results, final ClassMetricTable classMetrics) {
+			this.results = results;
+			this.classMetrics = classMetrics;
+		}
+
+		/**
+		 * Creates new cached results whose class metrics are loaded on demand
+		 *
+		 * @param results The results of the calculator
+		 * @param loader  Loads the class metrics of the calculator, returns null if
+		 *                it doesn't calculate class metrics
+		 */
+		public CachedResults(final Map<String, String> results, final Supplier<ClassMetricTable> loader) {
+			this.results = results;
+			this.loader = loader;
+		}
+
+		/**
+		 * A getter for the results
+		 *
+		 * @return The results
+		 */
+		public Map<String, String> getResults() {
+			return this.results;
+		}
+
+		/**
+		 * A getter for the class metrics, which loads them on the first request
+		 *
+		 * @return The class metric table or null, if the calculator doesn't
+		 *         calculate class metrics or no classes have been cached
+		 */
+		public synchronized ClassMetricTable getClassMetrics() {
+			if (this.loader != null) {
+				this.classMetrics = this.loader.get();
+				this.loader = null;
+			}
+			return this.classMetrics;
+		}
+	}
+}
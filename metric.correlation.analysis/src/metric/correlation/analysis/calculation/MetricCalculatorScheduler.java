@@ -0,0 +1,459 @@
+package metric.correlation.analysis.calculation;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.MDC;
+import org.eclipse.jdt.core.IJavaProject;
+
+import metric.correlation.analysis.calculation.IResultCache.CachedResults;
+
+/**
+ * Executes metric calculators along the DAG given by their dependencies.
+ * Calculators which don't depend on each other are executed concurrently and
+ * each calculator only receives the results of its upstream calculators.
+ */
+public class MetricCalculatorScheduler {
+
+	private static final Logger LOGGER = Logger.getLogger(MetricCalculatorScheduler.class);
+
+	/**
+	 * The calculators in a topological order
+	 */
+	private final List<IMetricCalculator> order;
+
+	/**
+	 * The direct dependencies of each calculator
+	 */
+	private final Map<IMetricCalculator, Set<IMetricCalculator>> dependencies;
+
+	/**
+	 * The direct and transitive dependencies of each calculator
+	 */
+	private final Map<IMetricCalculator, Set<IMetricCalculator>> upstream;
+
+	/**
+	 * The hashes of the versions of each calculator and its upstream calculators
+	 */
+	private final Map<IMetricCalculator, String> versionHashes;
+
+	/**
+	 * The calculators whose results can be cached, i.e., neither the calculator
+	 * nor one of its upstream calculators depends on the configuration
+	 */
+	private final Set<IMetricCalculator> cacheable;
+
+	/**
+	 * The cache for results or null, if results shouldn't be cached
+	 */
+	private final IResultCache cache;
+
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Creates a new scheduler for the given calculators
+	 *
+	 * @param calculators The calculators which should be executed
+	 * @throws IllegalStateException If there is a cycle in the dependencies of the
+	 *                               calculators
+	 */
+	public MetricCalculatorScheduler(final Collection<? extends IMetricCalculator> calculators) {
+		this(calculators, null);
+	}
+
+	/**
+	 * Creates a new scheduler for the given calculators which reuses cached
+	 * results
+	 *
+	 * @param calculators The calculators which should be executed
+	 * @param cache       The cache for results or null, if results shouldn't be
+	 *                    cached
+	 * @throws IllegalStateException If there is a cycle in the dependencies of the
+	 *                               calculators
+	 */
+	public MetricCalculatorScheduler(final Collection<? extends IMetricCalculator> calculators,
+			final IResultCache cache) {
+		this.cache = cache;
+		final Map<Class<?>, IMetricCalculator> byClass = new LinkedHashMap<>();
+		for (final IMetricCalculator calculator : calculators) {
+			byClass.put(calculator.getClass(), calculator);
+		}
+		this.dependencies = new HashMap<>();
+		for (final IMetricCalculator calculator : byClass.values()) {
+			final Set<IMetricCalculator> calculatorDependencies = new LinkedHashSet<>();
+			for (final Class<? extends IMetricCalculator> dependency : calculator.getDependencies()) {
+				final IMetricCalculator upstreamCalculator = byClass.get(dependency);
+				if (upstreamCalculator == null) {
+					LOGGER.warn(calculator.getClass().getSimpleName() + " depends on " + dependency.getSimpleName()
+							+ " which is not executed");
+				} else {
+					calculatorDependencies.add(upstreamCalculator);
+				}
+			}
+			this.dependencies.put(calculator, calculatorDependencies);
+		}
+		this.order = sort(byClass.values(), this.dependencies);
+		this.upstream = new HashMap<>();
+		for (final IMetricCalculator calculator : this.order) {
+			final Set<IMetricCalculator> transitive = new LinkedHashSet<>();
+			for (final IMetricCalculator dependency : this.dependencies.get(calculator)) {
+				transitive.addAll(this.upstream.get(dependency));
+				transitive.add(dependency);
+			}
+			this.upstream.put(calculator, transitive);
+		}
+		this.versionHashes = new HashMap<>();
+		this.cacheable = new HashSet<>();
+		for (final IMetricCalculator calculator : this.order) {
+			this.versionHashes.put(calculator, hashVersions(calculator, this.upstream.get(calculator)));
+			if (calculator.isCacheable()
+					&& this.upstream.get(calculator).stream().allMatch(IMetricCalculator::isCacheable)) {
+				this.cacheable.add(calculator);
+			}
+		}
+
+		final int threads = Math.max(1, this.order.size());
+		this.executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+				runnable -> {
+					final Thread thread = new Thread(runnable, "metric-calculator");
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Sorts the calculators topologically
+	 *
+	 * @param calculators  The calculators
+	 * @param dependencies The direct dependencies of the calculators
+	 * @return The sorted calculators
+	 * @throws IllegalStateException If there is a cycle in the dependencies
+	 */
+	private static List<IMetricCalculator> sort(final Collection<IMetricCalculator> calculators,
+			final Map<IMetricCalculator, Set<IMetricCalculator>> dependencies) {
+		final Map<IMetricCalculator, Integer> inDegree = new LinkedHashMap<>();
+		final Map<IMetricCalculator, List<IMetricCalculator>> dependents = new HashMap<>();
+		for (final IMetricCalculator calculator : calculators) {
+			inDegree.put(calculator, dependencies.get(calculator).size());
+			for (final IMetricCalculator dependency : dependencies.get(calculator)) {
+				dependents.computeIfAbsent(dependency, d -> new LinkedList<>()).add(calculator);
+			}
+		}
+		final Queue<IMetricCalculator> ready = inDegree.entrySet().stream().filter(entry -> entry.getValue() == 0)
+				.map(Entry::getKey).collect(Collectors.toCollection(LinkedList::new));
+		final List<IMetricCalculator> sorted = new ArrayList<>(calculators.size());
+		while (!ready.isEmpty()) {
+			final IMetricCalculator calculator = ready.poll();
+			sorted.add(calculator);
+			for (final IMetricCalculator dependent : dependents.getOrDefault(calculator, Collections.emptyList())) {
+				if (inDegree.merge(dependent, -1, Integer::sum) == 0) {
+					ready.add(dependent);
+				}
+			}
+		}
+		if (sorted.size() != calculators.size()) {
+			final String cycle = calculators.stream().filter(calculator -> !sorted.contains(calculator))
+					.map(calculator -> calculator.getClass().getSimpleName()).collect(Collectors.joining(", "));
+			throw new IllegalStateException("There is a cycle in the dependencies of metric calculators: " + cycle);
+		}
+		return sorted;
+	}
+
+	/**
+	 * Hashes the versions of a calculator and its upstream calculators, as the
+	 * results of a calculator depend on the results of its upstream calculators
+	 *
+	 * @param calculator The calculator
+	 * @param upstream   The upstream calculators
+	 * @return The hex encoded hash
+	 */
+	private static String hashVersions(final IMetricCalculator calculator,
+			final Collection<IMetricCalculator> upstream) {
+		final StringBuilder versions = new StringBuilder();
+		versions.append(calculator.getClass().getName()).append(':').append(calculator.getCalculatorVersion());
+		upstream.stream().map(dependency -> dependency.getClass().getName() + ':' + dependency.getCalculatorVersion())
+				.sorted().forEach(version -> versions.append(';').append(version));
+		try {
+			final byte[] hash = MessageDigest.getInstance("SHA-256")
+					.digest(versions.toString().getBytes(StandardCharsets.UTF_8));
+			final StringBuilder hex = new StringBuilder();
+			for (final byte b : hash) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the scheduled calculators in a topological order
+	 *
+	 * @return The calculators
+	 */
+	public List<IMetricCalculator> getCalculators() {
+		return Collections.unmodifiableList(this.order);
+	}
+
+	/**
+	 * Executes all calculators on a project version. A calculator is skipped if
+	 * one of its upstream calculators didn't succeed.
+	 *
+	 * @param project     The project
+	 * @param productName The name of the product
+	 * @param vendorName  The name of the vendor
+	 * @param version     The version of the product
+	 * @return The outcomes of the calculators in a topological order
+	 */
+	public Map<IMetricCalculator, Outcome> execute(final IJavaProject project, final String productName,
+			final String vendorName, final String version) {
+		return execute(project, productName, vendorName, version, null);
+	}
+
+	/**
+	 * Executes all calculators on a project version. Cached results of the commit
+	 * are reused and new results are added to the cache. A calculator is skipped
+	 * if one of its upstream calculators didn't succeed.
+	 *
+	 * @param project     The project
+	 * @param productName The name of the product
+	 * @param vendorName  The name of the vendor
+	 * @param version     The version of the product
+	 * @param commitId    The SHA of the checked out commit or null, if the cache
+	 *                    shouldn't be used
+	 * @return The outcomes of the calculators in a topological order
+	 */
+	public Map<IMetricCalculator, Outcome> execute(final IJavaProject project, final String productName,
+			final String vendorName, final String version, final String commitId) {
+		final Hashtable<?, ?> context = MDC.getContext();
+		final Map<?, ?> mdc = context == null ? Collections.emptyMap() : new HashMap<>(context);
+
+		final Map<IMetricCalculator, CompletableFuture<Outcome>> futures = new LinkedHashMap<>();
+		for (final IMetricCalculator calculator : this.order) {
+			final CompletableFuture<?>[] direct = this.dependencies.get(calculator).stream().map(futures::get)
+					.toArray(CompletableFuture[]::new);
+			final List<CompletableFuture<Outcome>> transitive = this.upstream.get(calculator).stream()
+					.map(futures::get).collect(Collectors.toList());
+			futures.put(calculator, CompletableFuture.allOf(direct).thenApplyAsync(
+					ignored -> run(calculator, transitive, project, productName, vendorName, version, commitId, mdc),
+					this.executor));
+		}
+
+		final Map<IMetricCalculator, Outcome> outcomes = new LinkedHashMap<>();
+		for (final Entry<IMetricCalculator, CompletableFuture<Outcome>> entry : futures.entrySet()) {
+			outcomes.put(entry.getKey(), entry.getValue().join());
+		}
+		return outcomes;
+	}
+
+	/**
+	 * Executes a single calculator with the results of its upstream calculators
+	 */
+	private Outcome run(final IMetricCalculator calculator, final List<CompletableFuture<Outcome>> upstream,
+			final IJavaProject project, final String productName, final String vendorName, final String version,
+			final String commitId, final Map<?, ?> mdc) {
+		final Map<String, String> input = new HashMap<>();
+		for (final CompletableFuture<Outcome> future : upstream) {
+			final Outcome outcome = future.join();
+			if (outcome.getStatus() != Status.SUCCESS) {
+				return new Outcome(calculator, Status.SKIPPED, Collections.emptyMap(), null);
+			}
+			input.putAll(outcome.getResults());
+		}
+
+		mdc.forEach((key, value) -> MDC.put(key.toString(), value));
+		try {
+			final Class<? extends IMetricCalculator> type = calculator.getClass();
+			final String versionHash = this.versionHashes.get(calculator);
+			final boolean cacheable = (this.cache != null) && (commitId != null)
+					&& this.cacheable.contains(calculator);
+			if (cacheable) {
+				final CachedResults cached = lookup(type, commitId, versionHash);
+				if (cached != null) {
+					LOGGER.log(Level.INFO, "Reuse cached results of metric calculation: " + type.getSimpleName());
+					return new Outcome(calculator, Status.SUCCESS, cached.getResults(), cached);
+				}
+			}
+			LOGGER.log(Level.INFO, "Execute metric calculation: " + type.getSimpleName());
+			if (calculator.calculateMetric(project, productName, vendorName, version,
+					Collections.unmodifiableMap(input))) {
+				// The class results are requested from the calculator once they are needed
+				final Outcome outcome = new Outcome(calculator, Status.SUCCESS,
+						new HashMap<>(calculator.getResults()), null);
+				if (cacheable) {
+					store(type, commitId, versionHash, outcome);
+				}
+				return outcome;
+			}
+		} catch (final Exception e) {
+			LOGGER.log(Level.ERROR, "A detection failed with an Exception: " + e.getMessage(), e);
+		} finally {
+			mdc.keySet().forEach(key -> MDC.remove(key.toString()));
+		}
+		return new Outcome(calculator, Status.FAILED, Collections.emptyMap(), null);
+	}
+
+	/**
+	 * Looks up cached results, a failing cache is treated as a miss
+	 */
+	private CachedResults lookup(final Class<? extends IMetricCalculator> type, final String commitId,
+			final String versionHash) {
+		try {
+			return this.cache.get(commitId, type, versionHash);
+		} catch (final RuntimeException e) {
+			LOGGER.log(Level.WARN, "Looking up cached results failed: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Adds the results of an outcome to the cache, a failing cache is ignored. The
+	 * class metrics are passed as table, so that they aren't converted to strings.
+	 */
+	private void store(final Class<? extends IMetricCalculator> type, final String commitId, final String versionHash,
+			final Outcome outcome) {
+		try {
+			this.cache.put(commitId, type, versionHash,
+					new CachedResults(outcome.getResults(), outcome.getClassMetrics()));
+		} catch (final RuntimeException e) {
+			LOGGER.log(Level.WARN, "Caching results failed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * The states a scheduled calculator can end in
+	 */
+	public enum Status {
+		/**
+		 * The calculator has been executed successfully
+		 */
+		SUCCESS,
+		/**
+		 * The calculator has been executed but failed
+		 */
+		FAILED,
+		/**
+		 * The calculator hasn't been executed as one of its upstream calculators
+		 * didn't succeed
+		 */
+		SKIPPED
+	}
+
+	/**
+	 * The outcome of a scheduled calculator
+	 */
+	public static class Outcome {
+
+		private final IMetricCalculator calculator;
+		private final Status status;
+		private final Map<String, String> results;
+		private final CachedResults cached;
+
+		/**
+		 * Creates an outcome
+		 *
+		 * @param calculator The executed calculator
+		 * @param status     The state the calculator ended in
+		 * @param results    The results of the calculator
+		 * @param cached     The cached results the outcome has been read from or
+		 *                   null, if the class metrics should be requested from the
+		 *                   calculator on demand
+		 */
+		Outcome(final IMetricCalculator calculator, final Status status, final Map<String, String> results,
+				final CachedResults cached) {
+			this.calculator = Objects.requireNonNull(calculator);
+			this.status = status;
+			this.results = results;
+			this.cached = cached;
+		}
+
+		/**
+		 * A getter for the executed calculator
+		 *
+		 * @return The calculator
+		 */
+		public IMetricCalculator getCalculator() {
+			return this.calculator;
+		}
+
+		/**
+		 * A getter for the state the calculator ended in
+		 *
+		 * @return The state
+		 */
+		public Status getStatus() {
+			return this.status;
+		}
+
+		/**
+		 * A getter for the results of the calculator
+		 *
+		 * @return The results or an empty map if the calculator didn't succeed
+		 */
+		public Map<String, String> getResults() {
+			return this.results;
+		}
+
+		/**
+		 * A getter for the class metric table of the calculator. A table which
+		 * hasn't been cached belongs to the last calculation of the calculator, so it
+		 * has to be used before the calculator is executed again. A cached table is
+		 * loaded on the first request.
+		 *
+		 * @return The table or null, if the calculator didn't succeed or doesn't
+		 *         calculate class metrics
+		 */
+		public ClassMetricTable getClassMetrics() {
+			if (this.status != Status.SUCCESS) {
+				return null;
+			}
+			if (this.cached != null) {
+				return this.cached.getClassMetrics();
+			}
+			if (this.calculator instanceof IMetricClassCalculator) {
+				return ((IMetricClassCalculator) this.calculator).getClassMetrics();
+			}
+			return null;
+		}
+
+		/**
+		 * A getter for the class results of the calculator, which is a view on
+		 * {@link #getClassMetrics()}
+		 *
+		 * @return A mapping from class names to their results or an empty map if the
+		 *         calculator didn't succeed or doesn't calculate class metrics
+		 */
+		public Map<String, Map<String, String>> getClassResults() {
+			if ((this.status == Status.SUCCESS) && (this.cached == null)
+					&& (this.calculator instanceof IMetricClassCalculator)) {
+				return ((IMetricClassCalculator) this.calculator).getClassResults();
+			}
+			final ClassMetricTable table = getClassMetrics();
+			return table == null ? Collections.emptyMap() : table.asMap();
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package metric.correlation.analysis.calculation.impl;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
@@ -8,33 +9,88 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
 import org.eclipse.jdt.core.IJavaProject;
-import org.elasticsearch.client.RequestOptions;
 
 import metric.correlation.analysis.calculation.IMetricCalculator;
 import metric.correlation.analysis.calculation.MetricCalculatorInitializationException;
-import metric.correlation.analysis.database.ElasticSearchHelper;
+import metric.correlation.analysis.vulnerabilities.ElasticsearchVulnerabilityIndex;
+import metric.correlation.analysis.vulnerabilities.IVulnerabilityIndex;
+import metric.correlation.analysis.vulnerabilities.InMemoryVulnerabilityIndex;
 import metric.correlation.analysis.vulnerabilities.VulnerabilityDataQueryHandler;
+import metric.correlation.analysis.vulnerabilities.VulnerabilityQuery;
 
 public class CVEMetrics implements IMetricCalculator {
 
+	private static final Logger LOGGER = Logger.getLogger(CVEMetrics.class);
+
+	/**
+	 * The environment variable pointing to a local NVD export, if it is set the
+	 * export is searched in memory instead of Elasticsearch
+	 */
+	public static final String ENV_VARIABLE_NAME = "NVD_EXPORT";
+
+	private static File localExport;
+	private static IVulnerabilityIndex localIndex;
+
+	private final IVulnerabilityIndex index;
+
 	private Map<String, String> results;
 
 	public CVEMetrics() throws MetricCalculatorInitializationException {
+		this(createIndex());
+	}
+
+	/**
+	 * Creates a calculator searching the given index
+	 *
+	 * @param index The vulnerability index
+	 */
+	public CVEMetrics(final IVulnerabilityIndex index) {
+		this.index = index;
+	}
+
+	private static IVulnerabilityIndex createIndex() throws MetricCalculatorInitializationException {
+		final String export = System.getenv(ENV_VARIABLE_NAME);
+		if (export != null) {
+			return getLocalIndex(new File(export));
+		}
 		// Check if ES is running
-		try (var client = ElasticSearchHelper.getElasticSearchClient()) {
-			client.info(RequestOptions.DEFAULT);
-		} catch (final IOException e) {
+		if (!ElasticsearchVulnerabilityIndex.isAvailable()) {
 			throw new MetricCalculatorInitializationException("ElasticSearch isn't running!");
 		}
+		return new ElasticsearchVulnerabilityIndex();
+	}
+
+	/**
+	 * Returns the index of a local export, which is loaded only once
+	 */
+	private static synchronized IVulnerabilityIndex getLocalIndex(final File export)
+			throws MetricCalculatorInitializationException {
+		if ((localIndex == null) || !export.equals(localExport)) {
+			try {
+				localIndex = InMemoryVulnerabilityIndex.load(export);
+				localExport = export;
+			} catch (final IOException e) {
+				throw new MetricCalculatorInitializationException(e);
+			}
+		}
+		return localIndex;
 	}
 
 	@Override
 	public boolean calculateMetric(final IJavaProject project, final String productName, final String vendorName,
 			final String version,
 			final Map<String, String> map) {
-		final var handler = new VulnerabilityDataQueryHandler();
-		this.results = handler.getMetrics(handler.getVulnerabilities(productName, vendorName, version, "TWO"));
+		try {
+			final var query = new VulnerabilityQuery(productName, vendorName, version);
+			final var documents = this.index.getVulnerabilities(query, "TWO");
+			this.results = new VulnerabilityDataQueryHandler().getMetricsOfDocuments(documents);
+		} catch (final IOException e) {
+			LOGGER.log(Level.ERROR, e.getMessage(), e);
+			return false;
+		}
 		return !this.results.isEmpty();
 	}
 
@@ -53,6 +109,11 @@ public class CVEMetrics implements IMetricCalculator {
 		return Collections.emptySet();
 	}
 
+	@Override
+	public boolean isCacheable() {
+		return false; // the vulnerabilities are queried by the product, vendor and version
+	}
+
 	/**
 	 * The keys of the CVE metrics
 	 *
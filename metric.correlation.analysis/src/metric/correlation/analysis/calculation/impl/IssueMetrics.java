@@ -23,6 +23,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
@@ -35,9 +36,11 @@ import com.google.gson.JsonArray;
 import metric.correlation.analysis.calculation.IMetricCalculator;
 import metric.correlation.analysis.database.MongoDBHelper;
 import metric.correlation.analysis.issues.GithubIssueCrawler;
+import metric.correlation.analysis.issues.GraphQLIssueCrawler;
 import metric.correlation.analysis.issues.Issue;
 import metric.correlation.analysis.issues.Issue.IssueType;
 import metric.correlation.analysis.issues.IssueCrawler;
+import metric.correlation.analysis.selection.GitHubProjectSelector;
 
 public class IssueMetrics implements IMetricCalculator {
 	private final IssueCrawler issueCrawler;
@@ -46,8 +49,16 @@ public class IssueMetrics implements IMetricCalculator {
 	private static final Logger LOGGER = Logger.getLogger(IssueMetrics.class);
 	private static final double DAYS_PER_MONTH = 30.4;
 
+	/**
+	 * The contributor counts of the repositories, which are the same for all
+	 * versions
+	 */
+	private static final Map<String, Double> CONTRIBUTOR_COUNTS = new ConcurrentHashMap<>();
+
 	public IssueMetrics() throws IOException {
-		this.issueCrawler = new GithubIssueCrawler(); // uses default nlpclassifier
+		// uses default nlpclassifier, the GraphQL API can only be used with a token
+		this.issueCrawler = GitHubProjectSelector.OAuthToken == null ? new GithubIssueCrawler()
+				: new GraphQLIssueCrawler();
 	}
 
 	@Override
@@ -126,6 +137,11 @@ public class IssueMetrics implements IMetricCalculator {
 	}
 
 	public static double getContributorCount(final String vendorName, final String productName) {
+		final String key = vendorName + '/' + productName;
+		final Double known = CONTRIBUTOR_COUNTS.get(key);
+		if (known != null) {
+			return known;
+		}
 		double cnt = 0.0;
 		for (int i = 1; i < 100; i++) {
 			final String path = "https://api.github.com/repos/" + vendorName + "/" + productName
@@ -142,6 +158,7 @@ public class IssueMetrics implements IMetricCalculator {
 				break;
 			}
 		}
+		CONTRIBUTOR_COUNTS.put(key, cnt);
 		return cnt;
 	}
 
@@ -162,6 +179,11 @@ public class IssueMetrics implements IMetricCalculator {
 		return dependencies;
 	}
 
+	@Override
+	public boolean isCacheable() {
+		return false; // the issues are requested by the product and vendor
+	}
+
 	public enum MetricKeysImpl {
 		BUG_ISSUES("BUG_ISSUES"), BUG_ISSUES_KLOC("BUG_ISSUES_KLOC"), BUG_ISSUES_CONT("BUG_ISSUES_CONT"),
 		BUG_ISSUES_TIME("BUG_ISSUES_TIME"), BUG_ISSUES_KLOC_TIME("BUG_ISSUES_KLOC_TIME"),
@@ -0,0 +1,224 @@
+package metric.correlation.analysis.calculation.impl;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import metric.correlation.analysis.calculation.ClassMetricTable;
+
+/**
+ * A streaming parser for the CSV files written by SourceMeter. The parser reads
+ * each file once and folds the values of the requested columns into primitive
+ * accumulators instead of keeping the rows in memory. Rows are only
+ * materialized by {@link #readTable(File, ClassMetricTable, String)}.
+ */
+public class SourceMeterCsvParser {
+
+	private final List<String> columns;
+	private final double[] sums;
+	private final double[] maxima;
+	private long count;
+
+	/**
+	 * Creates a new parser accumulating the given columns
+	 *
+	 * @param columns The names of the columns
+	 */
+	public SourceMeterCsvParser(final List<String> columns) {
+		this.columns = new ArrayList<>(columns);
+		this.sums = new double[columns.size()];
+		this.maxima = new double[columns.size()];
+		Arrays.fill(this.maxima, Double.MIN_VALUE);
+	}
+
+	/**
+	 * Adds the values of all rows of a CSV file to the accumulators
+	 *
+	 * @param csv The file
+	 * @throws IOException If the file cannot be read
+	 */
+	public void accumulate(final File csv) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(csv.toPath(), StandardCharsets.UTF_8)) {
+			final String header = reader.readLine();
+			if (header == null) {
+				return;
+			}
+			final int[] fieldToColumn = index(header, this.columns);
+			final int[] bounds = new int[2];
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				int start = 0;
+				for (int field = 0; (field < fieldToColumn.length) && (start <= line.length()); field++) {
+					start = nextField(line, start, bounds);
+					final int column = fieldToColumn[field];
+					if (column >= 0) {
+						final double value = Double.parseDouble(line.substring(bounds[0], bounds[1]));
+						this.sums[column] += value;
+						if (value > this.maxima[column]) {
+							this.maxima[column] = value;
+						}
+					}
+				}
+				this.count++;
+			}
+		}
+	}
+
+	/**
+	 * A getter for the number of accumulated rows
+	 *
+	 * @return The number of rows
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the sum of the values of a column
+	 *
+	 * @param column The name of the column
+	 * @return The sum
+	 */
+	public double getSum(final String column) {
+		return this.sums[indexOf(column)];
+	}
+
+	/**
+	 * Returns the maximal value of a column
+	 *
+	 * @param column The name of the column
+	 * @return The maximum or {@link Double#MIN_VALUE} if there are no rows
+	 */
+	public double getMax(final String column) {
+		return this.maxima[indexOf(column)];
+	}
+
+	private int indexOf(final String column) {
+		final int index = this.columns.indexOf(column);
+		if (index < 0) {
+			throw new IllegalArgumentException("Column is not accumulated: " + column);
+		}
+		return index;
+	}
+
+	/**
+	 * Reads the rows of a CSV file into a table. The values of columns which are
+	 * not contained in the file are left unchanged.
+	 *
+	 * @param csv       The file
+	 * @param table     The table receiving a row per line, it has to consist of
+	 *                  double columns
+	 * @param keyColumn The column containing the class names
+	 * @throws IOException If the file cannot be read
+	 */
+	public static void readTable(final File csv, final ClassMetricTable table, final String keyColumn)
+			throws IOException {
+		final List<String> names = new ArrayList<>(table.getMetricKeys());
+		names.add(keyColumn);
+		final int key = names.size() - 1;
+		try (BufferedReader reader = Files.newBufferedReader(csv.toPath(), StandardCharsets.UTF_8)) {
+			final String header = reader.readLine();
+			if (header == null) {
+				return;
+			}
+			final int[] fieldToColumn = index(header, names);
+			final int[] bounds = new int[2];
+			final int[] valueBounds = new int[names.size() * 2];
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				Arrays.fill(valueBounds, -1);
+				int start = 0;
+				for (int field = 0; (field < fieldToColumn.length) && (start <= line.length()); field++) {
+					start = nextField(line, start, bounds);
+					final int column = fieldToColumn[field];
+					if (column >= 0) {
+						valueBounds[2 * column] = bounds[0];
+						valueBounds[(2 * column) + 1] = bounds[1];
+					}
+				}
+				if (valueBounds[2 * key] < 0) {
+					continue;
+				}
+				final int row = table.addClass(unquote(line, valueBounds[2 * key], valueBounds[(2 * key) + 1]));
+				for (int column = 0; column < key; column++) {
+					if (valueBounds[2 * column] >= 0) {
+						table.setDouble(row, names.get(column), Double.parseDouble(
+								line.substring(valueBounds[2 * column], valueBounds[(2 * column) + 1])));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Maps the fields of a header line to the indexes of the given columns
+	 *
+	 * @param header  The header line
+	 * @param columns The columns
+	 * @return For each field the index of its column or -1, if the field isn't
+	 *         needed
+	 */
+	private static int[] index(final String header, final List<String> columns) {
+		final List<Integer> fieldToColumn = new ArrayList<>();
+		final int[] bounds = new int[2];
+		int start = 0;
+		while (start <= header.length()) {
+			start = nextField(header, start, bounds);
+			fieldToColumn.add(columns.indexOf(unquote(header, bounds[0], bounds[1])));
+		}
+		return fieldToColumn.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Finds the next field of a line. The bounds of a quoted field exclude the
+	 * quotes.
+	 *
+	 * @param line   The line
+	 * @param start  The start of the field
+	 * @param bounds An array receiving the start and end of the field value
+	 * @return The start of the following field or a value greater than the length
+	 *         of the line if this was the last field
+	 */
+	private static int nextField(final String line, final int start, final int[] bounds) {
+		if ((start < line.length()) && (line.charAt(start) == '"')) {
+			int end = start + 1;
+			while (end < line.length()) {
+				if (line.charAt(end) == '"') {
+					if (((end + 1) < line.length()) && (line.charAt(end + 1) == '"')) {
+						end += 2;
+						continue;
+					}
+					break;
+				}
+				end++;
+			}
+			bounds[0] = start + 1;
+			bounds[1] = end;
+			final int separator = line.indexOf(',', end);
+			return separator < 0 ? line.length() + 1 : separator + 1;
+		}
+		final int separator = line.indexOf(',', start);
+		bounds[0] = start;
+		bounds[1] = separator < 0 ? line.length() : separator;
+		return bounds[1] + 1;
+	}
+
+	/**
+	 * Returns the value of a field with escaped quotes replaced
+	 */
+	private static String unquote(final String line, final int start, final int end) {
+		final String value = line.substring(start, end);
+		return value.indexOf('"') < 0 ? value : value.replace("\"\"", "\"");
+	}
+}
@@ -5,9 +5,7 @@ import static metric.correlation.analysis.calculation.impl.SourceMeterMetrics.Me
 import static metric.correlation.analysis.calculation.impl.SourceMeterMetrics.MetricKeysImpl.LLOC;
 import static metric.correlation.analysis.calculation.impl.SourceMeterMetrics.MetricKeysImpl.LOC_PER_CLASS;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.AccessMode;
 import java.nio.file.Files;
@@ -18,10 +16,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -30,16 +26,23 @@ import org.apache.log4j.Logger;
 import org.eclipse.jdt.core.IJavaProject;
 import org.gravity.eclipse.os.UnsupportedOperationSystemException;
 
+import metric.correlation.analysis.calculation.ClassMetricTable;
 import metric.correlation.analysis.calculation.IMetricCalculator;
 import metric.correlation.analysis.calculation.IMetricClassCalculator;
 import metric.correlation.analysis.calculation.MetricCalculatorInitializationException;
 import metric.correlation.analysis.commands.CommandExecuter;
 import metric.correlation.analysis.database.MongoDBHelper;
+import metric.correlation.analysis.io.SourceLocations;
 
 public class SourceMeterMetrics implements IMetricClassCalculator {
 
 	public static final String ENV_VARIABLE_NAME = "SOURCE_METER_JAVA"; //$NON-NLS-1$
 
+	/**
+	 * The column of the SourceMeter output containing the qualified class names
+	 */
+	private static final String LONG_NAME = "LongName"; //$NON-NLS-1$
+
 	private static final Logger LOGGER = Logger.getLogger(SourceMeterMetrics.class);
 
 	private final File sourceMeterExecutable;
@@ -47,7 +50,7 @@ public class SourceMeterMetrics implements IMetricClassCalculator {
 
 	private String lastProjectName;
 	private LinkedHashMap<String, String> lastResults;
-	private final Map<String, Map<String, String>> classResults = new HashMap<>();
+	private ClassMetricTable classResults;
 	private static final boolean USE_DATABASE = true;
 
 	public SourceMeterMetrics() throws MetricCalculatorInitializationException {
@@ -73,6 +76,7 @@ public class SourceMeterMetrics implements IMetricClassCalculator {
 	@Override
 	public boolean calculateMetric(final IJavaProject project, final String productName, final String vendorName,
 			final String version, final Map<String, String> map) {
+		this.classResults = null;
 		if (USE_DATABASE) {
 			this.lastResults = new LinkedHashMap<>();
 			this.lastProjectName = project.getProject().getName();
@@ -92,8 +96,7 @@ public class SourceMeterMetrics implements IMetricClassCalculator {
 			}
 			return true;
 		}
-		final String projectLocation = project.getProject().getLocation().toFile().getParentFile().getParentFile()
-				.getAbsolutePath() + File.separator + "repositories" + File.separator + productName;
+		final String projectLocation = SourceLocations.getLocation(project, productName).getAbsolutePath();
 		this.lastProjectName = project.getProject().getName();
 		final String cmd = this.sourceMeterExecutable + " -projectName=" + this.lastProjectName + //$NON-NLS-1$
 				" -projectBaseDir=" + projectLocation + //$NON-NLS-1$
@@ -123,37 +126,24 @@ public class SourceMeterMetrics implements IMetricClassCalculator {
 	}
 
 	private boolean calculateResults() {
-		final File sourceMeterOutputFolder = getOutputFolder();
 		final DecimalFormat dFormat = getFormatter();
 
 		this.lastResults = new LinkedHashMap<>();
-		final List<Map<String, String>> classContent = new LinkedList<>();
+		final List<String> columns = getColumns();
+		final SourceMeterCsvParser parser = new SourceMeterCsvParser(columns);
 		try {
-			parseMetricFile(new File(sourceMeterOutputFolder, this.lastProjectName + "-Class.csv"), classContent);
-			parseMetricFile(new File(sourceMeterOutputFolder, this.lastProjectName + "-Enum.csv"), classContent);
+			for (final File metricFile : getMetricFiles()) {
+				parser.accumulate(metricFile);
+			}
 		} catch (final IOException e) {
 			LOGGER.log(Level.ERROR, e.getMessage(), e);
 			return false;
 		}
-		final Collection<? extends String> metricKeys = getMetricKeys();
-		for (final String metricName : metricKeys) {
-			if (LOC_PER_CLASS.toString().equals(metricName) || DIT_MAX.toString().equals(metricName)) {
-				// LOC_PER_CLASS accesses the same entry as LLOC
-				continue;
-			}
-			double sum = 0;
-			double max = Double.MIN_VALUE;
-
-			for (final Map<String, String> valueMap : classContent) {
-				final double v = Double.parseDouble(valueMap.get(metricName));
-				sum += v;
-				if (v > max) {
-					max = v;
-				}
-			}
-			final double average = Double.parseDouble(dFormat.format(sum / classContent.size()));
+		for (final String metricName : columns) {
+			final double sum = parser.getSum(metricName);
+			final double average = Double.parseDouble(dFormat.format(sum / parser.getCount()));
 			if (metricName.equals(DIT.toString())) {
-				this.lastResults.put(DIT_MAX.toString(), Double.toString(max));
+				this.lastResults.put(DIT_MAX.toString(), Double.toString(parser.getMax(metricName)));
 			}
 			if (metricName.equals(LLOC.toString())) {
 				this.lastResults.put(LLOC.toString(), dFormat.format(sum));
@@ -165,40 +155,34 @@ public class SourceMeterMetrics implements IMetricClassCalculator {
 		return true;
 	}
 
-	private void parseMetricFile(final File metrics, final List<Map<String, String>> content) throws IOException {
-		final Map<String, Integer> metricIndex = new HashMap<>();
-		if (!metrics.exists()) {
-			throw new IllegalStateException("File to parse does not exist: " + metrics.getAbsolutePath());
-		}
-		try (final BufferedReader fileReader = new BufferedReader(new FileReader(metrics))) {
-			initIndex(metricIndex, fileReader.readLine());
-			String mLine;
-			while ((mLine = fileReader.readLine()) != null) {
-				final String[] cvsValues = getCsvValues(mLine);
-				final Map<String, String> metricMap = new HashMap<>();
-				for (final Entry<String, Integer> entry : metricIndex.entrySet()) {
-					metricMap.put(entry.getKey(), cvsValues[entry.getValue()]);
-				}
-				final String className = metricMap.get("LongName");
-				metricMap.remove(className);
-				this.classResults.put(className, metricMap);
-				content.add(metricMap);
-			}
-		}
+	/**
+	 * Returns the columns of the SourceMeter output which are needed for the
+	 * metrics
+	 *
+	 * @return The names of the columns
+	 */
+	private List<String> getColumns() {
+		// LOC_PER_CLASS and DIT_MAX are derived from the LLOC and DIT columns
+		return getMetricKeys().stream()
+				.filter(key -> !LOC_PER_CLASS.toString().equals(key) && !DIT_MAX.toString().equals(key))
+				.collect(Collectors.toList());
 	}
 
-	private void initIndex(final Map<String, Integer> metricIndex, final String line) {
-		final Collection<String> metricKeys = getMetricKeys();
-		final String[] sourceMeterKeys = getCsvValues(line);
-		for (int i = 0; i < sourceMeterKeys.length; i++) {
-			if (metricKeys.contains(sourceMeterKeys[i]) || sourceMeterKeys[i].equals("LongName")) {
-				metricIndex.put(sourceMeterKeys[i], i);
+	/**
+	 * Returns the files containing the metrics of classes and enums
+	 *
+	 * @return The files
+	 */
+	private List<File> getMetricFiles() {
+		final File sourceMeterOutputFolder = getOutputFolder();
+		final List<File> files = Arrays.asList(new File(sourceMeterOutputFolder, this.lastProjectName + "-Class.csv"),
+				new File(sourceMeterOutputFolder, this.lastProjectName + "-Enum.csv"));
+		for (final File file : files) {
+			if (!file.exists()) {
+				throw new IllegalStateException("File to parse does not exist: " + file.getAbsolutePath());
 			}
 		}
-	}
-
-	private String[] getCsvValues(final String line) {
-		return line.substring(1, line.length() - 1).split("\",\"");
+		return files;
 	}
 
 	private File getOutputFolder() {
@@ -227,6 +211,12 @@ public class SourceMeterMetrics implements IMetricClassCalculator {
 		return Collections.emptySet();
 	}
 
+	@Override
+	public String getCalculatorVersion() {
+		// Results change with the used SourceMeter installation
+		return "1-" + this.sourceMeterExecutable.getAbsolutePath();
+	}
+
 	/**
 	 * The keys of the SourceMeter metrics
 	 *
@@ -249,8 +239,23 @@ public class SourceMeterMetrics implements IMetricClassCalculator {
 		}
 	}
 
+	/**
+	 * Returns the metrics of the classes of the last analyzed project. The table is
+	 * read from the output of SourceMeter when it is requested the first time.
+	 */
 	@Override
-	public Map<String, Map<String, String>> getClassResults() {
+	public ClassMetricTable getClassMetrics() {
+		if (this.classResults == null) {
+			final ClassMetricTable table = new ClassMetricTable(getColumns(), Collections.emptyList());
+			try {
+				for (final File metricFile : getMetricFiles()) {
+					SourceMeterCsvParser.readTable(metricFile, table, LONG_NAME);
+				}
+			} catch (final IOException | IllegalStateException e) {
+				LOGGER.log(Level.WARN, "Class results are not available: " + e.getMessage());
+			}
+			this.classResults = table;
+		}
 		return this.classResults;
 	}
 }
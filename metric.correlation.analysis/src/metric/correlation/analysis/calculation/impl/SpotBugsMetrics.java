@@ -1,12 +1,14 @@
 package metric.correlation.analysis.calculation.impl;
 
-import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -28,10 +30,13 @@ import edu.umd.cs.findbugs.Priorities;
 import edu.umd.cs.findbugs.SortedBugCollection;
 import edu.umd.cs.findbugs.TextUIBugReporter;
 import edu.umd.cs.findbugs.TextUICommandLine;
+import edu.umd.cs.findbugs.Version;
 import edu.umd.cs.findbugs.classfile.ClassDescriptor;
+import metric.correlation.analysis.calculation.ClassMetricTable;
 import metric.correlation.analysis.calculation.IMetricCalculator;
 import metric.correlation.analysis.calculation.IMetricClassCalculator;
 import metric.correlation.analysis.database.MongoDBHelper;
+import metric.correlation.analysis.io.SourceLocations;
 
 public class SpotBugsMetrics implements IMetricClassCalculator {
 
@@ -42,7 +47,7 @@ public class SpotBugsMetrics implements IMetricClassCalculator {
 
 	private BugReporter bugReporter;
 	private IFindBugsEngine engine;
-	private final Map<String, Map<String, Integer>> classResults = new HashMap<>();
+	private ClassMetricTable classResults;
 	private Map<String, Double> metricResults;
 	private double lloc = 0;
 
@@ -66,13 +71,15 @@ public class SpotBugsMetrics implements IMetricClassCalculator {
 			this.metricResults.put(metricKey, 0.0);
 		}
 		this.metricResults.put("EXPERIMENTAL", 0.0); // not a metric but makes code easier
+		final List<String> classMetrics = new ArrayList<>(getMetricKeys());
+		classMetrics.add("EXPERIMENTAL");
+		this.classResults = new ClassMetricTable(Collections.emptyList(), classMetrics);
 		// String projectLocation =
 		// project.getProject().getLocation().toFile().getAbsolutePath(); // imported
 		// code path
-		final String projectLocation = project.getProject().getLocation().toFile().getParentFile().getParentFile()
-				.getAbsolutePath() + File.separator + "repositories";
+		final String projectLocation = SourceLocations.getLocation(project, productName).getAbsolutePath();
 		try {
-			analyzeProject(projectLocation + File.separator + productName);
+			analyzeProject(projectLocation);
 		} catch (final IOException e) {
 			LOGGER.log(Level.ERROR, "spotbugs analysis failed");
 			return false;
@@ -85,24 +92,18 @@ public class SpotBugsMetrics implements IMetricClassCalculator {
 
 	private void evaluateMetrics(final Collection<Map<String, String>> bugsList, final String productName, final String vendorName,
 			final String version) {
+		final List<Map<String, Object>> storedBugs = new ArrayList<>();
 		for (final Map<String, String> bugData : bugsList) {
 			if (STORE_RESULTS) {
 				bugData.put("productName", productName);
 				bugData.put("vendorName", vendorName);
 				bugData.put("version", version);
-				storeData(bugData);
+				storedBugs.add(new HashMap<>(bugData));
 			}
 			final int priority = Integer.parseInt(bugData.get("rank")); // careful with naming
 			final String category = bugData.get("category");
 			final String className = bugData.get("class");
-			if (!this.classResults.containsKey(className)) {
-				final HashMap<String, Integer> classMap = new HashMap<>();
-				for (final String metricKey : getMetricKeys()) {
-					classMap.put(metricKey, 0);
-				}
-				classMap.put("EXPERIMENTAL", 0);
-				this.classResults.put(className, classMap);
-			}
+			final int row = this.classResults.addClass(className);
 			String priorityCat;
 			if (priority <= 4) {
 				priorityCat = MetricKeysImpl.HIGH_PRIO.toString();
@@ -111,11 +112,13 @@ public class SpotBugsMetrics implements IMetricClassCalculator {
 			} else {
 				priorityCat = MetricKeysImpl.LOW_PRIO.toString();
 			}
-			final Map<String, Integer> classMap = this.classResults.get(className);
 			this.metricResults.put(priorityCat, this.metricResults.get(priorityCat) + 1);
 			this.metricResults.put(category, this.metricResults.get(category) + 1);
-			classMap.put(category, classMap.get(category) + 1);
-			classMap.put(priorityCat, classMap.get(priorityCat) + 1);
+			this.classResults.increment(row, category);
+			this.classResults.increment(row, priorityCat);
+		}
+		if (!storedBugs.isEmpty()) {
+			storeData(storedBugs);
 		}
 		this.metricResults.put(MetricKeysImpl.VIOLATIONS.toString(), (double) bugsList.size());
 		this.metricResults.remove("EXPERIMENTAL");
@@ -130,9 +133,9 @@ public class SpotBugsMetrics implements IMetricClassCalculator {
 		}
 	}
 
-	private void storeData(final Map<String, String> bugData) {
+	private void storeData(final List<Map<String, Object>> bugs) {
 		try (MongoDBHelper helper = new MongoDBHelper(MongoDBHelper.DEFAULT_DATABASE, BUG_COLLECTION)) {
-			helper.storeData(bugData);
+			helper.storeMany(bugs);
 		}
 	}
 
@@ -214,14 +217,16 @@ public class SpotBugsMetrics implements IMetricClassCalculator {
 	}
 
 	@Override
-	public Map<String, Map<String, String>> getClassResults() {
-		final Map<String, Map<String, String>> result = new HashMap<>();
-		for (final Entry<String, Map<String, Integer>> entry : this.classResults.entrySet()) {
-			final Map<String, String> classMap = entry.getValue().entrySet().stream()
-					.collect(Collectors.toMap(Entry::getKey, e-> String.valueOf(e.getValue())));
-			result.put(entry.getKey(), classMap);
+	public String getCalculatorVersion() {
+		return "1-" + Version.VERSION_STRING;
+	}
+
+	@Override
+	public ClassMetricTable getClassMetrics() {
+		if (this.classResults == null) {
+			throw new IllegalStateException("The calculateMetrics() operation hasn't been executed!");
 		}
-		return result;
+		return this.classResults;
 	}
 
 	private class BugReporter extends TextUIBugReporter {
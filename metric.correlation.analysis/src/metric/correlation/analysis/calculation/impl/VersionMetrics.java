@@ -45,6 +45,11 @@ public class VersionMetrics implements IMetricCalculator {
 		return Collections.emptySet();
 	}
 
+	@Override
+	public boolean isCacheable() {
+		return false; // the results are the labels of the configuration
+	}
+
 	/**
 	 * The keys of the version metrics
 	 * 
@@ -1,22 +1,80 @@
 package metric.correlation.analysis.database;
 
+import java.io.IOException;
+
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestHighLevelClient;
 
 public class ElasticSearchHelper {
 
+	private static final Logger LOGGER = Logger.getLogger(ElasticSearchHelper.class);
+
 	private static final String ES_USERNAME = System.getenv("ELASTIC_USER");
 	private static final String ES_PASSWORD = System.getenv("ELASTIC_PW");
 
-	private static final String HOST = "localhost";
-	private static final int PORT = 9200;
+	private static final String HOST = System.getenv().getOrDefault("ELASTIC_HOST", "localhost");
+	private static final int PORT = Integer.parseInt(System.getenv().getOrDefault("ELASTIC_PORT", "9200"));
+
+	/**
+	 * The maximal number of connections of the shared client
+	 */
+	private static final int MAX_CONNECTIONS = 32;
 
+	private static RestHighLevelClient sharedClient;
+
+	/**
+	 * Creates a new client, the caller is responsible for closing it
+	 *
+	 * @return The client
+	 */
 	public static RestHighLevelClient getElasticSearchClient() {
+		return createClient(-1);
+	}
+
+	/**
+	 * Returns a client which is shared by all callers. Its connections are pooled
+	 * and it is closed when the JVM shuts down, callers must not close it.
+	 *
+	 * @return The shared client
+	 */
+	public static synchronized RestHighLevelClient getSharedClient() {
+		if (sharedClient == null) {
+			sharedClient = createClient(MAX_CONNECTIONS);
+			Runtime.getRuntime().addShutdownHook(new Thread(ElasticSearchHelper::closeSharedClient,
+					"elasticsearch-client-shutdown"));
+		}
+		return sharedClient;
+	}
+
+	/**
+	 * Closes the shared client, a new one is created on the next request
+	 */
+	public static synchronized void closeSharedClient() {
+		if (sharedClient != null) {
+			try {
+				sharedClient.close();
+			} catch (final IOException e) {
+				LOGGER.log(Level.WARN, e.getMessage(), e);
+			}
+			sharedClient = null;
+		}
+	}
+
+	/**
+	 * Creates a new client
+	 *
+	 * @param maxConnections The maximal number of connections or a negative value
+	 *                       to use the defaults
+	 * @return The client
+	 */
+	private static RestHighLevelClient createClient(final int maxConnections) {
 		final CredentialsProvider credentialProvider = new BasicCredentialsProvider();
 		credentialProvider.setCredentials(
 				AuthScope.ANY,
@@ -28,6 +86,10 @@ public class ElasticSearchHelper {
 				RestClient.builder(new HttpHost(HOST, PORT, "http")).setHttpClientConfigCallback(
 						httpAsyncClientBuilder -> {
 							httpAsyncClientBuilder.setDefaultCredentialsProvider(credentialProvider);
+							if (maxConnections > 0) {
+								httpAsyncClientBuilder.setMaxConnTotal(maxConnections);
+								httpAsyncClientBuilder.setMaxConnPerRoute(maxConnections);
+							}
 							return httpAsyncClientBuilder;
 						}));
 	}
@@ -0,0 +1,86 @@
+package metric.correlation.analysis.database;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+
+import com.mongodb.MongoClient;
+import com.mongodb.MongoClientOptions;
+import com.mongodb.MongoClientURI;
+
+/**
+ * Provides one long-lived client per database server. The clients are thread
+ * safe and share their connection pools between all users, they are closed
+ * once when the JVM shuts down or {@link #close()} is called.
+ */
+public final class MongoClientRegistry {
+
+	private static final Logger LOGGER = Logger.getLogger(MongoClientRegistry.class);
+
+	/**
+	 * The default maximal number of connections per server
+	 */
+	public static final int DEFAULT_POOL_SIZE = 20;
+
+	private static final Map<String, MongoClient> CLIENTS = new ConcurrentHashMap<>();
+
+	private static volatile int poolSize = DEFAULT_POOL_SIZE;
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(MongoClientRegistry::close, "mongodb-client-shutdown"));
+	}
+
+	private MongoClientRegistry() {
+		// As the class only provides static methods the class shouldn't be instantiated
+	}
+
+	/**
+	 * Returns the shared client of the default server
+	 *
+	 * @return The client
+	 */
+	public static MongoClient getClient() {
+		return getClient(MongoDBHelper.SERVER_URI);
+	}
+
+	/**
+	 * Returns the shared client of a server, the client is created on the first
+	 * request
+	 *
+	 * @param uri The URI of the server
+	 * @return The client
+	 */
+	public static MongoClient getClient(final String uri) {
+		return CLIENTS.computeIfAbsent(uri, key -> {
+			LOGGER.info("Connect to " + key + " with a pool of " + poolSize + " connections");
+			return new MongoClient(
+					new MongoClientURI(key, MongoClientOptions.builder().connectionsPerHost(poolSize)));
+		});
+	}
+
+	/**
+	 * Sets the maximal number of connections per server of clients created
+	 * afterwards
+	 *
+	 * @param size The number of connections
+	 */
+	public static void setPoolSize(final int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("The pool size has to be positive: " + size);
+		}
+		poolSize = size;
+	}
+
+	/**
+	 * Closes all clients. Clients requested afterwards are created anew.
+	 */
+	public static void close() {
+		for (final String uri : CLIENTS.keySet()) {
+			final MongoClient client = CLIENTS.remove(uri);
+			if (client != null) {
+				client.close();
+			}
+		}
+	}
+}
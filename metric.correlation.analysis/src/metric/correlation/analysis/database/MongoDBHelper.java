@@ -30,10 +30,16 @@ import com.mongodb.MongoClientURI;
 import com.mongodb.MongoSocketReadException;
 import com.mongodb.client.AggregateIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.DeleteResult;
 
+import metric.correlation.analysis.calculation.ClassMetricTable;
+
 /**
  * contains helper methods for dealing with the mongoDB and metrics
  * [TODO:] richtiges ORM verwenden
@@ -62,6 +68,14 @@ public class MongoDBHelper implements AutoCloseable {
 	private final String collectionName;
 	static Process mongodProcess;
 
+	/**
+	 * The default number of documents sent to the database in one bulk write
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private boolean classIndexCreated;
+
 	public MongoDBHelper() {
 		this(DEFAULT_DATABASE, DEFAULT_COLLECTION);
 	}
@@ -69,7 +83,7 @@ public class MongoDBHelper implements AutoCloseable {
 	public MongoDBHelper(final String databaseName, final String collectionName) {
 		this.databaseName = databaseName;
 		this.collectionName = collectionName;
-		this.client = new MongoClient(new MongoClientURI(SERVER_URI));
+		this.client = MongoClientRegistry.getClient();
 		this.dbCollection = this.client.getDatabase(databaseName).getCollection(collectionName);
 	}
 
@@ -198,17 +212,19 @@ public class MongoDBHelper implements AutoCloseable {
 	}
 
 	/**
-	 * close the db connection
+	 * Releases the helper. The shared client of the {@link MongoClientRegistry}
+	 * stays open for other helpers.
 	 */
 	@Override
 	public void close() {
-		this.client.close();
+		// The client is shared and closed by the registry
 	}
 
 	/**
-	 * shuts down the database, you should close all clients before calling this
+	 * shuts down the database, the shared clients are closed before
 	 */
 	public static void shutdownDatabase() {
+		MongoClientRegistry.close();
 		final Document shutdownDoc = new Document();
 		shutdownDoc.append("shutdown", 1);
 		try (MongoClient shutdownClient = new MongoClient(new MongoClientURI(SERVER_URI))) {
@@ -258,17 +274,116 @@ public class MongoDBHelper implements AutoCloseable {
 		}
 	}
 
-	// THIS IS REALLY INEFFICIENT, MAYBE OPTIMIZE
+	/**
+	 * Sets the number of documents sent to the database in one bulk write
+	 *
+	 * @param batchSize The number of documents
+	 */
+	public void setBatchSize(final int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("The batch size has to be positive: " + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Stores the metrics of all classes of a table. The values are read directly
+	 * from the columns of the table without materializing a map per class.
+	 *
+	 * @param productName The name of the product
+	 * @param vendorName  The name of the vendor
+	 * @param version     The version of the product
+	 * @param table       The class metrics
+	 */
+	public void storeClassMetrics(final String productName, final String vendorName, final String version,
+			final ClassMetricTable table) {
+		final List<String> metrics = table.getMetricKeys();
+		final ClassMetricsWriter writer = new ClassMetricsWriter();
+		for (int row = 0; row < table.size(); row++) {
+			final Document filter = classFilter(productName, vendorName, version, table.getClassName(row));
+			final Document doc = new Document(filter);
+			for (final String metric : metrics) {
+				final String value = table.getString(row, metric);
+				if (value != null) {
+					doc.append(metric, value);
+				}
+			}
+			writer.upsert(filter, doc);
+		}
+		writer.finish();
+	}
+
+	/**
+	 * Stores the metrics of classes using unordered bulk upserts
+	 *
+	 * @param productName  The name of the product
+	 * @param vendorName   The name of the vendor
+	 * @param version      The version of the product
+	 * @param classResults A mapping from class names to their metrics
+	 */
 	public void storeClassMetrics(final String productName, final String vendorName, final String version,
 			final Map<String, Map<String, String>> classResults) {
+		final ClassMetricsWriter writer = new ClassMetricsWriter();
 		for (final Entry<String, Map<String, String>> entry : classResults.entrySet()) {
-			final Map<String, String> fullDataMap = new HashMap<>(entry.getValue());
-			fullDataMap.put("product", productName);
-			fullDataMap.put("vendor", vendorName);
-			fullDataMap.put("version", version);
-			fullDataMap.put(CLASS, entry.getKey());
-			storeMetrics(fullDataMap, true);
+			final Document filter = classFilter(productName, vendorName, version, entry.getKey());
+			final Document doc = new Document(filter);
+			entry.getValue().forEach(doc::append);
+			writer.upsert(filter, doc);
+		}
+		writer.finish();
+	}
+
+	private static Document classFilter(final String productName, final String vendorName, final String version,
+			final String className) {
+		return new Document("version", version).append("product", productName).append("vendor", vendorName)
+				.append(CLASS, className);
+	}
+
+	/**
+	 * Creates the compound index used by the upserts of class metrics, if it
+	 * doesn't exist
+	 */
+	private void ensureClassIndex() {
+		if (!this.classIndexCreated) {
+			this.dbCollection.createIndex(Indexes.ascending("product", "vendor", "version", CLASS));
+			this.classIndexCreated = true;
+		}
+	}
+
+	/**
+	 * Collects upserts of class metrics and sends them as unordered bulk writes
+	 */
+	private class ClassMetricsWriter {
+
+		private final List<WriteModel<Document>> batch = new ArrayList<>(MongoDBHelper.this.batchSize);
+		private final UpdateOptions options = new UpdateOptions().upsert(true);
+		private final long start = System.nanoTime();
+		private int count;
+
+		ClassMetricsWriter() {
+			ensureClassIndex();
 		}
 
+		void upsert(final Document filter, final Document doc) {
+			this.batch.add(new UpdateOneModel<>(filter, new Document("$set", doc), this.options));
+			if (this.batch.size() >= MongoDBHelper.this.batchSize) {
+				flush();
+			}
+		}
+
+		private void flush() {
+			if (!this.batch.isEmpty()) {
+				MongoDBHelper.this.dbCollection.bulkWrite(this.batch, new BulkWriteOptions().ordered(false));
+				this.count += this.batch.size();
+				this.batch.clear();
+			}
+		}
+
+		void finish() {
+			flush();
+			final double seconds = (System.nanoTime() - this.start) / 1e9;
+			LOGGER.info(String.format("Stored metrics of %d classes in %.2f s (%.0f classes/s)", this.count,
+					seconds, seconds > 0 ? this.count / seconds : 0));
+		}
 	}
 }
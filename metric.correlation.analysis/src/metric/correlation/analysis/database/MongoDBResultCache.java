@@ -0,0 +1,190 @@
+package metric.correlation.analysis.database;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.exists;
+import static com.mongodb.client.model.Filters.gt;
+import static com.mongodb.client.model.Filters.not;
+import static com.mongodb.client.model.Filters.or;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Binary;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+
+import metric.correlation.analysis.calculation.ClassMetricTable;
+import metric.correlation.analysis.calculation.IMetricCalculator;
+import metric.correlation.analysis.calculation.IResultCache;
+
+/**
+ * A result cache stored in the mongodb. There is at most one entry per commit
+ * and calculator, storing results of a new calculator version replaces the entry
+ * of the old version. The class metrics of an entry are stored in the entry as
+ * one binary value created by {@link ClassMetricTable#toBytes()}. They are only
+ * loaded when they are requested, so reusing the results of a calculator
+ * doesn't transfer its class metrics. Entries without classes don't store a
+ * table and entries whose class metrics exceed the size limit of documents
+ * aren't cached.
+ *
+ * If the database cannot be reached the cache is disabled and behaves as if it
+ * was empty.
+ */
+public class MongoDBResultCache implements IResultCache {
+
+	private static final Logger LOGGER = Logger.getLogger(MongoDBResultCache.class);
+
+	public static final String CACHE_COLLECTION = "result-cache";
+
+	private static final String COMMIT = "commit";
+	private static final String CALCULATOR = "calculator";
+	private static final String VERSION_HASH = "versionHash";
+	private static final String RESULTS = "results";
+	private static final String CLASS_COUNT = "classCount";
+	private static final String CLASS_METRICS = "classMetrics";
+
+	/**
+	 * The maximal size of serialized class metrics, leaving room for the other
+	 * fields of an entry in a document of at most 16 MB
+	 */
+	private static final int MAX_CLASS_METRICS_SIZE = 15 * 1024 * 1024;
+
+	private final MongoCollection<Document> collection;
+	private volatile boolean disabled;
+
+	/**
+	 * Creates a cache in the default database
+	 */
+	public MongoDBResultCache() {
+		this(MongoDBHelper.DEFAULT_DATABASE, CACHE_COLLECTION);
+	}
+
+	/**
+	 * Creates a cache in the given collection
+	 *
+	 * @param databaseName   The name of the database
+	 * @param collectionName The name of the collection
+	 */
+	public MongoDBResultCache(final String databaseName, final String collectionName) {
+		final var database = MongoClientRegistry.getClient().getDatabase(databaseName);
+		this.collection = database.getCollection(collectionName);
+		try {
+			this.collection.createIndex(Indexes.ascending(COMMIT, CALCULATOR), new IndexOptions().unique(true));
+		} catch (final MongoException e) {
+			disable(e);
+		}
+	}
+
+	@Override
+	public CachedResults get(final String commitId, final Class<? extends IMetricCalculator> calculator,
+			final String versionHash) {
+		if (this.disabled) {
+			return null;
+		}
+		final Bson entryFilter = and(filter(commitId, calculator), eq(VERSION_HASH, versionHash));
+		final Document doc;
+		try {
+			// entries of the old format, which stored the classes in another collection, are ignored
+			doc = this.collection
+					.find(and(entryFilter, or(exists(CLASS_METRICS), not(gt(CLASS_COUNT, 0)))))
+					.projection(Projections.include(RESULTS, CLASS_COUNT)).first();
+		} catch (final MongoException e) {
+			disable(e);
+			return null;
+		}
+		if (doc == null) {
+			return null;
+		}
+		final Map<String, String> results = toMap(doc.get(RESULTS, Document.class));
+		if (doc.getInteger(CLASS_COUNT, 0) == 0) {
+			return new CachedResults(results, (ClassMetricTable) null);
+		}
+		return new CachedResults(results, () -> loadClassMetrics(entryFilter));
+	}
+
+	/**
+	 * Loads the class metrics of an entry
+	 *
+	 * @param entryFilter The filter matching the entry
+	 * @return The class metrics
+	 * @throws IllegalStateException If the class metrics cannot be loaded
+	 */
+	private ClassMetricTable loadClassMetrics(final Bson entryFilter) {
+		final Document doc;
+		try {
+			doc = this.collection.find(entryFilter).projection(Projections.include(CLASS_METRICS)).first();
+		} catch (final MongoException e) {
+			disable(e);
+			throw new IllegalStateException("Cannot load cached class metrics", e);
+		}
+		if ((doc == null) || !doc.containsKey(CLASS_METRICS)) {
+			throw new IllegalStateException("The cached class metrics have been removed concurrently");
+		}
+		return ClassMetricTable.fromBytes(doc.get(CLASS_METRICS, Binary.class).getData());
+	}
+
+	@Override
+	public void put(final String commitId, final Class<? extends IMetricCalculator> calculator,
+			final String versionHash, final CachedResults results) {
+		if (this.disabled) {
+			return;
+		}
+		final Document doc = new Document(COMMIT, commitId).append(CALCULATOR, calculator.getName())
+				.append(VERSION_HASH, versionHash).append(RESULTS, toDocument(results.getResults()));
+		final ClassMetricTable classMetrics = results.getClassMetrics();
+		if ((classMetrics != null) && (classMetrics.size() > 0)) {
+			final byte[] bytes = classMetrics.toBytes();
+			if (bytes.length > MAX_CLASS_METRICS_SIZE) {
+				LOGGER.log(Level.WARN,
+						"The class metrics of " + calculator.getSimpleName() + " are too large to be cached");
+				return;
+			}
+			doc.append(CLASS_COUNT, classMetrics.size()).append(CLASS_METRICS, new Binary(bytes));
+		}
+		try {
+			this.collection.replaceOne(filter(commitId, calculator), doc, new ReplaceOptions().upsert(true));
+		} catch (final MongoException e) {
+			disable(e);
+		}
+	}
+
+	/**
+	 * Removes all cached results
+	 */
+	public void clear() {
+		this.collection.deleteMany(new Document());
+	}
+
+	private static Bson filter(final String commitId, final Class<? extends IMetricCalculator> calculator) {
+		return and(eq(COMMIT, commitId), eq(CALCULATOR, calculator.getName()));
+	}
+
+	private static Document toDocument(final Map<String, String> map) {
+		final Document doc = new Document();
+		map.forEach(doc::append);
+		return doc;
+	}
+
+	private static Map<String, String> toMap(final Document doc) {
+		final Map<String, String> map = new HashMap<>();
+		doc.forEach((key, value) -> map.put(key, value == null ? null : value.toString()));
+		return map;
+	}
+
+	private void disable(final MongoException e) {
+		if (!this.disabled) {
+			this.disabled = true;
+			LOGGER.log(Level.WARN, "Disabled the result cache: " + e.getMessage());
+		}
+	}
+}
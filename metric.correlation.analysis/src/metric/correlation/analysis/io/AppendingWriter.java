@@ -0,0 +1,211 @@
+package metric.correlation.analysis.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * Appends rows to a file over a single open channel. Rows are collected in a
+ * buffer and written as soon as {@value #DEFAULT_FLUSH_SIZE} bytes are pending
+ * or the oldest pending row is older than the flush interval. Time based
+ * flushes also force the written rows to the disk. A row is always written as
+ * a whole, so rows of concurrent callers never interleave.
+ */
+public class AppendingWriter implements Flushable, Closeable {
+
+	private static final Logger LOGGER = Logger.getLogger(AppendingWriter.class);
+
+	/**
+	 * The default number of pending bytes after which the rows are written
+	 */
+	public static final int DEFAULT_FLUSH_SIZE = 64 * 1024;
+
+	/**
+	 * The default maximal time in milliseconds a row stays in the buffer
+	 */
+	public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+	/**
+	 * The timer flushing all writers, daemon threads don't prevent the JVM from
+	 * exiting
+	 */
+	private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		final var thread = new Thread(runnable, "appending-writer-flush");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final File file;
+	private final FileChannel channel;
+	private final int flushSize;
+	private final long flushInterval;
+	private final ScheduledFuture<?> timer;
+
+	private ByteBuffer buffer;
+	private long oldestPending = -1;
+	private IOException failure;
+	private boolean closed;
+
+	/**
+	 * Opens a file for appending using the default flush policy
+	 *
+	 * @param file     The file
+	 * @param truncate If the existing content of the file should be removed
+	 * @throws IOException If the file cannot be opened
+	 */
+	public AppendingWriter(final File file, final boolean truncate) throws IOException {
+		this(file, truncate, DEFAULT_FLUSH_SIZE, DEFAULT_FLUSH_INTERVAL);
+	}
+
+	/**
+	 * Opens a file for appending
+	 *
+	 * @param file          The file
+	 * @param truncate      If the existing content of the file should be removed
+	 * @param flushSize     The number of pending bytes after which the rows are
+	 *                      written
+	 * @param flushInterval The maximal time in milliseconds a row stays in the
+	 *                      buffer
+	 * @throws IOException If the file cannot be opened
+	 */
+	public AppendingWriter(final File file, final boolean truncate, final int flushSize, final long flushInterval)
+			throws IOException {
+		this.file = file;
+		final var parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				truncate ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+		this.flushSize = flushSize;
+		this.flushInterval = flushInterval;
+		this.buffer = ByteBuffer.allocate(flushSize);
+		this.timer = TIMER.scheduleWithFixedDelay(this::flushIfDue, flushInterval, flushInterval,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Appends a row. The row isn't necessarily on the disk when this method
+	 * returns.
+	 *
+	 * @param row The row including its line separator
+	 * @throws IOException If the writer has been closed or a previous write has
+	 *                     failed
+	 */
+	public void append(final String row) throws IOException {
+		append(row.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Appends an encoded row. The row isn't necessarily on the disk when this
+	 * method returns.
+	 *
+	 * @param bytes The row including its line separator
+	 * @throws IOException If the writer has been closed or a previous write has
+	 *                     failed
+	 */
+	public synchronized void append(final byte[] bytes) throws IOException {
+		ensureOpen();
+		if (this.buffer.remaining() < bytes.length) {
+			write();
+			if (this.buffer.capacity() < bytes.length) {
+				this.buffer = ByteBuffer.allocate(bytes.length);
+			}
+		}
+		this.buffer.put(bytes);
+		if (this.oldestPending < 0) {
+			this.oldestPending = System.currentTimeMillis();
+		}
+		if (this.buffer.position() >= this.flushSize) {
+			write();
+		}
+	}
+
+	/**
+	 * Writes all pending rows and forces them to the disk
+	 */
+	@Override
+	public synchronized void flush() throws IOException {
+		ensureOpen();
+		write();
+		force();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.timer.cancel(false);
+		try {
+			if (this.failure == null) {
+				write();
+				force();
+			}
+		} finally {
+			this.closed = true;
+			this.channel.close();
+		}
+	}
+
+	private synchronized void flushIfDue() {
+		if (this.closed || (this.failure != null) || (this.oldestPending < 0)
+				|| ((System.currentTimeMillis() - this.oldestPending) < this.flushInterval)) {
+			return;
+		}
+		try {
+			write();
+			force();
+		} catch (final IOException e) {
+			LOGGER.log(Level.ERROR, "Cannot write to " + this.file, e);
+		}
+	}
+
+	private void write() throws IOException {
+		if (this.buffer.position() == 0) {
+			return;
+		}
+		this.buffer.flip();
+		try {
+			while (this.buffer.hasRemaining()) {
+				this.channel.write(this.buffer);
+			}
+		} catch (final IOException e) {
+			this.failure = e;
+			throw e;
+		} finally {
+			this.buffer.clear();
+			this.oldestPending = -1;
+		}
+	}
+
+	private void force() throws IOException {
+		try {
+			this.channel.force(false);
+		} catch (final IOException e) {
+			this.failure = e;
+			throw e;
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (this.closed) {
+			throw new IOException("Writer of " + this.file + " has been closed");
+		}
+		if (this.failure != null) {
+			throw new IOException("A previous write to " + this.file + " has failed", this.failure);
+		}
+	}
+}
@@ -0,0 +1,273 @@
+package metric.correlation.analysis.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * The metric results of a calculation run in a binary columnar file, which is
+ * written by the {@link Storage} next to the csv file.
+ *
+ * The file starts with a header containing {@link #MAGIC},
+ * {@link #FORMAT_VERSION}, the number of columns and for each column its kind
+ * ({@link #DOUBLE} or {@link #TEXT}) and its key. It is followed by blocks of
+ * rows. A block starts with its number of rows, followed by the columns in the
+ * order of the header. A double column consists of one double per row, missing
+ * values are NaN. A text column consists of the values added to its dictionary
+ * by the block and one dictionary index per row, missing values are -1. Strings
+ * are stored as their length in bytes followed by their UTF-8 encoding. All
+ * numbers are big-endian.
+ *
+ * Blocks are only appended, so the file can be written while the calculation
+ * is running. An incomplete block at the end of the file is ignored.
+ */
+public final class ColumnarResults {
+
+	private static final Logger LOGGER = Logger.getLogger(ColumnarResults.class);
+
+	/**
+	 * The first four bytes of a results file, "MCRC"
+	 */
+	public static final int MAGIC = 0x4D435243;
+
+	/**
+	 * The version of the file format
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	/**
+	 * The kind of columns storing doubles
+	 */
+	public static final byte DOUBLE = 0;
+
+	/**
+	 * The kind of dictionary encoded columns storing strings
+	 */
+	public static final byte TEXT = 1;
+
+	private final int rowCount;
+	private final Map<String, double[]> doubles;
+	private final Map<String, String[]> texts;
+	private final List<String> keys;
+
+	private ColumnarResults(final List<String> keys, final int rowCount, final Map<String, double[]> doubles,
+			final Map<String, String[]> texts) {
+		this.keys = Collections.unmodifiableList(keys);
+		this.rowCount = rowCount;
+		this.doubles = doubles;
+		this.texts = texts;
+	}
+
+	/**
+	 * Returns the location of the columnar file belonging to a csv file
+	 *
+	 * @param csvFile The csv file
+	 * @return The file with the extension ".columns" instead of ".csv"
+	 */
+	public static File getColumnsFile(final File csvFile) {
+		final var name = csvFile.getName();
+		final var base = name.endsWith(".csv") ? name.substring(0, name.length() - 4) : name;
+		return new File(csvFile.getParentFile(), base + ".columns");
+	}
+
+	/**
+	 * Checks if the columnar file belonging to a csv file contains the current
+	 * results. The file is outdated if the csv file has been modified afterwards,
+	 * e.g., by a run which didn't write a columnar file.
+	 *
+	 * @param csvFile The csv file
+	 * @return true, iff the columnar file exists and has been modified at the same
+	 *         time or after the csv file
+	 */
+	public static boolean isCurrent(final File csvFile) {
+		final var columnsFile = getColumnsFile(csvFile);
+		return columnsFile.exists() && (columnsFile.lastModified() >= csvFile.lastModified());
+	}
+
+	/**
+	 * Reads a columnar file by mapping it into the memory
+	 *
+	 * @param file The file
+	 * @return The columns
+	 * @throws IOException If the file cannot be read or isn't a columnar results
+	 *                     file
+	 */
+	public static ColumnarResults read(final File file) throws IOException {
+		final ByteBuffer buffer;
+		try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Too large columnar file: " + file);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		try {
+			if ((buffer.getInt() != MAGIC) || (buffer.getInt() != FORMAT_VERSION)) {
+				throw new IOException("Not a columnar results file: " + file);
+			}
+			final var columns = buffer.getInt();
+			final List<String> keys = new ArrayList<>(columns);
+			final var kinds = new byte[columns];
+			for (int i = 0; i < columns; i++) {
+				kinds[i] = buffer.get();
+				keys.add(readString(buffer));
+			}
+			final var start = buffer.position();
+
+			// the first pass counts the rows of the complete blocks
+			var rows = 0;
+			var blocks = 0;
+			var end = start;
+			try {
+				while (buffer.hasRemaining()) {
+					rows += skipBlock(buffer, kinds);
+					end = buffer.position();
+					blocks++;
+				}
+			} catch (final BufferUnderflowException e) {
+				LOGGER.log(Level.WARN, "Ignoring an incomplete block at the end of " + file);
+			}
+
+			// the second pass copies the columns
+			final var values = new Object[columns];
+			final List<List<String>> dictionaries = new ArrayList<>(columns);
+			for (int i = 0; i < columns; i++) {
+				values[i] = kinds[i] == TEXT ? new int[rows] : new double[rows];
+				dictionaries.add(new ArrayList<>());
+			}
+			buffer.position(start);
+			var row = 0;
+			for (int block = 0; block < blocks; block++) {
+				final var blockRows = buffer.getInt();
+				for (int i = 0; i < columns; i++) {
+					if (kinds[i] == TEXT) {
+						final var newEntries = buffer.getInt();
+						for (int j = 0; j < newEntries; j++) {
+							dictionaries.get(i).add(readString(buffer));
+						}
+						buffer.asIntBuffer().get((int[]) values[i], row, blockRows);
+						buffer.position(buffer.position() + (blockRows * Integer.BYTES));
+					} else {
+						buffer.asDoubleBuffer().get((double[]) values[i], row, blockRows);
+						buffer.position(buffer.position() + (blockRows * Double.BYTES));
+					}
+				}
+				row += blockRows;
+			}
+			if (buffer.position() != end) {
+				throw new IOException("Inconsistent columnar file: " + file);
+			}
+
+			final Map<String, double[]> doubles = new LinkedHashMap<>();
+			final Map<String, String[]> texts = new LinkedHashMap<>();
+			for (int i = 0; i < columns; i++) {
+				if (kinds[i] == TEXT) {
+					texts.put(keys.get(i), decode((int[]) values[i], dictionaries.get(i)));
+				} else {
+					doubles.put(keys.get(i), (double[]) values[i]);
+				}
+			}
+			return new ColumnarResults(keys, rows, doubles, texts);
+		} catch (final BufferUnderflowException e) {
+			throw new IOException("Incomplete header of " + file, e);
+		}
+	}
+
+	private static int skipBlock(final ByteBuffer buffer, final byte[] kinds) {
+		final var rows = buffer.getInt();
+		for (final byte kind : kinds) {
+			var bytes = rows * Double.BYTES;
+			if (kind == TEXT) {
+				final var newEntries = buffer.getInt();
+				for (int j = 0; j < newEntries; j++) {
+					skip(buffer, buffer.getInt());
+				}
+				bytes = rows * Integer.BYTES;
+			}
+			skip(buffer, bytes);
+		}
+		return rows;
+	}
+
+	private static void skip(final ByteBuffer buffer, final int bytes) {
+		if ((bytes < 0) || (buffer.remaining() < bytes)) {
+			throw new BufferUnderflowException();
+		}
+		buffer.position(buffer.position() + bytes);
+	}
+
+	private static String readString(final ByteBuffer buffer) {
+		final var bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String[] decode(final int[] codes, final List<String> dictionary) {
+		final var strings = new String[codes.length];
+		for (int i = 0; i < codes.length; i++) {
+			strings[i] = codes[i] < 0 ? null : dictionary.get(codes[i]);
+		}
+		return strings;
+	}
+
+	/**
+	 * A getter for the keys of all columns
+	 *
+	 * @return The keys in the order of the csv file
+	 */
+	public List<String> getKeys() {
+		return this.keys;
+	}
+
+	/**
+	 * A getter for the number of rows
+	 *
+	 * @return The number of rows
+	 */
+	public int getRowCount() {
+		return this.rowCount;
+	}
+
+	/**
+	 * Checks if a column stores strings
+	 *
+	 * @param key The key of the column
+	 * @return true, iff the column is dictionary encoded
+	 */
+	public boolean isText(final String key) {
+		return this.texts.containsKey(key);
+	}
+
+	/**
+	 * Returns the values of a double column
+	 *
+	 * @param key The key of the column
+	 * @return The values, missing values are NaN, or null if there is no double
+	 *         column with the key
+	 */
+	public double[] getDoubles(final String key) {
+		return this.doubles.get(key);
+	}
+
+	/**
+	 * Returns the values of a text column
+	 *
+	 * @param key The key of the column
+	 * @return The values, missing values are null, or null if there is no text
+	 *         column with the key
+	 */
+	public String[] getStrings(final String key) {
+		return this.texts.get(key);
+	}
+}
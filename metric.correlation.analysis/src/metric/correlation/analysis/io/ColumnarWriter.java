@@ -0,0 +1,178 @@
+package metric.correlation.analysis.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes rows of metric results as blocks of a {@link ColumnarResults} file.
+ * Rows are collected until {@value #BLOCK_ROWS} rows are pending or the writer
+ * is flushed.
+ */
+class ColumnarWriter implements Flushable, Closeable {
+
+	/**
+	 * The maximal number of rows per block
+	 */
+	static final int BLOCK_ROWS = 4096;
+
+	private final File file;
+	private final List<String> keys;
+	private final boolean[] text;
+	private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+	private final List<List<String>> newEntries = new ArrayList<>(); // entries not written yet
+	private final AppendingWriter writer;
+
+	private final double[][] doubles;
+	private final int[][] codes;
+	private int rows;
+
+	/**
+	 * Creates a columnar file and writes its header
+	 *
+	 * @param file     The file
+	 * @param keys     The keys of all columns
+	 * @param textKeys The keys of the columns storing strings
+	 * @throws IOException If the file cannot be written
+	 */
+	ColumnarWriter(final File file, final List<String> keys, final Collection<String> textKeys) throws IOException {
+		this.file = file;
+		this.keys = keys;
+		this.text = new boolean[keys.size()];
+		this.doubles = new double[keys.size()][];
+		this.codes = new int[keys.size()][];
+		final var header = new ByteArrayOutputStream();
+		final var out = new DataOutputStream(header);
+		out.writeInt(ColumnarResults.MAGIC);
+		out.writeInt(ColumnarResults.FORMAT_VERSION);
+		out.writeInt(keys.size());
+		for (int i = 0; i < keys.size(); i++) {
+			this.text[i] = textKeys.contains(keys.get(i));
+			if (this.text[i]) {
+				this.codes[i] = new int[BLOCK_ROWS];
+			} else {
+				this.doubles[i] = new double[BLOCK_ROWS];
+			}
+			this.dictionaries.add(this.text[i] ? new HashMap<>() : null);
+			this.newEntries.add(this.text[i] ? new ArrayList<>() : null);
+			out.writeByte(this.text[i] ? ColumnarResults.TEXT : ColumnarResults.DOUBLE);
+			writeString(out, keys.get(i));
+		}
+		this.writer = new AppendingWriter(file, true);
+		this.writer.append(header.toByteArray());
+		this.writer.flush();
+	}
+
+	/**
+	 * Adds a row
+	 *
+	 * @param results The values by the keys of the columns
+	 * @throws IOException If a full block cannot be written
+	 */
+	synchronized void add(final Map<String, String> results) throws IOException {
+		for (int i = 0; i < this.keys.size(); i++) {
+			final var value = results.get(this.keys.get(i));
+			if (this.text[i]) {
+				this.codes[i][this.rows] = value == null ? -1 : encode(i, value);
+			} else {
+				this.doubles[i][this.rows] = parse(value);
+			}
+		}
+		if (++this.rows == BLOCK_ROWS) {
+			writeBlock();
+		}
+	}
+
+	private int encode(final int column, final String value) {
+		final var dictionary = this.dictionaries.get(column);
+		var code = dictionary.get(value);
+		if (code == null) {
+			code = dictionary.size();
+			dictionary.put(value, code);
+			this.newEntries.get(column).add(value);
+		}
+		return code;
+	}
+
+	private static double parse(final String value) {
+		if (value == null) {
+			return Double.NaN;
+		}
+		try {
+			return Double.parseDouble(value);
+		} catch (final NumberFormatException e) {
+			return Double.NaN; // e.g., "null"
+		}
+	}
+
+	private void writeBlock() throws IOException {
+		if (this.rows == 0) {
+			return;
+		}
+		final var block = new ByteArrayOutputStream();
+		final var out = new DataOutputStream(block);
+		out.writeInt(this.rows);
+		for (int i = 0; i < this.keys.size(); i++) {
+			if (this.text[i]) {
+				final var entries = this.newEntries.get(i);
+				out.writeInt(entries.size());
+				for (final String entry : entries) {
+					writeString(out, entry);
+				}
+				entries.clear();
+				for (int row = 0; row < this.rows; row++) {
+					out.writeInt(this.codes[i][row]);
+				}
+			} else {
+				for (int row = 0; row < this.rows; row++) {
+					out.writeDouble(this.doubles[i][row]);
+				}
+			}
+		}
+		this.rows = 0;
+		this.writer.append(block.toByteArray());
+	}
+
+	private static void writeString(final DataOutputStream out, final String string) throws IOException {
+		final var bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Writes the pending rows as a block and forces the file to the disk. The
+	 * file is marked as modified even if no block was pending, as the
+	 * {@link Storage} flushes the csv file first.
+	 *
+	 * @see ColumnarResults#isCurrent(File)
+	 */
+	@Override
+	public synchronized void flush() throws IOException {
+		writeBlock();
+		this.writer.flush();
+		touch();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			writeBlock();
+		} finally {
+			this.writer.close();
+		}
+		touch();
+	}
+
+	private void touch() {
+		this.file.setLastModified(System.currentTimeMillis());
+	}
+}
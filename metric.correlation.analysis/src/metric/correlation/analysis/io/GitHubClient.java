@@ -0,0 +1,320 @@
+package metric.correlation.analysis.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+/**
+ * A client for the GitHub REST API. All requests share one pool of
+ * connections and the number of requests in flight is bounded by a semaphore.
+ * Successful responses are cached on disk together with their ETag and
+ * Last-Modified headers, which are sent as conditional request headers later
+ * on. GitHub answers unchanged resources with 304, which doesn't count against
+ * the rate limit. The requests are scheduled by a {@link GitHubRateLimiter}.
+ */
+public class GitHubClient implements AutoCloseable {
+
+	private static final Logger LOGGER = Logger.getLogger(GitHubClient.class);
+
+	/**
+	 * The default maximal number of requests in flight
+	 */
+	public static final int DEFAULT_MAX_REQUESTS = 8;
+
+	/**
+	 * The default folder of the response cache
+	 */
+	public static final File DEFAULT_CACHE = new File("github-cache");
+
+	/**
+	 * The endpoint of the GitHub GraphQL API
+	 */
+	public static final String GRAPHQL_ENDPOINT = "https://api.github.com/graphql";
+
+	private static GitHubClient defaultClient;
+
+	private final CloseableHttpClient httpClient;
+	private final Semaphore permits;
+	private final ExecutorService executor;
+	private final File cache;
+	private final GitHubRateLimiter limiter;
+
+	private final AtomicLong notModified = new AtomicLong();
+
+	/**
+	 * Creates a new client
+	 *
+	 * @param maxRequests The maximal number of requests in flight
+	 * @param cache       The folder of the response cache or null, if responses
+	 *                    shouldn't be cached
+	 * @param token       The OAuth token or null
+	 */
+	public GitHubClient(final int maxRequests, final File cache, final String token) {
+		this(new GitHubRateLimiter(token == null ? List.of() : List.of(token), GitHubRateLimiter.REQUESTS_PER_HOUR,
+				GitHubRateLimiter.DEFAULT_BURST), maxRequests, cache);
+	}
+
+	/**
+	 * Creates a new client
+	 *
+	 * @param limiter     The scheduler of the requests
+	 * @param maxRequests The maximal number of requests in flight
+	 * @param cache       The folder of the response cache or null, if responses
+	 *                    shouldn't be cached
+	 */
+	public GitHubClient(final GitHubRateLimiter limiter, final int maxRequests, final File cache) {
+		final var connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(maxRequests);
+		connectionManager.setDefaultMaxPerRoute(maxRequests);
+		this.httpClient = HttpClients.custom().setConnectionManager(connectionManager).build();
+		this.permits = new Semaphore(maxRequests);
+		this.executor = Executors.newFixedThreadPool(maxRequests, runnable -> {
+			final var thread = new Thread(runnable, "github-client");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.cache = cache;
+		this.limiter = limiter;
+	}
+
+	/**
+	 * Returns a client shared by all users, which caches responses in
+	 * {@link #DEFAULT_CACHE} and is scheduled by the default
+	 * {@link GitHubRateLimiter}
+	 *
+	 * @return The shared client
+	 */
+	public static synchronized GitHubClient getDefault() {
+		if (defaultClient == null) {
+			defaultClient = new GitHubClient(GitHubRateLimiter.getDefault(), DEFAULT_MAX_REQUESTS, DEFAULT_CACHE);
+		}
+		return defaultClient;
+	}
+
+	/**
+	 * Requests a resource and parses the response
+	 *
+	 * @param url The URL of the resource
+	 * @return The JSON response
+	 * @throws IOException If the request fails
+	 */
+	public JsonElement getJson(final String url) throws IOException {
+		return new JsonParser().parse(get(url));
+	}
+
+	/**
+	 * Requests a resource asynchronously
+	 *
+	 * @param url The URL of the resource
+	 * @return A future of the JSON response
+	 */
+	public CompletableFuture<JsonElement> getJsonAsync(final String url) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return getJson(url);
+			} catch (final IOException e) {
+				throw new CompletionException(e);
+			}
+		}, this.executor);
+	}
+
+	/**
+	 * Requests a resource
+	 *
+	 * @param url The URL of the resource
+	 * @return The body of the response
+	 * @throws IOException If the request fails
+	 */
+	public String get(final String url) throws IOException {
+		acquirePermit();
+		try {
+			return execute(url);
+		} finally {
+			this.permits.release();
+		}
+	}
+
+	/**
+	 * Posts a JSON document, e.g., a GraphQL query. The responses aren't cached.
+	 *
+	 * @param url  The URL of the resource
+	 * @param body The posted document
+	 * @return The JSON response
+	 * @throws IOException If the request fails or the response isn't successful
+	 */
+	public JsonElement postJson(final String url, final JsonElement body) throws IOException {
+		final var request = new HttpPost(url);
+		request.setEntity(new StringEntity(body.toString(), ContentType.APPLICATION_JSON));
+		acquirePermit();
+		try (CloseableHttpResponse response = this.limiter.execute(this.httpClient, request)) {
+			final var status = response.getStatusLine().getStatusCode();
+			final var content = response.getEntity() == null ? ""
+					: EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+			if (status != HttpStatus.SC_OK) {
+				throw new IOException("Request to " + url + " failed with status " + status + ": " + content);
+			}
+			return new JsonParser().parse(content);
+		} finally {
+			this.permits.release();
+		}
+	}
+
+	private void acquirePermit() throws IOException {
+		try {
+			this.permits.acquire();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a request permit", e);
+		}
+	}
+
+	private String execute(final String url) throws IOException {
+		final var cacheFile = getCacheFile(url);
+		final var cached = readCache(cacheFile);
+		final var request = new HttpGet(url);
+		request.addHeader("content-type", "application/json");
+		if (cached != null) {
+			if (cached.etag != null) {
+				request.addHeader(HttpHeaders.IF_NONE_MATCH, cached.etag);
+			}
+			if (cached.lastModified != null) {
+				request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified);
+			}
+		}
+		try (CloseableHttpResponse response = this.limiter.execute(this.httpClient, request)) {
+			final var status = response.getStatusLine().getStatusCode();
+			if ((status == HttpStatus.SC_NOT_MODIFIED) && (cached != null)) {
+				EntityUtils.consume(response.getEntity());
+				this.notModified.incrementAndGet();
+				return cached.body;
+			}
+			final var body = response.getEntity() == null ? ""
+					: EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+			if (status == HttpStatus.SC_OK) {
+				final var etag = response.getFirstHeader(HttpHeaders.ETAG);
+				final var lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+				writeCache(cacheFile, new CachedResponse(etag == null ? null : etag.getValue(),
+						lastModified == null ? null : lastModified.getValue(), body));
+			}
+			return body;
+		}
+	}
+
+	/**
+	 * A getter for the number of requests answered from the cache, because the
+	 * resource hasn't changed
+	 *
+	 * @return The number of not modified responses
+	 */
+	public long getNotModifiedCount() {
+		return this.notModified.get();
+	}
+
+	private File getCacheFile(final String url) {
+		if (this.cache == null) {
+			return null;
+		}
+		try {
+			final var digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+			final var name = new StringBuilder();
+			for (final byte b : digest) {
+				name.append(String.format("%02x", b));
+			}
+			return new File(this.cache, name.toString());
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Reads a cached response, the first two lines of a cache file contain the
+	 * ETag and Last-Modified headers and the remaining lines the body
+	 */
+	private static CachedResponse readCache(final File file) {
+		if ((file == null) || !file.exists()) {
+			return null;
+		}
+		try {
+			final var content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+			final var reader = new BufferedReader(new StringReader(content));
+			final var etag = reader.readLine();
+			final var lastModified = reader.readLine();
+			if (lastModified == null) {
+				return null;
+			}
+			final var bodyStart = etag.length() + lastModified.length() + 2;
+			return new CachedResponse(etag.isEmpty() ? null : etag, lastModified.isEmpty() ? null : lastModified,
+					content.substring(Math.min(bodyStart, content.length())));
+		} catch (final IOException e) {
+			LOGGER.log(Level.WARN, "Cannot read cached response " + file, e);
+			return null;
+		}
+	}
+
+	private static void writeCache(final File file, final CachedResponse response) {
+		if ((file == null) || ((response.etag == null) && (response.lastModified == null))) {
+			return;
+		}
+		try {
+			file.getParentFile().mkdirs();
+			final var tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+			Files.write(tmp.toPath(),
+					((response.etag == null ? "" : response.etag) + '\n'
+							+ (response.lastModified == null ? "" : response.lastModified) + '\n' + response.body)
+									.getBytes(StandardCharsets.UTF_8));
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException e) {
+			LOGGER.log(Level.WARN, "Cannot cache response " + file, e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.executor.shutdownNow();
+		this.httpClient.close();
+	}
+
+	private static final class CachedResponse {
+
+		private final String etag;
+		private final String lastModified;
+		private final String body;
+
+		CachedResponse(final String etag, final String lastModified, final String body) {
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.body = body;
+		}
+	}
+}
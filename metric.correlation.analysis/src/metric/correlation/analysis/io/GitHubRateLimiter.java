@@ -0,0 +1,466 @@
+package metric.correlation.analysis.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * Schedules the requests of all GitHub API callers. GitHub limits the
+ * resources core, search and graphql separately, so every OAuth token has a
+ * token bucket per {@link Resource}. A bucket is refilled at a rate spreading
+ * the remaining budget, as reported by the x-ratelimit headers, until the reset
+ * of the rate limit. Requests take the next token with budget for their
+ * resource in round-robin order, so that several tokens add up their quotas,
+ * and wait if all budgets are used up. Responses exceeding a primary or
+ * secondary rate limit are retried.
+ */
+public class GitHubRateLimiter {
+
+	private static final Logger LOGGER = Logger.getLogger(GitHubRateLimiter.class);
+
+	/**
+	 * The environment variable containing the comma separated OAuth tokens
+	 */
+	public static final String TOKEN_VARIABLE = "GITHUB_OAUTH";
+
+	/**
+	 * The number of requests per hour of an authenticated user
+	 */
+	public static final int REQUESTS_PER_HOUR = 5000;
+
+	/**
+	 * The default number of requests a token may send at once
+	 */
+	public static final int DEFAULT_BURST = 20;
+
+	private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+	/**
+	 * The delay of a retry if a secondary rate limit doesn't specify one
+	 */
+	private static final long SECONDARY_LIMIT_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+	private static GitHubRateLimiter defaultLimiter;
+
+	/**
+	 * The resources GitHub reports separate rate limits for
+	 */
+	public enum Resource {
+		/**
+		 * The REST API except for the search
+		 */
+		CORE("core", REQUESTS_PER_HOUR, TimeUnit.HOURS),
+
+		/**
+		 * The search API
+		 */
+		SEARCH("search", 30, TimeUnit.MINUTES),
+
+		/**
+		 * The GraphQL API, which counts points instead of requests
+		 */
+		GRAPHQL("graphql", 5000, TimeUnit.HOURS);
+
+		private final String headerName;
+		private final int quota;
+		private final long windowMillis;
+
+		Resource(final String headerName, final int quota, final TimeUnit window) {
+			this.headerName = headerName;
+			this.quota = quota;
+			this.windowMillis = window.toMillis(1);
+		}
+
+		/**
+		 * Returns the resource a request is counted against
+		 *
+		 * @param request The request
+		 * @return The resource
+		 */
+		public static Resource of(final HttpUriRequest request) {
+			final var path = request.getURI().getPath();
+			if (path == null) {
+				return CORE;
+			}
+			if (path.startsWith("/search/")) {
+				return SEARCH;
+			}
+			if (path.equals("/graphql")) {
+				return GRAPHQL;
+			}
+			return CORE;
+		}
+
+		/**
+		 * Returns the resource named by the x-ratelimit-resource header
+		 *
+		 * @param headerName The value of the header
+		 * @return The resource or null, if the resource isn't scheduled separately
+		 */
+		static Resource forHeader(final String headerName) {
+			for (final Resource resource : values()) {
+				if (resource.headerName.equals(headerName)) {
+					return resource;
+				}
+			}
+			return null;
+		}
+	}
+
+	private final Map<Resource, List<Budget>> budgets = new EnumMap<>(Resource.class);
+	private final int burst;
+	private final int[] next = new int[Resource.values().length];
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong rateLimited = new AtomicLong();
+	private final AtomicLong waitMillis = new AtomicLong();
+
+	/**
+	 * Creates a new limiter
+	 *
+	 * @param tokens          The OAuth tokens, requests are unauthenticated if
+	 *                        there is none
+	 * @param requestsPerHour The core quota of a token until its limit is
+	 *                        reported
+	 * @param burst           The number of requests a token may send at once
+	 */
+	public GitHubRateLimiter(final List<String> tokens, final int requestsPerHour, final int burst) {
+		for (final Resource resource : Resource.values()) {
+			final var quota = resource == Resource.CORE ? requestsPerHour : resource.quota;
+			final var windowMillis = resource == Resource.CORE ? HOUR_MILLIS : resource.windowMillis;
+			final var capacity = Math.min(burst, quota);
+			final List<Budget> list = new ArrayList<>();
+			if (tokens.isEmpty()) {
+				list.add(new Budget(null, quota, windowMillis, capacity));
+			}
+			for (final String token : tokens) {
+				list.add(new Budget(token, quota, windowMillis, capacity));
+			}
+			this.budgets.put(resource, Collections.unmodifiableList(list));
+		}
+		this.burst = burst;
+	}
+
+	/**
+	 * Returns the limiter shared by all callers, which uses the tokens of the
+	 * {@value #TOKEN_VARIABLE} environment variable
+	 *
+	 * @return The shared limiter
+	 */
+	public static synchronized GitHubRateLimiter getDefault() {
+		if (defaultLimiter == null) {
+			final List<String> tokens = new ArrayList<>();
+			final var value = System.getenv(TOKEN_VARIABLE);
+			if (value != null) {
+				for (final String token : value.split(",")) {
+					if (!token.isBlank()) {
+						tokens.add(token.trim());
+					}
+				}
+			}
+			defaultLimiter = new GitHubRateLimiter(tokens, REQUESTS_PER_HOUR, DEFAULT_BURST);
+		}
+		return defaultLimiter;
+	}
+
+	/**
+	 * Executes a request authenticated with the next token with budget. Rate
+	 * limited requests are repeated.
+	 *
+	 * @param httpClient The client
+	 * @param request    The request
+	 * @return The response, which the caller has to close
+	 * @throws IOException If the request fails
+	 */
+	public CloseableHttpResponse execute(final CloseableHttpClient httpClient, final HttpUriRequest request)
+			throws IOException {
+		final var resource = Resource.of(request);
+		while (true) {
+			final String token;
+			try {
+				token = acquire(resource);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for the rate limit", e);
+			}
+			if (token == null) {
+				request.removeHeaders("Authorization");
+			} else {
+				request.setHeader("Authorization", "Token " + token);
+			}
+			final var response = httpClient.execute(request);
+			if (!update(token, resource, response)) {
+				return response;
+			}
+			EntityUtils.consume(response.getEntity());
+			response.close();
+		}
+	}
+
+	/**
+	 * Waits until a token has core budget and takes a request from its bucket
+	 *
+	 * @return The token or null, if requests are unauthenticated
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	public String acquire() throws InterruptedException {
+		return acquire(Resource.CORE);
+	}
+
+	/**
+	 * Waits until a token has budget for a resource and takes a request from its
+	 * bucket
+	 *
+	 * @param resource The resource of the request
+	 * @return The token or null, if requests are unauthenticated
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	public String acquire(final Resource resource) throws InterruptedException {
+		final var budgets = this.budgets.get(resource);
+		while (true) {
+			long wait = Long.MAX_VALUE;
+			synchronized (this) {
+				final var now = System.currentTimeMillis();
+				for (int i = 0; i < budgets.size(); i++) {
+					final var index = (this.next[resource.ordinal()] + i) % budgets.size();
+					final var budget = budgets.get(index);
+					final var budgetWait = budget.getWaitMillis(now);
+					if (budgetWait == 0) {
+						budget.take();
+						this.next[resource.ordinal()] = (index + 1) % budgets.size();
+						this.requests.incrementAndGet();
+						return budget.token;
+					}
+					wait = Math.min(wait, budgetWait);
+				}
+			}
+			this.waitMillis.addAndGet(wait);
+			Thread.sleep(wait);
+		}
+	}
+
+	/**
+	 * Updates the budget of a token with the rate limit headers of a response to
+	 * a core request
+	 *
+	 * @param token    The token of the request
+	 * @param response The response
+	 * @return true, iff the request exceeded a rate limit and has to be repeated
+	 */
+	public boolean update(final String token, final HttpResponse response) {
+		return update(token, Resource.CORE, response);
+	}
+
+	/**
+	 * Updates the budget of a token with the rate limit headers of a response. The
+	 * budget is selected by the x-ratelimit-resource header or, if GitHub doesn't
+	 * report a known resource, by the resource of the request.
+	 *
+	 * @param token    The token of the request
+	 * @param resource The resource of the request
+	 * @param response The response
+	 * @return true, iff the request exceeded a rate limit and has to be repeated
+	 */
+	public boolean update(final String token, final Resource resource, final HttpResponse response) {
+		final var header = response.getFirstHeader("x-ratelimit-resource");
+		final var reported = header == null ? null : Resource.forHeader(header.getValue().trim());
+		final var budget = getBudget(token, reported == null ? resource : reported);
+		final var remaining = getHeader(response, "x-ratelimit-remaining");
+		final var reset = getHeader(response, "x-ratelimit-reset");
+		final var retryAfter = getHeader(response, "retry-after");
+		final var status = response.getStatusLine().getStatusCode();
+		final var limited = ((status == HttpStatus.SC_FORBIDDEN) || (status == 429))
+				&& ((retryAfter != null) || ((remaining != null) && (remaining == 0)));
+		synchronized (this) {
+			final var now = System.currentTimeMillis();
+			if ((remaining != null) && (reset != null)) {
+				budget.setLimit(remaining, TimeUnit.SECONDS.toMillis(reset), now);
+			}
+			if (limited) {
+				final var resume = retryAfter != null ? now + TimeUnit.SECONDS.toMillis(retryAfter)
+						: reset != null ? TimeUnit.SECONDS.toMillis(reset) : now + SECONDARY_LIMIT_DELAY_MILLIS;
+				budget.block(resume);
+			}
+		}
+		if (limited) {
+			this.rateLimited.incrementAndGet();
+			LOGGER.log(Level.INFO, "Rate limit exceeded, retrying");
+		}
+		return limited;
+	}
+
+	private Budget getBudget(final String token, final Resource resource) {
+		for (final Budget budget : this.budgets.get(resource)) {
+			if ((token == null) ? (budget.token == null) : token.equals(budget.token)) {
+				return budget;
+			}
+		}
+		throw new IllegalArgumentException("Unknown token");
+	}
+
+	private static Long getHeader(final HttpResponse response, final String name) {
+		final var header = response.getFirstHeader(name);
+		if (header == null) {
+			return null;
+		}
+		try {
+			return Long.parseLong(header.getValue().trim());
+		} catch (final NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * A getter for the number of scheduled requests
+	 *
+	 * @return The number of requests
+	 */
+	public long getRequestCount() {
+		return this.requests.get();
+	}
+
+	/**
+	 * A getter for the number of requests which exceeded a rate limit
+	 *
+	 * @return The number of rate limited requests
+	 */
+	public long getRateLimitedCount() {
+		return this.rateLimited.get();
+	}
+
+	/**
+	 * A getter for the time all callers waited for budget
+	 *
+	 * @return The wait time in milliseconds
+	 */
+	public long getWaitMillis() {
+		return this.waitMillis.get();
+	}
+
+	/**
+	 * A getter for the remaining core budget of all tokens as last reported by
+	 * GitHub
+	 *
+	 * @return The number of remaining requests, tokens without a reported limit
+	 *         count with a full quota
+	 */
+	public long getRemaining() {
+		return getRemaining(Resource.CORE);
+	}
+
+	/**
+	 * A getter for the remaining budget of all tokens for a resource as last
+	 * reported by GitHub
+	 *
+	 * @param resource The resource
+	 * @return The number of remaining requests, tokens without a reported limit
+	 *         count with a full quota
+	 */
+	public synchronized long getRemaining(final Resource resource) {
+		long remaining = 0;
+		for (final Budget budget : this.budgets.get(resource)) {
+			remaining += budget.remaining;
+		}
+		return remaining;
+	}
+
+	/**
+	 * Logs the budget usage
+	 */
+	public void logStatistics() {
+		final var remaining = new StringBuilder();
+		for (final Resource resource : Resource.values()) {
+			remaining.append(getRemaining(resource)).append(' ').append(resource.headerName).append(", ");
+		}
+		LOGGER.log(Level.INFO, "GitHub requests: " + getRequestCount() + " scheduled, " + getRateLimitedCount()
+				+ " rate limited, " + getWaitMillis() / 1000 + "s waited, " + remaining + "remaining with "
+				+ this.budgets.get(Resource.CORE).size() + " tokens (burst " + this.burst + ")");
+	}
+
+	/**
+	 * The token bucket of one OAuth token for one resource
+	 */
+	private static final class Budget {
+
+		private final String token;
+		private final int quota;
+		private final long windowMillis;
+		private final int capacity;
+		private double available;
+		private double ratePerMilli;
+		private long remaining;
+		private long reset;
+		private long blockedUntil;
+		private long lastRefill;
+
+		Budget(final String token, final int quota, final long windowMillis, final int capacity) {
+			this.token = token;
+			this.quota = quota;
+			this.windowMillis = windowMillis;
+			this.capacity = capacity;
+			this.available = capacity;
+			this.lastRefill = System.currentTimeMillis();
+			resetLimit();
+		}
+
+		private void resetLimit() {
+			this.ratePerMilli = (double) this.quota / this.windowMillis;
+			this.remaining = this.quota;
+			this.reset = 0;
+		}
+
+		private void refill(final long now) {
+			if ((this.reset != 0) && (now >= this.reset)) {
+				// a new rate limit window has started
+				resetLimit();
+			}
+			this.available = Math.min(this.capacity, this.available + (now - this.lastRefill) * this.ratePerMilli);
+			this.lastRefill = now;
+		}
+
+		long getWaitMillis(final long now) {
+			refill(now);
+			if (now < this.blockedUntil) {
+				return this.blockedUntil - now;
+			}
+			if ((this.remaining <= 0) && (this.reset > now)) {
+				return this.reset - now;
+			}
+			if (this.available >= 1) {
+				return 0;
+			}
+			return Math.max(1, (long) Math.ceil((1 - this.available) / this.ratePerMilli));
+		}
+
+		void take() {
+			this.available--;
+			this.remaining--;
+		}
+
+		void setLimit(final long remaining, final long reset, final long now) {
+			refill(now);
+			this.remaining = remaining;
+			this.reset = reset;
+			// spread the remaining budget until the reset
+			this.ratePerMilli = Math.max(remaining, 1) / (double) Math.max(reset - now, 1000);
+		}
+
+		void block(final long until) {
+			this.blockedUntil = Math.max(this.blockedUntil, until);
+		}
+	}
+}
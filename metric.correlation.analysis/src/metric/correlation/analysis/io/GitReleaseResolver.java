@@ -0,0 +1,155 @@
+package metric.correlation.analysis.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+/**
+ * Resolves the tags of a cloned repository, the commits they point to and the
+ * author dates of these commits from the local object database. No GitHub
+ * request is needed, as the clones of the projects already contain all tags.
+ */
+public class GitReleaseResolver implements AutoCloseable {
+
+	/**
+	 * The location where the git repositories are cloned to by the metric
+	 * calculation
+	 */
+	public static final File REPOSITORIES = new File("repositories");
+
+	private final Repository repository;
+
+	/**
+	 * Opens a cloned repository
+	 *
+	 * @param location The working tree or git directory of the clone
+	 * @throws IOException If the location isn't a git repository
+	 */
+	public GitReleaseResolver(final File location) throws IOException {
+		final var builder = new FileRepositoryBuilder().setMustExist(true);
+		if (Constants.DOT_GIT.equals(location.getName()) || new File(location, Constants.OBJECTS).isDirectory()) {
+			builder.setGitDir(location);
+		} else {
+			builder.setWorkTree(location);
+		}
+		this.repository = builder.build();
+	}
+
+	/**
+	 * Returns the location of the clone of a project
+	 *
+	 * @param product The name of the project
+	 * @return The location below {@link #REPOSITORIES}
+	 */
+	public static File getLocation(final String product) {
+		return new File(REPOSITORIES, product);
+	}
+
+	/**
+	 * Checks if a project has been cloned
+	 *
+	 * @param product The name of the project
+	 * @return true, iff the location of the project contains a git repository
+	 */
+	public static boolean isCloned(final String product) {
+		return new File(getLocation(product), Constants.DOT_GIT).exists();
+	}
+
+	/**
+	 * Resolves all tags pointing to commits. Annotated tags are peeled to their
+	 * commits.
+	 *
+	 * @return The releases, newest commit first
+	 * @throws IOException If the object database cannot be read
+	 */
+	public List<Release> getReleases() throws IOException {
+		final List<Release> releases = new ArrayList<>();
+		try (var walk = new RevWalk(this.repository)) {
+			for (final Ref ref : this.repository.getRefDatabase().getRefsByPrefix(Constants.R_TAGS)) {
+				final var peeled = ref.isPeeled() ? ref : this.repository.getRefDatabase().peel(ref);
+				final var id = peeled.getPeeledObjectId() == null ? peeled.getObjectId()
+						: peeled.getPeeledObjectId();
+				final RevCommit commit;
+				try {
+					commit = walk.parseCommit(id);
+				} catch (final IncorrectObjectTypeException e) {
+					continue; // tags of trees or blobs
+				}
+				releases.add(new Release(Repository.shortenRefName(ref.getName()), commit.getName(),
+						commit.getAuthorIdent().getWhen().toInstant()));
+			}
+		}
+		releases.sort(Comparator.comparing(Release::getDate).reversed());
+		return releases;
+	}
+
+	@Override
+	public void close() {
+		this.repository.close();
+	}
+
+	/**
+	 * A tag and the commit it points to
+	 */
+	public static final class Release {
+
+		private final String name;
+		private final String commitId;
+		private final Instant date;
+
+		private Release(final String name, final String commitId, final Instant date) {
+			this.name = name;
+			this.commitId = commitId;
+			this.date = date;
+		}
+
+		/**
+		 * A getter for the name of the tag
+		 *
+		 * @return The name without the refs/tags/ prefix
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * A getter for the id of the tagged commit
+		 *
+		 * @return The SHA-1 of the commit
+		 */
+		public String getCommitId() {
+			return this.commitId;
+		}
+
+		/**
+		 * A getter for the author date of the tagged commit
+		 *
+		 * @return The date
+		 */
+		public Instant getDate() {
+			return this.date;
+		}
+
+		/**
+		 * Returns the author date of the tagged commit in the default time zone
+		 *
+		 * @return The local date
+		 */
+		public LocalDate getLocalDate() {
+			return LocalDate.ofInstant(this.date, ZoneId.systemDefault());
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package metric.correlation.analysis.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.gravity.eclipse.io.FileUtils;
+
+/**
+ * Manages one linked git worktree per commit of a cloned repository. All
+ * worktrees share the object store of the clone, so checking out a further
+ * version doesn't rewrite the working copy of other versions. A worktree is
+ * reused as long as it still points to the requested commit.
+ *
+ * Requires a git executable on the path, as JGit doesn't support linked
+ * worktrees.
+ */
+public class GitWorktrees {
+
+	private static final Logger LOGGER = Logger.getLogger(GitWorktrees.class);
+
+	private final File repository;
+	private final File root;
+
+	/**
+	 * Creates a new worktree manager
+	 *
+	 * @param repository The location of the cloned repository
+	 * @param root       The folder in which the worktrees should be created
+	 */
+	public GitWorktrees(final File repository, final File root) {
+		this.repository = repository.getAbsoluteFile();
+		this.root = root.getAbsoluteFile();
+	}
+
+	/**
+	 * Returns a worktree in which the given commit is checked out. An existing
+	 * worktree of the commit is reused and reverted to a clean state.
+	 *
+	 * Worktrees are created one after another, as git locks the shared repository
+	 * while adding a worktree.
+	 *
+	 * @param commitId The commit
+	 * @return The location of the worktree
+	 * @throws IOException If the worktree cannot be created
+	 */
+	public synchronized File checkout(final String commitId) throws IOException {
+		final String sha = git(this.repository, "rev-parse", "--verify", commitId + "^{commit}");
+		final File worktree = new File(this.root, sha);
+		if (worktree.exists()) {
+			if (isCheckedOut(worktree, sha)) {
+				LOGGER.info("Reuse worktree of commit " + sha);
+				if (!git(worktree, "status", "--porcelain", "--untracked-files=no").isEmpty()) {
+					git(worktree, "reset", "--hard", "--quiet");
+				}
+				return worktree;
+			}
+			remove(worktree);
+		}
+		this.root.mkdirs();
+		git(this.repository, "worktree", "add", "--detach", "--force", worktree.getPath(), sha);
+		LOGGER.info("Created worktree of commit " + sha);
+		return worktree;
+	}
+
+	/**
+	 * Removes the worktree of a commit
+	 *
+	 * @param commitId The commit
+	 * @throws IOException If the worktree cannot be removed
+	 */
+	public synchronized void remove(final String commitId) throws IOException {
+		final File worktree = new File(this.root, git(this.repository, "rev-parse", "--verify", commitId + "^{commit}"));
+		if (worktree.exists()) {
+			remove(worktree);
+		}
+	}
+
+	/**
+	 * Removes a worktree folder and the administrative files of git about it
+	 *
+	 * @param worktree The worktree
+	 * @throws IOException If git fails to prune the administrative files
+	 */
+	private void remove(final File worktree) throws IOException {
+		try {
+			git(this.repository, "worktree", "remove", "--force", worktree.getPath());
+		} catch (final IOException e) {
+			LOGGER.warn("Couldn't remove worktree, deleting it: " + e.getMessage());
+			FileUtils.recursiveDelete(worktree);
+		}
+		git(this.repository, "worktree", "prune");
+	}
+
+	/**
+	 * Checks if the HEAD of a worktree is the given commit
+	 *
+	 * @param worktree The worktree
+	 * @param sha      The full id of the commit
+	 * @return true, iff the commit is checked out
+	 */
+	private static boolean isCheckedOut(final File worktree, final String sha) {
+		try {
+			return sha.equals(git(worktree, "rev-parse", "HEAD"));
+		} catch (final IOException e) {
+			LOGGER.warn("Invalid worktree: " + worktree);
+			return false;
+		}
+	}
+
+	/**
+	 * Executes a git command
+	 *
+	 * @param location The location at which the command should be executed
+	 * @param args     The arguments of the git command
+	 * @return The trimmed standard output of the command
+	 * @throws IOException If the command cannot be executed or fails
+	 */
+	private static String git(final File location, final String... args) throws IOException {
+		final List<String> command = new ArrayList<>(args.length + 1);
+		command.add("git");
+		command.addAll(Arrays.asList(args));
+		final Process process = new ProcessBuilder(command).directory(location).redirectErrorStream(true).start();
+		final String output;
+		try (InputStream stream = process.getInputStream()) {
+			final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			stream.transferTo(buffer);
+			output = buffer.toString(StandardCharsets.UTF_8).trim();
+		}
+		try {
+			if (process.waitFor() != 0) {
+				throw new IOException(String.join(" ", command) + " failed: " + output);
+			}
+		} catch (final InterruptedException e) {
+			process.destroy();
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+		return output;
+	}
+}
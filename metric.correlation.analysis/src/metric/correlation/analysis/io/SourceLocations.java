@@ -0,0 +1,71 @@
+package metric.correlation.analysis.io;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.core.IJavaProject;
+
+/**
+ * Keeps track of the folders from which the projects in the workspace have been
+ * imported, so that metric calculators analyze the worktree of a version
+ * instead of the clone of the product. The locations are keyed by the name of
+ * the workspace project, which the metric calculation makes unique per
+ * version, so several versions of a product may be registered at the same
+ * time.
+ */
+public final class SourceLocations {
+
+	/**
+	 * The folder containing the clones of the git repositories
+	 */
+	private static final String REPOSITORIES = "repositories";
+
+	private static final Map<String, File> LOCATIONS = new ConcurrentHashMap<>();
+
+	private SourceLocations() {
+		// As the class only provides static methods the class shouldn't be instantiated
+	}
+
+	/**
+	 * Registers the source location of an imported project
+	 *
+	 * @param project  The imported project
+	 * @param location The folder containing the sources
+	 * @throws IllegalStateException If another location is registered for a
+	 *                               project with the same name
+	 */
+	public static void register(final IJavaProject project, final File location) {
+		final String name = project.getProject().getName();
+		final File previous = LOCATIONS.putIfAbsent(name, location.getAbsoluteFile());
+		if ((previous != null) && !previous.equals(location.getAbsoluteFile())) {
+			throw new IllegalStateException("Project " + name + " is already imported from " + previous);
+		}
+	}
+
+	/**
+	 * Removes the source location of a project
+	 *
+	 * @param project The project
+	 */
+	public static void unregister(final IJavaProject project) {
+		LOCATIONS.remove(project.getProject().getName());
+	}
+
+	/**
+	 * Returns the location of the sources of a project. If no location has been
+	 * registered the clone of the product next to the workspace is returned.
+	 *
+	 * @param project     The imported project
+	 * @param productName The name of the product
+	 * @return The folder containing the sources
+	 */
+	public static File getLocation(final IJavaProject project, final String productName) {
+		final File location = LOCATIONS.get(project.getProject().getName());
+		if (location != null) {
+			return location;
+		}
+		final File workspace = project.getProject().getLocation().toFile().getParentFile().getParentFile();
+		return new File(new File(workspace, REPOSITORIES), productName);
+	}
+}
@@ -1,8 +1,7 @@
 package metric.correlation.analysis.io;
 
-import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -14,17 +13,21 @@ import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
 /**
- * Stores metric calculation results as csv
+ * Stores metric calculation results as csv. The file is kept open until the
+ * storage is closed and rows are written in batches by an
+ * {@link AppendingWriter}. Optionally, the results are also stored in a binary
+ * columnar file, which can be read as {@link ColumnarResults}.
  *
  * @author speldszus
  *
  */
-public class Storage {
+public class Storage implements Closeable {
 
 	private static final Logger LOGGER = Logger.getLogger(Storage.class);
 
 	private final List<String> keys;
-	private final File output;
+	private final AppendingWriter writer;
+	private final ColumnarWriter columns;
 
 	/**
 	 * Creates a new instance with a given output file and the names of the metrics
@@ -34,7 +37,23 @@ public class Storage {
 	 * @throws IOException If the output file cannot be created
 	 */
 	public Storage(final File resultFile, final Collection<String> keys) throws IOException {
-		this.output = resultFile;
+		this(resultFile, keys, null);
+	}
+
+	/**
+	 * Creates a new instance with a given output file and the names of the metrics,
+	 * which additionally writes a columnar file next to the output file
+	 *
+	 * @param resultFile The output file
+	 * @param keys       The metric names
+	 * @param textKeys   The names of the metrics whose values aren't numbers, e.g.,
+	 *                   the product name, or null if no columnar file should be
+	 *                   written
+	 * @throws IOException If the output file cannot be created
+	 * @see ColumnarResults#getColumnsFile(File)
+	 */
+	public Storage(final File resultFile, final Collection<String> keys, final Collection<String> textKeys)
+			throws IOException {
 		if (keys instanceof List) {
 			this.keys = (List<String>) keys;
 
@@ -42,31 +61,27 @@ public class Storage {
 			this.keys = new ArrayList<>(keys);
 		}
 
-		if (!resultFile.exists()) {
-			resultFile.getParentFile().mkdirs();
-			resultFile.createNewFile();
-		}
-		try (BufferedWriter writer = new BufferedWriter(new FileWriter(resultFile))) {
-
-			for (int i = 0; i < keys.size(); i++) {
-				if (i > 0) {
-					writer.write(',');
-				}
-				writer.write(this.keys.get(i));
-			}
-		}
+		this.writer = new AppendingWriter(resultFile, true);
+		this.writer.append(String.join(",", this.keys));
+		this.writer.flush();
+		this.columns = textKeys == null ? null
+				: new ColumnarWriter(ColumnarResults.getColumnsFile(resultFile), this.keys, textKeys);
 	}
 
 	/**
-	 * Appends the results of a detection run on a project
+	 * Appends the results of a detection run on a project. Rows of concurrent
+	 * callers are written one after another.
 	 *
 	 * @param name    The project name
 	 * @param results The metric results
 	 * @return true, iff the results have been appended successfully
 	 */
 	public boolean writeCSV(final String name, final Map<String, String> results) {
-		try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.output, true))) {
-			writer.write(this.keys.stream().map(results::get).collect(Collectors.joining(",", "\n", "")));
+		try {
+			this.writer.append(this.keys.stream().map(results::get).collect(Collectors.joining(",", "\n", "")));
+			if (this.columns != null) {
+				this.columns.add(results);
+			}
 		} catch (final IOException e) {
 			LOGGER.log(Level.ERROR, e.getMessage(), e);
 			return false;
@@ -74,4 +89,27 @@ public class Storage {
 		return true;
 	}
 
+	/**
+	 * Writes all pending results to the disk
+	 *
+	 * @throws IOException If the results cannot be written
+	 */
+	public void flush() throws IOException {
+		this.writer.flush();
+		if (this.columns != null) {
+			this.columns.flush();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			this.writer.close();
+		} finally {
+			if (this.columns != null) {
+				this.columns.close();
+			}
+		}
+	}
+
 }
@@ -5,37 +5,50 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
-import org.apache.http.HttpResponse;
-import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.util.EntityUtils;
 import org.apache.log4j.Logger;
 import org.bson.Document;
 import org.junit.Test;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 
 import metric.correlation.analysis.database.MongoDBHelper;
+import metric.correlation.analysis.io.GitHubClient;
+import metric.correlation.analysis.io.GitReleaseResolver;
+import metric.correlation.analysis.io.GitReleaseResolver.Release;
 import metric.correlation.analysis.io.VersionHelper;
 import metric.correlation.analysis.issues.Issue.IssueType;
-import metric.correlation.analysis.selection.GitHubProjectSelector;
 import metric.correlation.analysis.selection.ProjectsOutputCreator;
 
 public class GithubIssueCrawler implements IssueCrawler {
 	private static final boolean STORE_ISSUES = false;
 	private static final Logger LOGGER = Logger.getLogger(GithubIssueCrawler.class);
 	private static final boolean USE_DATABASE = false;
+
+	/**
+	 * If the issues should be kept in an {@link IssueStore}, so that only the
+	 * issues updated since the last crawl have to be requested
+	 */
+	private static final boolean USE_ISSUE_STORE = true;
+	/**
+	 * If the releases of projects which have already been cloned should be read
+	 * from their clones instead of the GitHub API
+	 */
+	private static final boolean USE_LOCAL_RELEASES = true;
 	private HashMap<String, String> releaseCommits;
+	private final Map<String, LocalDate> releaseDates = new HashMap<>(); // dates of locally resolved releases
 	private List<String> releases = new ArrayList<>(); // sorted list of release versions
 	private final String lastProject = "";
 	private LocalDate releaseDate;
@@ -46,8 +59,39 @@ public class GithubIssueCrawler implements IssueCrawler {
 	// some issues
 	private static final Double DAYS_PER_MONTH = 30.4;
 
+	/**
+	 * If the issue pages and comments should be requested concurrently
+	 */
+	private static final boolean CONCURRENT_CRAWLING = true;
+
+	/**
+	 * The number of issue pages requested ahead while crawling concurrently
+	 */
+	private static final int PAGE_WINDOW = 4;
+
+	private static final int MAX_PAGES = 150;
+
+	private final GitHubClient client;
+
+	private final Map<String, IssueStore> stores = new HashMap<>();
+
+	private String newestUpdate; // newest updated_at of the last crawl
+
+	private boolean truncated; // if the last crawl stopped at MAX_PAGES
+
 	public GithubIssueCrawler() throws IOException {
-		this.classifier = new NLPClassifier();
+		this(new NLPClassifier(), GitHubClient.getDefault());
+	}
+
+	/**
+	 * Creates a crawler sending its requests with a client
+	 *
+	 * @param classifier The classifier of issues without a bug or request label
+	 * @param client     The client
+	 */
+	protected GithubIssueCrawler(final Classifier classifier, final GitHubClient client) {
+		this.classifier = classifier;
+		this.client = client;
 		this.versionList = new HashMap<>();
 		this.versionList.put("antlr4", Arrays.asList("4.0", "4.1", "4.2", "4.2.1", "4.2.2", "4.3", "4.4", "4.5",
 				"4.5.1", "4.5.1-1", "4.5.2", "4.5.3", "4.6", "4.7", "4.7.1", "4.7.2", "4.8"));
@@ -62,8 +106,11 @@ public class GithubIssueCrawler implements IssueCrawler {
 		List<Issue> issues;
 		if (USE_DATABASE) {
 			issues = this.fetchIssuesFromDatabase(product);
+		} else if (USE_ISSUE_STORE) {
+			issues = this.getStoredIssues(vendor, product);
 		} else {
-			issues = this.getIssuesAfterDate(vendor, product, this.releaseDate); // github api only has afterDate filter
+			// github api only has afterDate filter
+			issues = this.crawl(vendor, product, this.releaseDate.toString());
 		}
 		this.nextReleaseDate = this.getNextReleaseDate(vendor, product, version); // today if latest release
 		LOGGER.info("release: " + this.releaseDate);
@@ -84,6 +131,125 @@ public class GithubIssueCrawler implements IssueCrawler {
 		return issues;
 	}
 
+	/**
+	 * Returns the issues of a project from its {@link IssueStore}. An empty store
+	 * is filled with all issues since the first release, so that the store serves
+	 * all versions of the project. Afterwards only the issues updated since the
+	 * newest stored update are requested and merged at most once per
+	 * {@link IssueStore#REFRESH_INTERVAL}.
+	 *
+	 * @param vendor  The vendor of the project
+	 * @param product The name of the project
+	 * @return All stored issues
+	 * @throws IOException If the store cannot be read or written or a request
+	 *                     fails
+	 */
+	private List<Issue> getStoredIssues(final String vendor, final String product) throws IOException {
+		final var key = vendor + '/' + product;
+		var store = this.stores.get(key);
+		if (store == null) {
+			store = new IssueStore(IssueStore.DEFAULT_FOLDER, vendor, product);
+			this.stores.put(key, store);
+		}
+		if (!store.covers(this.releaseDate)) {
+			final var since = this.getFirstReleaseDate(vendor, product);
+			LOGGER.info("crawling all issues since " + since);
+			final var issues = this.crawl(vendor, product, since.toString());
+			store.merge(issues, this.newestUpdate, this.getCoveredSince(issues, since));
+			store.save();
+		} else if (store.needsRefresh()) {
+			final var since = store.getNewestUpdate() == null ? store.getCoveredSince().toString()
+					: store.getNewestUpdate();
+			LOGGER.info("refreshing issues updated since " + since);
+			final var issues = this.crawl(vendor, product, since);
+			store.merge(issues, this.newestUpdate, null);
+			store.save();
+		}
+		return store.getIssues();
+	}
+
+	private LocalDate getFirstReleaseDate(final String vendor, final String product) {
+		if (!this.releases.isEmpty()) {
+			try {
+				final var first = this.getReleaseDate(vendor, product, this.releases.get(0));
+				if (first.isBefore(this.releaseDate)) {
+					return first;
+				}
+			} catch (final IOException e) {
+				LOGGER.warn("Cannot read the date of the first release of " + product, e);
+			}
+		}
+		return this.releaseDate;
+	}
+
+	private List<Issue> crawl(final String vendor, final String product, final String since) throws IOException {
+		this.newestUpdate = null;
+		this.truncated = false;
+		return this.crawlIssues(vendor, product, since);
+	}
+
+	/**
+	 * Returns the date since which a crawl received all issues. The REST API
+	 * returns the newest issues first, so a crawl which stopped at
+	 * {@value #MAX_PAGES} pages only covers the issues created since the oldest
+	 * received one.
+	 *
+	 * @param issues The crawled issues
+	 * @param since  The date since which the issues have been requested
+	 * @return The covered date or null, if a truncated crawl didn't receive any
+	 *         issue
+	 */
+	private LocalDate getCoveredSince(final List<Issue> issues, final LocalDate since) {
+		if (!this.truncated) {
+			return since;
+		}
+		LocalDate oldest = null;
+		for (final Issue issue : issues) {
+			if ((oldest == null) || issue.getCreationDate().isBefore(oldest)) {
+				oldest = issue.getCreationDate();
+			}
+		}
+		LOGGER.warn("Stopped after " + MAX_PAGES + " issue pages, oldest received issue: " + oldest);
+		if (oldest == null) {
+			return null;
+		}
+		return oldest.isBefore(since) ? since : oldest;
+	}
+
+	/**
+	 * Requests the issues updated since a date. The newest update time has to be
+	 * reported with {@link #trackUpdate(String)}.
+	 *
+	 * @param vendor  The vendor of the project
+	 * @param product The name of the project
+	 * @param since   An ISO 8601 date or timestamp
+	 * @return The classified issues
+	 * @throws IOException If a request fails
+	 */
+	protected List<Issue> crawlIssues(final String vendor, final String product, final String since)
+			throws IOException {
+		return CONCURRENT_CRAWLING ? this.getIssuesAfterDateConcurrently(vendor, product, since)
+				: this.getIssuesAfterDate(vendor, product, since);
+	}
+
+	private void trackUpdate(final JsonObject issueJsonObject) {
+		final var updatedAt = issueJsonObject.get("updated_at");
+		if ((updatedAt != null) && !updatedAt.isJsonNull()) {
+			this.trackUpdate(updatedAt.getAsString());
+		}
+	}
+
+	/**
+	 * Records the update time of a crawled issue
+	 *
+	 * @param updatedAt The ISO 8601 timestamp in UTC
+	 */
+	protected void trackUpdate(final String updatedAt) {
+		if ((this.newestUpdate == null) || (updatedAt.compareTo(this.newestUpdate) > 0)) {
+			this.newestUpdate = updatedAt;
+		}
+	}
+
 	private LocalDate getNextReleaseDate(final String vendor, final String product, final String version)
 			throws IOException {
 		if (product.equals("Activiti")) {
@@ -104,21 +270,22 @@ public class GithubIssueCrawler implements IssueCrawler {
 		return ChronoUnit.DAYS.between(this.releaseDate, this.nextReleaseDate) / DAYS_PER_MONTH;
 	}
 
-	private List<Issue> getIssuesAfterDate(final String vendor, final String product, final LocalDate releaseDate2)
+	private List<Issue> getIssuesAfterDate(final String vendor, final String product, final String since)
 			throws IOException {
 		final List<Issue> issues = new ArrayList<>();
 		final List<Map<String, Object>> tmpList = new ArrayList<>();
-		for (var i = 1; i < 150; i++) {
+		this.truncated = true;
+		for (var i = 1; i < MAX_PAGES; i++) {
 			tmpList.clear();
 			LOGGER.info("at page " + i);
-			final var path = "https://api.github.com/repos/" + vendor + "/" + product + "/issues?since="
-					+ this.releaseDate.toString() + "&per_page=100&page=" + i + "&state=all";
-			final var jArray = getJsonFromURL(path).getAsJsonArray();
+			final var jArray = getJsonFromURL(this.getIssuePageUrl(vendor, product, since, i)).getAsJsonArray();
 			if (jArray.size() == 0) {
+				this.truncated = false;
 				break;
 			}
 			for (final JsonElement elem : jArray) {
 				final var issueJsonObject = (JsonObject) elem;
+				this.trackUpdate(issueJsonObject);
 				final var pr = issueJsonObject.get("pull_request");
 				if (pr == null) { // we don't want pull requests, which are also issues
 					final var issue = this.parseJsonIssue(issueJsonObject);
@@ -137,7 +304,95 @@ public class GithubIssueCrawler implements IssueCrawler {
 		return issues;
 	}
 
+	private String getIssuePageUrl(final String vendor, final String product, final String since, final int page) {
+		return "https://api.github.com/repos/" + vendor + "/" + product + "/issues?since=" + since
+				+ "&per_page=100&page=" + page + "&state=all";
+	}
+
+	/**
+	 * Requests the issue pages and the comments of the issues concurrently. The
+	 * next {@value #PAGE_WINDOW} pages are requested ahead and the comments of an
+	 * issue are requested as soon as its page has been received. The issues are
+	 * classified on the calling thread.
+	 *
+	 * @param vendor  The vendor of the project
+	 * @param product The name of the project
+	 * @param since   An ISO 8601 date or timestamp
+	 * @return The issues in the order of the pages
+	 * @throws IOException If a request fails
+	 */
+	private List<Issue> getIssuesAfterDateConcurrently(final String vendor, final String product, final String since)
+			throws IOException {
+		final var pages = new ArrayDeque<CompletableFuture<JsonElement>>();
+		var nextPage = 1;
+		for (; (nextPage <= PAGE_WINDOW) && (nextPage < MAX_PAGES); nextPage++) {
+			pages.add(this.client.getJsonAsync(this.getIssuePageUrl(vendor, product, since, nextPage)));
+		}
+		final List<CompletableFuture<Issue>> pending = new ArrayList<>();
+		var page = 1;
+		this.truncated = true;
+		while (!pages.isEmpty()) {
+			final var jArray = join(pages.poll()).getAsJsonArray();
+			LOGGER.info("received page " + page++);
+			if (jArray.size() == 0) {
+				pages.forEach(future -> future.cancel(false));
+				this.truncated = false;
+				break;
+			}
+			if (nextPage < MAX_PAGES) {
+				pages.add(this.client.getJsonAsync(this.getIssuePageUrl(vendor, product, since, nextPage++)));
+			}
+			for (final JsonElement elem : jArray) {
+				final var issueJsonObject = (JsonObject) elem;
+				this.trackUpdate(issueJsonObject);
+				if (issueJsonObject.get("pull_request") == null) { // we don't want pull requests
+					final var commentsUrl = issueJsonObject.get("comments_url").getAsJsonPrimitive().getAsString();
+					pending.add(this.client.getJsonAsync(commentsUrl)
+							.thenApply(comments -> this.createIssue(issueJsonObject, comments)));
+				}
+			}
+		}
+		final List<Issue> issues = new ArrayList<>(pending.size());
+		for (final CompletableFuture<Issue> future : pending) {
+			final var issue = join(future);
+			this.classify(issue);
+			issues.add(issue);
+		}
+		LOGGER.info("finished " + issues.size() + " issues");
+		if (STORE_ISSUES) {
+			try (var db = new MongoDBHelper("metric_correlation", product + "-issues")) {
+				db.storeMany(issues.stream().map(Issue::asMap).collect(Collectors.toList()));
+			}
+		}
+		return issues;
+	}
+
+	private static <T> T join(final CompletableFuture<T> future) throws IOException {
+		try {
+			return future.join();
+		} catch (final CompletionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
 	private Issue parseJsonIssue(final JsonObject issueJsonObject) throws IOException {
+		final var commentsUrl = issueJsonObject.get("comments_url").getAsJsonPrimitive().getAsString();
+		final var issue = this.createIssue(issueJsonObject, getJsonFromURL(commentsUrl));
+		this.classify(issue);
+		return issue;
+	}
+
+	/**
+	 * Creates an issue from its JSON representation without classifying it
+	 *
+	 * @param issueJsonObject The issue
+	 * @param commentsElem    The comments of the issue
+	 * @return The issue
+	 */
+	private Issue createIssue(final JsonObject issueJsonObject, final JsonElement commentsElem) {
 		final var issue = new Issue();
 		issue.setUrl(issueJsonObject.get("url").getAsJsonPrimitive().getAsString());
 		issue.setId(issueJsonObject.get("id").getAsJsonPrimitive().getAsString());
@@ -153,17 +408,18 @@ public class GithubIssueCrawler implements IssueCrawler {
 			final var labelName = elem.getAsJsonObject().get("name").getAsString().toLowerCase();
 			issue.addLabel(labelName);
 		}
-		final var commentsUrl = issueJsonObject.get("comments_url").getAsJsonPrimitive().getAsString();
-		final var commentsElem = getJsonFromURL(commentsUrl);
 		for (final JsonElement elem : commentsElem.getAsJsonArray()) {
 			final var comment = elem.getAsJsonObject().get("body").getAsJsonPrimitive().getAsString();
 			issue.addComment(comment);
 		}
+		return issue;
+	}
+
+	protected void classify(final Issue issue) {
 		final var type = this.getIssueType(issue);
 		if (type != null) {
 			issue.setType(type);
 		}
-		return issue;
 	}
 
 	private IssueType getIssueType(final Issue issue) {
@@ -215,7 +471,7 @@ public class GithubIssueCrawler implements IssueCrawler {
 		return labelName.contains("bug") || labelName.contains("defect"); // might make it more sophisticated
 	}
 
-	private LocalDate parseDate(final String dateStr) {
+	protected LocalDate parseDate(final String dateStr) {
 		final var formatter = DateTimeFormatter.ISO_INSTANT.withZone(ZoneId.systemDefault()); // ISO_INSTANT
 		return LocalDate.parse(dateStr, formatter);
 	}
@@ -228,19 +484,7 @@ public class GithubIssueCrawler implements IssueCrawler {
 	 * @throws IOException when request fails
 	 */
 	public static JsonElement getJsonFromURL(final String path) throws IOException {
-		JsonElement jelement = null;
-		try (var httpClient = HttpClientBuilder.create().build()) {
-			final var request = new HttpGet(path);
-			request.addHeader("content-type", "application/json");
-			request.addHeader("Authorization", "Token " + GitHubProjectSelector.OAuthToken);
-			HttpResponse result = httpClient.execute(request);
-			while (GitHubProjectSelector.rateLimit(result)) {
-				result = httpClient.execute(request);
-			}
-			final var json = EntityUtils.toString(result.getEntity(), "UTF-8");
-			jelement = new JsonParser().parse(json);
-		}
-		return jelement;
+		return GitHubClient.getDefault().getJson(path);
 	}
 
 	// returns the release date of the given version
@@ -250,6 +494,10 @@ public class GithubIssueCrawler implements IssueCrawler {
 		if (commit == null) {
 			throw new IOException("Cannot read a commit for version " + version + '.');
 		}
+		final var localDate = this.releaseDates.get(version);
+		if (localDate != null) {
+			return localDate;
+		}
 		final var url = "https://api.github.com/repos/" + vendor + "/" + product + "/commits/" + commit;
 		final var jobject = getJsonFromURL(url).getAsJsonObject();
 		final var commitObject = (JsonObject) jobject.get("commit");
@@ -270,27 +518,48 @@ public class GithubIssueCrawler implements IssueCrawler {
 			this.releases = new ArrayList<>();
 		}
 		this.releaseCommits = new HashMap<>();
-		try (var httpClient = HttpClientBuilder.create().build()) {
-			final var poc = new ProjectsOutputCreator();
-			final var commits = poc.getReleaseCommits(httpClient, vendor, product, Integer.MAX_VALUE);
-			for (final JsonElement jo : commits) {
-				final var version = ((JsonObject) jo).get("version").getAsString();
-				final var commit = ((JsonObject) jo).get("commitId").getAsString();
-				if (version.matches(".*\\d.*")) { // version needs a number for comparisons
-					this.releaseCommits.put(version, commit);
+		this.releaseDates.clear();
+		if (USE_LOCAL_RELEASES && GitReleaseResolver.isCloned(product)) {
+			this.getLocalReleases(product);
+		} else {
+			try (var httpClient = HttpClientBuilder.create().build()) {
+				final var poc = new ProjectsOutputCreator();
+				final var commits = poc.getReleaseCommits(httpClient, vendor, product, Integer.MAX_VALUE);
+				for (final JsonElement jo : commits) {
+					final var version = ((JsonObject) jo).get("version").getAsString();
+					final var commit = ((JsonObject) jo).get("commitId").getAsString();
+					if (version.matches(".*\\d.*")) { // version needs a number for comparisons
+						this.releaseCommits.put(version, commit);
+					}
 				}
 			}
-			if (!setOnlyCommits) {
-				this.releaseCommits.keySet().forEach(key -> this.releases.add(key));
-				this.sortReleases();
-			} else { // make sure every commit id is set
-				for (final String version : this.releases) {
-					if (!this.releaseCommits.containsKey(version)) {
-						throw new IOException("Mising commit id for " + version);
-					}
+		}
+		if (!setOnlyCommits) {
+			this.releaseCommits.keySet().forEach(key -> this.releases.add(key));
+			this.sortReleases();
+		} else { // make sure every commit id is set
+			for (final String version : this.releases) {
+				if (!this.releaseCommits.containsKey(version)) {
+					throw new IOException("Mising commit id for " + version);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the releases and their dates from the clone of a project
+	 */
+	private void getLocalReleases(final String product) throws IOException {
+		try (var resolver = new GitReleaseResolver(GitReleaseResolver.getLocation(product))) {
+			for (final Release release : resolver.getReleases()) {
+				final var version = release.getName();
+				if (ProjectsOutputCreator.isRelease(version) && version.matches(".*\\d.*")) {
+					this.releaseCommits.put(version, release.getCommitId());
+					this.releaseDates.put(version, release.getLocalDate());
 				}
 			}
 		}
+		LOGGER.info("Resolved " + this.releaseCommits.size() + " releases of " + product + " locally");
 	}
 
 	/**
@@ -0,0 +1,157 @@
+package metric.correlation.analysis.issues;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import metric.correlation.analysis.io.GitHubClient;
+
+/**
+ * A crawler requesting the issues with the GitHub GraphQL API. One query
+ * returns a page of {@value #PAGE_SIZE} issues together with their labels and
+ * comments, while the REST API needs an additional request for the comments of
+ * every issue. Only issues with more than {@value #PAGE_SIZE} comments need
+ * further queries. Pull requests aren't part of the issue connection. The
+ * releases are still resolved as in the {@link GithubIssueCrawler}.
+ */
+public class GraphQLIssueCrawler extends GithubIssueCrawler {
+
+	private static final Logger LOGGER = Logger.getLogger(GraphQLIssueCrawler.class);
+
+	/**
+	 * The endpoint of the GitHub GraphQL API
+	 */
+	public static final String DEFAULT_ENDPOINT = GitHubClient.GRAPHQL_ENDPOINT;
+
+	/**
+	 * The maximal page size of the GraphQL API
+	 */
+	private static final int PAGE_SIZE = 100;
+
+	private static final String COMMENTS = "comments(first: " + PAGE_SIZE
+			+ ", after: $commentCursor) { pageInfo { hasNextPage endCursor } nodes { body } }";
+
+	private static final String ISSUES_QUERY = "query($owner: String!, $name: String!, $since: DateTime, "
+			+ "$cursor: String, $commentCursor: String) { repository(owner: $owner, name: $name) { issues(first: "
+			+ PAGE_SIZE + ", after: $cursor, filterBy: {since: $since}, orderBy: {field: UPDATED_AT, direction: ASC})"
+			+ " { pageInfo { hasNextPage endCursor } nodes { id databaseId number state title body createdAt"
+			+ " closedAt updatedAt labels(first: " + PAGE_SIZE + ") { nodes { name } } " + COMMENTS + " } } } }";
+
+	private static final String COMMENTS_QUERY = "query($id: ID!, $commentCursor: String) { node(id: $id) {"
+			+ " ... on Issue { " + COMMENTS + " } } }";
+
+	private final GitHubClient client;
+	private final String endpoint;
+
+	public GraphQLIssueCrawler() throws IOException {
+		this(new NLPClassifier(), GitHubClient.getDefault(), DEFAULT_ENDPOINT);
+	}
+
+	/**
+	 * Creates a crawler sending its queries to an endpoint
+	 *
+	 * @param classifier The classifier of issues without a bug or request label
+	 * @param client     The client
+	 * @param endpoint   The URL of the GraphQL endpoint
+	 */
+	public GraphQLIssueCrawler(final Classifier classifier, final GitHubClient client, final String endpoint) {
+		super(classifier, client);
+		this.client = client;
+		this.endpoint = endpoint;
+	}
+
+	/**
+	 * Queries the issues updated since a date
+	 *
+	 * @param vendor  The vendor of the project
+	 * @param product The name of the project
+	 * @param since   An ISO 8601 date or timestamp
+	 * @return The classified issues ordered by their update time
+	 * @throws IOException If a query fails
+	 */
+	@Override
+	protected List<Issue> crawlIssues(final String vendor, final String product, final String since)
+			throws IOException {
+		final var variables = new JsonObject();
+		variables.addProperty("owner", vendor);
+		variables.addProperty("name", product);
+		// the API expects a timestamp
+		variables.addProperty("since", since.contains("T") ? since : since + "T00:00:00Z");
+		final List<Issue> issues = new ArrayList<>();
+		String cursor = null;
+		var page = 1;
+		while (true) {
+			variables.addProperty("cursor", cursor);
+			final var repository = this.query(ISSUES_QUERY, variables).get("repository");
+			if ((repository == null) || repository.isJsonNull()) {
+				throw new IOException("Cannot find the repository " + vendor + '/' + product);
+			}
+			final var connection = repository.getAsJsonObject().getAsJsonObject("issues");
+			for (final JsonElement node : connection.getAsJsonArray("nodes")) {
+				final var issueJsonObject = node.getAsJsonObject();
+				final var issue = this.createIssue(vendor, product, issueJsonObject);
+				this.classify(issue);
+				this.trackUpdate(issueJsonObject.get("updatedAt").getAsString());
+				issues.add(issue);
+			}
+			LOGGER.info("received page " + page++ + ", " + issues.size() + " issues");
+			final var pageInfo = connection.getAsJsonObject("pageInfo");
+			if (!pageInfo.get("hasNextPage").getAsBoolean()) {
+				break;
+			}
+			cursor = pageInfo.get("endCursor").getAsString();
+		}
+		return issues;
+	}
+
+	private Issue createIssue(final String vendor, final String product, final JsonObject issueJsonObject)
+			throws IOException {
+		final var issue = new Issue();
+		final var number = issueJsonObject.get("number").getAsInt();
+		// same ID and URL as the REST API, so that both crawlers can share a store
+		issue.setId(issueJsonObject.get("databaseId").getAsString());
+		issue.setUrl("https://api.github.com/repos/" + vendor + "/" + product + "/issues/" + number);
+		issue.setNumber(number);
+		issue.setCreationDate(this.parseDate(issueJsonObject.get("createdAt").getAsString()));
+		if ("CLOSED".equals(issueJsonObject.get("state").getAsString())) {
+			issue.setClosed(true);
+			issue.setClosingDate(this.parseDate(issueJsonObject.get("closedAt").getAsString()));
+		}
+		issue.setTitle(issueJsonObject.get("title").getAsString());
+		issue.setBody(issueJsonObject.get("body").getAsString());
+		for (final JsonElement label : issueJsonObject.getAsJsonObject("labels").getAsJsonArray("nodes")) {
+			issue.addLabel(label.getAsJsonObject().get("name").getAsString().toLowerCase());
+		}
+		var comments = issueJsonObject.getAsJsonObject("comments");
+		while (true) {
+			for (final JsonElement comment : comments.getAsJsonArray("nodes")) {
+				issue.addComment(comment.getAsJsonObject().get("body").getAsString());
+			}
+			final var pageInfo = comments.getAsJsonObject("pageInfo");
+			if (!pageInfo.get("hasNextPage").getAsBoolean()) {
+				break;
+			}
+			final var variables = new JsonObject();
+			variables.addProperty("id", issueJsonObject.get("id").getAsString());
+			variables.addProperty("commentCursor", pageInfo.get("endCursor").getAsString());
+			comments = this.query(COMMENTS_QUERY, variables).getAsJsonObject("node").getAsJsonObject("comments");
+		}
+		return issue;
+	}
+
+	private JsonObject query(final String query, final JsonObject variables) throws IOException {
+		final var body = new JsonObject();
+		body.addProperty("query", query);
+		body.add("variables", variables);
+		final var response = this.client.postJson(this.endpoint, body).getAsJsonObject();
+		if (response.has("errors")) {
+			throw new IOException("GraphQL query failed: " + response.get("errors"));
+		}
+		return response.getAsJsonObject("data");
+	}
+}
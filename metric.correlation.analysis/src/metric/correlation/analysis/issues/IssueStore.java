@@ -0,0 +1,224 @@
+package metric.correlation.analysis.issues;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import metric.correlation.analysis.issues.Issue.IssueType;
+
+/**
+ * A persistent store of the crawled issues of a repository. The store records
+ * since which date all issues have been crawled and the newest update time
+ * seen, so that later crawls only have to request the issues updated
+ * afterwards.
+ */
+public class IssueStore {
+
+	private static final Logger LOGGER = Logger.getLogger(IssueStore.class);
+
+	/**
+	 * The default folder of the stores
+	 */
+	public static final File DEFAULT_FOLDER = new File("issues");
+
+	/**
+	 * The time after which a store is refreshed again
+	 */
+	public static final Duration REFRESH_INTERVAL = Duration.ofHours(1);
+
+	private final File file;
+	private final Map<String, Issue> issues = new LinkedHashMap<>();
+	private LocalDate coveredSince;
+	private String newestUpdate;
+	private Instant lastRefresh;
+
+	/**
+	 * Opens the store of a repository, existing contents are loaded
+	 *
+	 * @param folder  The folder of the stores
+	 * @param vendor  The vendor of the repository
+	 * @param product The name of the repository
+	 * @throws IOException If the existing store cannot be read
+	 */
+	public IssueStore(final File folder, final String vendor, final String product) throws IOException {
+		this.file = new File(new File(folder, vendor), product + ".json");
+		if (this.file.exists()) {
+			load();
+		}
+	}
+
+	/**
+	 * Checks if all issues updated since a date are contained
+	 *
+	 * @param since The date
+	 * @return true, iff the store has been filled since the date or earlier
+	 */
+	public boolean covers(final LocalDate since) {
+		return (this.coveredSince != null) && !this.coveredSince.isAfter(since);
+	}
+
+	/**
+	 * Checks if the last refresh is older than {@link #REFRESH_INTERVAL}
+	 *
+	 * @return true, iff the store should be refreshed
+	 */
+	public boolean needsRefresh() {
+		return (this.lastRefresh == null) || this.lastRefresh.plus(REFRESH_INTERVAL).isBefore(Instant.now());
+	}
+
+	/**
+	 * A getter for the newest update time of an issue in the store
+	 *
+	 * @return The ISO 8601 timestamp or null, if the store is empty
+	 */
+	public String getNewestUpdate() {
+		return this.newestUpdate;
+	}
+
+	/**
+	 * A getter for the date since which all issues are contained
+	 *
+	 * @return The date or null, if the store hasn't been filled
+	 */
+	public LocalDate getCoveredSince() {
+		return this.coveredSince;
+	}
+
+	/**
+	 * Merges crawled issues into the store, issues with the same ID are replaced
+	 *
+	 * @param crawled      The crawled issues
+	 * @param newestUpdate The newest update time of the crawled issues or null
+	 * @param since        The date since which the issues have been crawled or
+	 *                     null, if the crawl only refreshed the store
+	 */
+	public void merge(final Collection<Issue> crawled, final String newestUpdate, final LocalDate since) {
+		for (final Issue issue : crawled) {
+			this.issues.put(issue.getId(), issue);
+		}
+		// ISO 8601 timestamps in UTC are ordered lexicographically
+		if ((newestUpdate != null) && ((this.newestUpdate == null) || (newestUpdate.compareTo(this.newestUpdate) > 0))) {
+			this.newestUpdate = newestUpdate;
+		}
+		if ((since != null) && ((this.coveredSince == null) || since.isBefore(this.coveredSince))) {
+			this.coveredSince = since;
+		}
+		this.lastRefresh = Instant.now();
+	}
+
+	/**
+	 * A getter for the stored issues
+	 *
+	 * @return The issues in the order they have been added
+	 */
+	public List<Issue> getIssues() {
+		return new ArrayList<>(this.issues.values());
+	}
+
+	/**
+	 * Writes the store to disk
+	 *
+	 * @throws IOException If the store cannot be written
+	 */
+	public void save() throws IOException {
+		final var json = new JsonObject();
+		if (this.coveredSince != null) {
+			json.addProperty("coveredSince", this.coveredSince.toString());
+		}
+		json.addProperty("newestUpdate", this.newestUpdate);
+		if (this.lastRefresh != null) {
+			json.addProperty("lastRefresh", this.lastRefresh.toString());
+		}
+		final var gson = new Gson();
+		final var array = new JsonArray();
+		for (final Issue issue : this.issues.values()) {
+			array.add(gson.toJsonTree(issue.asMap()));
+		}
+		json.add("issues", array);
+		this.file.getParentFile().mkdirs();
+		final var tmp = File.createTempFile(this.file.getName(), ".tmp", this.file.getParentFile());
+		try (Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+			gson.toJson(json, writer);
+		}
+		Files.move(tmp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private void load() throws IOException {
+		try (Reader reader = Files.newBufferedReader(this.file.toPath(), StandardCharsets.UTF_8)) {
+			final var json = new JsonParser().parse(reader).getAsJsonObject();
+			if (json.has("coveredSince")) {
+				this.coveredSince = LocalDate.parse(json.get("coveredSince").getAsString());
+			}
+			if (json.has("newestUpdate") && !json.get("newestUpdate").isJsonNull()) {
+				this.newestUpdate = json.get("newestUpdate").getAsString();
+			}
+			if (json.has("lastRefresh")) {
+				this.lastRefresh = Instant.parse(json.get("lastRefresh").getAsString());
+			}
+			for (final JsonElement element : json.get("issues").getAsJsonArray()) {
+				final var issue = toIssue(element.getAsJsonObject());
+				this.issues.put(issue.getId(), issue);
+			}
+		} catch (final JsonParseException | IllegalStateException e) {
+			throw new IOException("Invalid issue store " + this.file, e);
+		}
+		LOGGER.log(Level.INFO, "Loaded " + this.issues.size() + " issues from " + this.file);
+	}
+
+	private static Issue toIssue(final JsonObject json) {
+		final var issue = new Issue();
+		issue.setUrl(getString(json, "url"));
+		issue.setId(getString(json, "id"));
+		issue.setNumber(json.get("number").getAsInt());
+		issue.setTitle(getString(json, "title"));
+		issue.setBody(getString(json, "body"));
+		issue.setClosed(json.get("closed").getAsBoolean());
+		issue.setCreationDate(LocalDate.parse(json.get("creationDate").getAsString()));
+		final var closingDate = getString(json, "closingDate");
+		if (closingDate != null) {
+			issue.setClosingDate(LocalDate.parse(closingDate));
+		}
+		final var type = getString(json, "type");
+		if (type != null) {
+			issue.setType(IssueType.valueOf(type));
+		}
+		for (final JsonElement label : json.get("labels").getAsJsonArray()) {
+			issue.addLabel(label.getAsString());
+		}
+		for (final JsonElement comment : json.get("comments").getAsJsonArray()) {
+			issue.addComment(comment.getAsString());
+		}
+		for (final JsonElement commit : json.get("commits").getAsJsonArray()) {
+			issue.addCommit(commit.getAsString());
+		}
+		return issue;
+	}
+
+	private static String getString(final JsonObject json, final String key) {
+		final var value = json.get(key);
+		return (value == null) || value.isJsonNull() ? null : value.getAsString();
+	}
+}
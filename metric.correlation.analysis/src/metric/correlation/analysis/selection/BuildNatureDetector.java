@@ -0,0 +1,226 @@
+package metric.correlation.analysis.selection;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import metric.correlation.analysis.io.GitHubClient;
+
+/**
+ * Detects if repositories have a supported build nature, i.e., one of the build
+ * files of the {@link FileBasedGithubprojectSelector}s in the root directory of
+ * their default branch. The root directories of {@value #BATCH_SIZE}
+ * repositories are requested with a single GraphQL query using one alias per
+ * repository. Verdicts resolved by the query are cached in a local file. If the
+ * query fails, e.g., without an OAuth token, or reports an error for a
+ * repository, e.g., a timeout, the selectors are asked instead. Their verdicts
+ * aren't cached, as a selector also rejects a repository if its request fails,
+ * so that the repositories are queried again by the next run. The detector may
+ * be used by several threads.
+ */
+public class BuildNatureDetector {
+
+	private static final Logger LOGGER = Logger.getLogger(BuildNatureDetector.class);
+
+	/**
+	 * The default file of the cached verdicts
+	 */
+	public static final File DEFAULT_CACHE = new File("build-nature.properties");
+
+	/**
+	 * The number of repositories per query
+	 */
+	public static final int BATCH_SIZE = 50;
+
+	private final List<FileBasedGithubprojectSelector> selectors;
+	private final Set<String> fileNames = new HashSet<>();
+	private final GitHubClient client;
+	private final String endpoint;
+	private final File cacheFile;
+	private final Properties verdicts = new Properties();
+
+	/**
+	 * Creates a detector using the default client and cache
+	 *
+	 * @param selectors The selectors of the supported build natures
+	 */
+	public BuildNatureDetector(final List<FileBasedGithubprojectSelector> selectors) {
+		this(selectors, GitHubClient.getDefault(), GitHubClient.GRAPHQL_ENDPOINT, DEFAULT_CACHE);
+	}
+
+	/**
+	 * Creates a detector
+	 *
+	 * @param selectors The selectors of the supported build natures
+	 * @param client    The client for the queries
+	 * @param endpoint  The URL of the GraphQL endpoint
+	 * @param cacheFile The file of the cached verdicts or null, if verdicts
+	 *                  shouldn't be persisted
+	 */
+	public BuildNatureDetector(final List<FileBasedGithubprojectSelector> selectors, final GitHubClient client,
+			final String endpoint, final File cacheFile) {
+		this.selectors = selectors;
+		for (final FileBasedGithubprojectSelector selector : selectors) {
+			this.fileNames.add(selector.getFileName());
+		}
+		this.client = client;
+		this.endpoint = endpoint;
+		this.cacheFile = cacheFile;
+		if ((cacheFile != null) && cacheFile.exists()) {
+			try (Reader reader = Files.newBufferedReader(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+				this.verdicts.load(reader);
+			} catch (final IOException e) {
+				LOGGER.log(Level.WARN, "Cannot read cached build natures " + cacheFile, e);
+			}
+		}
+	}
+
+	/**
+	 * Detects which repositories have a supported build nature
+	 *
+	 * @param repositories The full names (owner/name) of the repositories
+	 * @return The verdicts by the full names
+	 */
+	public Map<String, Boolean> detect(final Collection<String> repositories) {
+		final Map<String, Boolean> result = new LinkedHashMap<>();
+		final List<String> unknown = new ArrayList<>();
+		for (final String repository : repositories) {
+			final var verdict = this.verdicts.getProperty(repository);
+			if (verdict == null) {
+				unknown.add(repository);
+			} else {
+				result.put(repository, Boolean.valueOf(verdict));
+			}
+		}
+		boolean resolved = false;
+		for (int start = 0; start < unknown.size(); start += BATCH_SIZE) {
+			final var batch = unknown.subList(start, Math.min(start + BATCH_SIZE, unknown.size()));
+			Map<String, Boolean> detected;
+			try {
+				detected = query(batch);
+			} catch (final IOException e) {
+				LOGGER.log(Level.WARN, "Cannot query build natures, asking the selectors", e);
+				detected = Collections.emptyMap();
+			}
+			for (final Map.Entry<String, Boolean> entry : detected.entrySet()) {
+				this.verdicts.setProperty(entry.getKey(), entry.getValue().toString());
+			}
+			result.putAll(detected);
+			resolved |= !detected.isEmpty();
+			for (final String repository : batch) {
+				if (!detected.containsKey(repository)) {
+					result.put(repository, accept(repository));
+				}
+			}
+		}
+		if (resolved) {
+			save();
+		}
+		return result;
+	}
+
+	private boolean accept(final String repository) {
+		for (final FileBasedGithubprojectSelector selector : this.selectors) {
+			if (selector.accept(repository, GitHubProjectSelector.OAuthToken)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Requests the root directories of the default branches, "HEAD:" resolves to
+	 * the root tree of the default branch. Repositories which couldn't be resolved
+	 * are missing in the result.
+	 */
+	private Map<String, Boolean> query(final List<String> repositories) throws IOException {
+		final var query = new StringBuilder("query {");
+		for (int i = 0; i < repositories.size(); i++) {
+			final var name = repositories.get(i).split("/", 2);
+			if (name.length != 2) {
+				throw new IllegalArgumentException("Not a full repository name: " + repositories.get(i));
+			}
+			query.append(" r").append(i).append(": repository(owner: ").append(new JsonPrimitive(name[0]))
+					.append(", name: ").append(new JsonPrimitive(name[1]))
+					.append(") { object(expression: \"HEAD:\") { ... on Tree { entries { name } } } }");
+		}
+		query.append(" }");
+		final var body = new JsonObject();
+		body.addProperty("query", query.toString());
+		final var response = this.client.postJson(this.endpoint, body).getAsJsonObject();
+		final var data = response.get("data");
+		if ((data == null) || data.isJsonNull()) {
+			throw new IOException("GraphQL query failed: " + response.get("errors"));
+		}
+		// failed aliases, e.g., missing repositories or timeouts, are reported as
+		// errors besides the data
+		final Set<String> failed = new HashSet<>();
+		final var errors = response.get("errors");
+		if ((errors != null) && errors.isJsonArray()) {
+			for (final JsonElement error : errors.getAsJsonArray()) {
+				final var path = error.getAsJsonObject().get("path");
+				if ((path != null) && path.isJsonArray() && (path.getAsJsonArray().size() > 0)) {
+					failed.add(path.getAsJsonArray().get(0).getAsString());
+				}
+			}
+		}
+		final Map<String, Boolean> result = new LinkedHashMap<>();
+		for (int i = 0; i < repositories.size(); i++) {
+			final var repository = data.getAsJsonObject().get("r" + i);
+			if (!failed.contains("r" + i) && (repository != null) && !repository.isJsonNull()) {
+				result.put(repositories.get(i), hasBuildFile(repository));
+			}
+		}
+		return result;
+	}
+
+	private boolean hasBuildFile(final JsonElement repository) {
+		final var tree = repository.getAsJsonObject().get("object");
+		if ((tree == null) || tree.isJsonNull()) {
+			return false; // empty repository
+		}
+		for (final JsonElement entry : tree.getAsJsonObject().getAsJsonArray("entries")) {
+			if (this.fileNames.contains(entry.getAsJsonObject().get("name").getAsString())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private synchronized void save() {
+		if (this.cacheFile == null) {
+			return;
+		}
+		try {
+			final var tmp = File.createTempFile(this.cacheFile.getName(), ".tmp",
+					this.cacheFile.getAbsoluteFile().getParentFile());
+			try (Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+				this.verdicts.store(writer, "Build natures of GitHub repositories");
+			}
+			Files.move(tmp.toPath(), this.cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException e) {
+			LOGGER.log(Level.WARN, "Cannot cache build natures " + this.cacheFile, e);
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package metric.correlation.analysis.selection;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * The progress of a sharded repository discovery. For every shard either the
+ * next page to request, {@link #DONE} or {@link #SPLIT} is stored, so that a
+ * restarted discovery continues each shard where it stopped. The file is
+ * replaced atomically after every change.
+ */
+public class DiscoveryCheckpoint {
+
+	/**
+	 * The state of a shard whose pages have all been processed
+	 */
+	public static final String DONE = "done";
+
+	/**
+	 * The state of a shard which has been divided, because it exceeded the
+	 * result limit of the search API
+	 */
+	public static final String SPLIT = "split";
+
+	private final File file;
+	private final Properties states = new Properties();
+
+	/**
+	 * Loads the checkpoint from a file, if it exists
+	 *
+	 * @param file The file
+	 * @throws IOException If the file cannot be read
+	 */
+	public DiscoveryCheckpoint(final File file) throws IOException {
+		this.file = file;
+		if (file.exists()) {
+			try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+				this.states.load(reader);
+			}
+		}
+	}
+
+	/**
+	 * Returns the state of a shard
+	 *
+	 * @param shard The key of the shard
+	 * @return The next page, {@link #DONE}, {@link #SPLIT} or null, if the shard
+	 *         hasn't been started
+	 */
+	public synchronized String get(final String shard) {
+		return this.states.getProperty(shard);
+	}
+
+	/**
+	 * Stores the state of a shard
+	 *
+	 * @param shard The key of the shard
+	 * @param state The next page, {@link #DONE} or {@link #SPLIT}
+	 * @throws IOException If the checkpoint cannot be written
+	 */
+	public synchronized void put(final String shard, final String state) throws IOException {
+		this.states.setProperty(shard, state);
+		save();
+	}
+
+	/**
+	 * Forgets the state of a shard, so that it is requested again from the first
+	 * page
+	 *
+	 * @param shard The key of the shard
+	 * @throws IOException If the checkpoint cannot be written
+	 */
+	public synchronized void remove(final String shard) throws IOException {
+		if (this.states.remove(shard) != null) {
+			save();
+		}
+	}
+
+	private void save() throws IOException {
+		final var parent = this.file.getAbsoluteFile().getParentFile();
+		final var tmp = File.createTempFile(this.file.getName(), ".tmp", parent);
+		try (Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+			this.states.store(writer, "Repository discovery progress");
+		}
+		Files.move(tmp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,116 @@
+package metric.correlation.analysis.selection;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A range of creation times of repositories, which is searched independently
+ * of other ranges. Shards exceeding the result limit of the search API are
+ * split in halves. As the halves are computed deterministically, the keys of
+ * the shards stay the same when a discovery is restarted.
+ */
+public final class DiscoveryShard {
+
+	/**
+	 * The minimal duration of a shard, shorter shards aren't split
+	 */
+	public static final Duration MIN_DURATION = Duration.ofMinutes(1);
+
+	private final Instant from;
+	private final Instant to;
+
+	/**
+	 * Creates a new shard
+	 *
+	 * @param from The inclusive start of the range
+	 * @param to   The exclusive end of the range
+	 */
+	public DiscoveryShard(final Instant from, final Instant to) {
+		if (!from.isBefore(to)) {
+			throw new IllegalArgumentException("Empty shard: " + from + ".." + to);
+		}
+		this.from = from.truncatedTo(ChronoUnit.SECONDS);
+		this.to = to.truncatedTo(ChronoUnit.SECONDS);
+	}
+
+	/**
+	 * Divides a time range into shards of a fixed duration
+	 *
+	 * @param from     The inclusive start of the range
+	 * @param to       The exclusive end of the range
+	 * @param duration The duration of the shards, the last shard may be shorter
+	 * @return The shards
+	 */
+	public static List<DiscoveryShard> divide(final Instant from, final Instant to, final Duration duration) {
+		final List<DiscoveryShard> shards = new ArrayList<>();
+		for (var start = from; start.isBefore(to); start = start.plus(duration)) {
+			final var end = start.plus(duration);
+			shards.add(new DiscoveryShard(start, end.isBefore(to) ? end : to));
+		}
+		return shards;
+	}
+
+	/**
+	 * Checks if the shard can be split
+	 *
+	 * @return true, iff the shard is longer than twice {@link #MIN_DURATION}
+	 */
+	public boolean canSplit() {
+		return Duration.between(this.from, this.to).compareTo(MIN_DURATION.multipliedBy(2)) >= 0;
+	}
+
+	/**
+	 * Splits the shard in halves
+	 *
+	 * @return The earlier and the later half
+	 */
+	public List<DiscoveryShard> split() {
+		final var middle = this.from.plusSeconds(Duration.between(this.from, this.to).getSeconds() / 2);
+		return List.of(new DiscoveryShard(this.from, middle), new DiscoveryShard(middle, this.to));
+	}
+
+	/**
+	 * Returns the qualifier of the search API selecting the repositories of the
+	 * shard
+	 *
+	 * @return The created qualifier with an inclusive range
+	 */
+	public String getQualifier() {
+		return "created:" + this.from + ".." + this.to.minusSeconds(1);
+	}
+
+	/**
+	 * A getter for the inclusive start of the range
+	 *
+	 * @return The start
+	 */
+	public Instant getFrom() {
+		return this.from;
+	}
+
+	/**
+	 * A getter for the exclusive end of the range
+	 *
+	 * @return The end
+	 */
+	public Instant getTo() {
+		return this.to;
+	}
+
+	/**
+	 * Returns the key of the shard in a {@link DiscoveryCheckpoint}
+	 *
+	 * @return The key
+	 */
+	public String getKey() {
+		return this.from + "/" + this.to;
+	}
+
+	@Override
+	public String toString() {
+		return getKey();
+	}
+}
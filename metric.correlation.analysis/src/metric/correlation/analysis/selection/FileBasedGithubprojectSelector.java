@@ -1,11 +1,12 @@
 package metric.correlation.analysis.selection;
 
-import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
+import metric.correlation.analysis.io.GitHubRateLimiter;
+
 public abstract class FileBasedGithubprojectSelector implements IGithubProjectSelector {
 
 	private static final Logger LOGGER = Logger.getLogger(FileBasedGithubprojectSelector.class);
@@ -17,7 +18,17 @@ public abstract class FileBasedGithubprojectSelector implements IGithubProjectSe
 	}
 
 	/**
-	 * Tests if a repository has the specified path in its root directory
+	 * A getter for the name of the file in the root directory
+	 *
+	 * @return The file name
+	 */
+	public String getFileName() {
+		return this.fileName;
+	}
+
+	/**
+	 * Tests if a repository has the specified path in the root directory of its
+	 * default branch
 	 *
 	 * @param repositoryName the name of the repository to be tested
 	 * @param oAuthToken
@@ -26,23 +37,16 @@ public abstract class FileBasedGithubprojectSelector implements IGithubProjectSe
 	@Override
 	public boolean accept(final String repositoryName, final String oAuthToken) {
 		String searchUrl;
-		try {
-			final var httpClient = HttpClientBuilder.create().build();
-
-			searchUrl = "https://github.com/" + repositoryName + "/blob/master/" + this.fileName;
+		try (var httpClient = HttpClientBuilder.create().build()) {
+			searchUrl = "https://github.com/" + repositoryName + "/blob/HEAD/" + this.fileName;
 			final var request = new HttpGet(searchUrl);
 			request.addHeader("content-type", "application/json");
-			request.addHeader("Authorization", "Token " + GitHubProjectSelector.OAuthToken);
-
-			HttpResponse result = httpClient.execute(request);
-			while (GitHubProjectSelector.rateLimit(result)) {
-				result = httpClient.execute(request);
-			}
 
-			if (result.getStatusLine().getStatusCode() != 404) {
-				return true;
+			try (var result = GitHubRateLimiter.getDefault().execute(httpClient, request)) {
+				if (result.getStatusLine().getStatusCode() != 404) {
+					return true;
+				}
 			}
-			httpClient.close();
 		} catch (final Exception e) {
 			LOGGER.log(Level.ERROR, "Could not check if repository is a Gradle repository.");
 			LOGGER.log(Level.INFO, e.getStackTrace());
@@ -3,17 +3,26 @@ package metric.correlation.analysis.selection;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.apache.http.HttpResponse;
-import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -22,21 +31,30 @@ import org.apache.log4j.ConsoleAppender;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.apache.log4j.PatternLayout;
-import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.metrics.Avg;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 import metric.correlation.analysis.database.ElasticSearchHelper;
+import metric.correlation.analysis.io.GitHubRateLimiter;
 import metric.correlation.analysis.vulnerabilities.VulnerabilityDataQueryHandler;
+import metric.correlation.analysis.vulnerabilities.VulnerabilityQuery;
 
 /**
  * @author Antoniya Ivanova Searches via the GitHub API for usable projects for
@@ -65,14 +83,41 @@ public class GitHubProjectSelector implements Closeable {
 	private static final int MIN_STARS = 10;
 	private static final int MIN_OPEN_ISSUES = 0;
 
+	/**
+	 * The maximal number of results the search API returns for a query
+	 */
+	private static final int SEARCH_RESULT_LIMIT = 1000;
+
+	/**
+	 * The earliest creation time of searched repositories
+	 */
+	private static final Instant DISCOVERY_START = Instant.parse("2008-01-01T00:00:00Z");
+
+	/**
+	 * The initial duration of the shards of a discovery
+	 */
+	private static final Duration SHARD_DURATION = Duration.ofDays(7);
+
+	/**
+	 * The number of shards searched at the same time
+	 */
+	private static final int SHARD_THREADS = 4;
+
+	/**
+	 * The default file storing the progress of a discovery
+	 */
+	public static final File DEFAULT_DISCOVERY_CHECKPOINT = new File("discovery.checkpoint");
+
 	/**
 	 * Selectors for checking if the project has an supported build nature
 	 */
-	private static final IGithubProjectSelector[] BUILD_NATURE_SELECTORS = {
-			new GradleGithubProjectSelector(), new MavenGithubProjectSelector() };
+	private static final List<FileBasedGithubprojectSelector> BUILD_NATURE_SELECTORS = List.of(
+			new GradleGithubProjectSelector(), new MavenGithubProjectSelector());
 
 	private final RestHighLevelClient elasticClient;
 
+	private final BuildNatureDetector buildNatureDetector = new BuildNatureDetector(BUILD_NATURE_SELECTORS);
+
 	// Change this to your own OAuthToken
 	public static final String OAuthToken = System.getenv("GITHUB_OAUTH");
 
@@ -80,6 +125,22 @@ public class GitHubProjectSelector implements Closeable {
 
 	public final static String repositoryDatabaseName = "repositories_database_extended";
 
+	/**
+	 * The default number of repositories after which a bulk request is sent
+	 */
+	public static final int DEFAULT_BULK_ACTIONS = 500;
+
+	/**
+	 * The default number of bulk requests which may be executed at the same time
+	 */
+	public static final int DEFAULT_CONCURRENT_REQUESTS = 2;
+
+	private final int bulkActions;
+	private final int concurrentRequests;
+
+	private final AtomicLong indexedRepositories = new AtomicLong();
+	private final AtomicLong failedRepositories = new AtomicLong();
+
 	public static void main(final String[] args) throws IOException {
 		final var consoleAppender = new ConsoleAppender();
 		final var PATTERN = "%d - %m%n";
@@ -94,177 +155,284 @@ public class GitHubProjectSelector implements Closeable {
 	}
 
 	public GitHubProjectSelector() {
+		this(DEFAULT_BULK_ACTIONS, DEFAULT_CONCURRENT_REQUESTS);
+	}
+
+	/**
+	 * Creates a selector with custom bulk settings for indexing the repositories
+	 *
+	 * @param bulkActions        The number of repositories after which a bulk
+	 *                           request is sent
+	 * @param concurrentRequests The number of bulk requests which may be executed
+	 *                           at the same time
+	 */
+	public GitHubProjectSelector(final int bulkActions, final int concurrentRequests) {
 		INSTANCE = this;
 		this.elasticClient = ElasticSearchHelper.getElasticSearchClient();
+		this.bulkActions = bulkActions;
+		this.concurrentRequests = concurrentRequests;
 	}
 
 	/**
-	 * Searches for Java + Gradle repositories on GitHub.
+	 * Searches for Java + Gradle repositories on GitHub. The creation times since
+	 * {@link #DISCOVERY_START} are divided into weekly shards, which are searched
+	 * by {@value #SHARD_THREADS} threads. Shards with more results than the
+	 * search API returns are split. The progress of every shard is stored in
+	 * {@link #DEFAULT_DISCOVERY_CHECKPOINT} after every page, so that a restart
+	 * continues where each shard stopped. The matched repositories of all shards
+	 * are indexed by one bulk processor, which is closed at the end of the
+	 * discovery.
 	 *
-	 * @return a HashSet of {@link Repository} results, which are Java and Gradle
-	 *         projects.
+	 * @param maxProjects The maximal number of matched projects or -1
 	 */
 	public void initializeProjectElasticDatabase(final int maxProjects) {
-		var matchedProjectCount = 0;
-		var totalCnt = 0;
+		final var crawlStart = Instant.now();
+		final var shards = DiscoveryShard.divide(DISCOVERY_START,
+				crawlStart.truncatedTo(ChronoUnit.DAYS).plus(1, ChronoUnit.DAYS), SHARD_DURATION);
+		final var executor = Executors.newFixedThreadPool(SHARD_THREADS);
+		final var bulkProcessor = createBulkProcessor();
+		try (final var httpClient = HttpClientBuilder.create().setMaxConnPerRoute(SHARD_THREADS)
+				.setMaxConnTotal(SHARD_THREADS).build()) {
+			final var discovery = new Discovery(httpClient, new DiscoveryCheckpoint(DEFAULT_DISCOVERY_CHECKPOINT),
+					bulkProcessor, maxProjects, crawlStart);
+			final var completion = new ExecutorCompletionService<List<DiscoveryShard>>(executor);
+			var pending = 0;
+			for (final DiscoveryShard shard : shards) {
+				completion.submit(() -> discovery.crawl(shard));
+				pending++;
+			}
+			while (pending > 0) {
+				final var children = completion.take().get();
+				pending--;
+				for (final DiscoveryShard child : children) {
+					completion.submit(() -> discovery.crawl(child));
+					pending++;
+				}
+			}
+			LOGGER.info("Total Count : " + discovery.total);
+			LOGGER.info("Disregarded for issues: " + discovery.issueErrors);
+			LOGGER.info("Disregarded for lack of mvn/ gradle: " + discovery.acceptErrors);
+			LOGGER.info("Matched projects: " + discovery.matched);
+			LOGGER.info("Failed shards: " + discovery.failedShards);
+		} catch (final IOException | ExecutionException e) {
+			LOGGER.error(e);
+		} catch (final InterruptedException e) {
+			LOGGER.error(e);
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+			closeBulkProcessor(bulkProcessor);
+		}
+		GitHubRateLimiter.getDefault().logStatistics();
+	}
+
+	/**
+	 * The state of a discovery shared by the threads searching the shards
+	 */
+	private final class Discovery {
+
+		private final CloseableHttpClient httpClient;
+		private final DiscoveryCheckpoint checkpoint;
+		private final BulkProcessor bulkProcessor;
+		private final int maxProjects;
+		private final Instant crawlStart;
+
+		private final AtomicInteger total = new AtomicInteger();
+		private final AtomicInteger matched = new AtomicInteger();
+		private final AtomicInteger issueErrors = new AtomicInteger();
+		private final AtomicInteger acceptErrors = new AtomicInteger();
+		private final AtomicInteger failedShards = new AtomicInteger();
+
+		Discovery(final CloseableHttpClient httpClient, final DiscoveryCheckpoint checkpoint,
+				final BulkProcessor bulkProcessor, final int maxProjects, final Instant crawlStart) {
+			this.httpClient = httpClient;
+			this.checkpoint = checkpoint;
+			this.bulkProcessor = bulkProcessor;
+			this.maxProjects = maxProjects;
+			this.crawlStart = crawlStart;
+		}
 
-		var acceptError = 0;
-		var issueError = 0;
+		private boolean isLimitReached() {
+			return (this.maxProjects != -1) && (this.matched.get() >= this.maxProjects);
+		}
 
-		final var today = Calendar.getInstance();
-		var year = 2008;
-		final var status = new File(".year");
-		if (status.exists()) {
-			try {
-				year = Integer.parseInt(Files.readString(status.toPath()));
-			} catch (NumberFormatException | IOException e) {
-				LOGGER.error(e);
+		/**
+		 * Searches the repositories of a shard, starting at the stored page
+		 *
+		 * @param shard The shard
+		 * @return The halves of the shard, if it has been split
+		 */
+		List<DiscoveryShard> crawl(final DiscoveryShard shard) {
+			final var state = this.checkpoint.get(shard.getKey());
+			if (DiscoveryCheckpoint.DONE.equals(state)) {
+				return Collections.emptyList();
 			}
-		}
-		var month = 01;
-
-		try (final var httpClient = HttpClientBuilder.create().build()) {
-			// Requests per page x 100
-			var i = 1;
-			var respositoryResults = new HashSet<Repository>();
-			while (maxProjects == -1 || matchedProjectCount < maxProjects) {
-				final var jobject = this.getPage(httpClient, i, year, month);
-				final var jarray = jobject.getAsJsonArray("items");
-				if (jarray == null || jarray.size() == 0) {
-					// no further results
-					if (year == today.get(Calendar.YEAR) && month == 1 + today.get(Calendar.MONTH)) {
-						this.addDocumentsToElastic(respositoryResults);
+			if (DiscoveryCheckpoint.SPLIT.equals(state)) {
+				return shard.split();
+			}
+			try {
+				var page = state == null ? 1 : Integer.parseInt(state);
+				var incompletePage = -1; // the first page the search reported incomplete results for
+				while (!isLimitReached()) {
+					final var jobject = getPage(this.httpClient, page, shard);
+					if ((incompletePage < 0) && jobject.has("incomplete_results")
+							&& jobject.get("incomplete_results").getAsBoolean()) {
+						incompletePage = page;
+					}
+					final var totalCount = jobject.has("total_count") ? jobject.get("total_count").getAsInt() : 0;
+					if ((page == 1) && (totalCount > SEARCH_RESULT_LIMIT)) {
+						if (shard.canSplit()) {
+							LOGGER.info("Splitting shard " + shard + " with " + totalCount + " results");
+							this.checkpoint.put(shard.getKey(), DiscoveryCheckpoint.SPLIT);
+							return shard.split();
+						}
+						LOGGER.warn("Only the first " + SEARCH_RESULT_LIMIT + " of " + totalCount
+								+ " results of shard " + shard + " can be requested");
+					}
+					final var jarray = jobject.getAsJsonArray("items");
+					if (jarray.size() == 0) {
 						break;
 					}
-					if (month == 12) {
-						year++;
-						this.addDocumentsToElastic(respositoryResults);
-						respositoryResults = new HashSet<>();
-						Files.write(status.toPath(), Integer.toString(year).getBytes());
-						month = 01;
-					} else {
-						month++;
+					processPage(jarray, shard, page);
+					if ((jarray.size() < RESULTS_PER_PAGE)
+							|| ((page * RESULTS_PER_PAGE) >= Math.min(totalCount, SEARCH_RESULT_LIMIT))) {
+						break;
 					}
-					i = 1;
-//					try {
-//						Thread.sleep(1500);
-//					} catch (final InterruptedException e) {
-//						LOGGER.error(e);
-//						Thread.currentThread().interrupt();
-//					}
-					continue;
+					page++;
+					this.checkpoint.put(shard.getKey(), Integer.toString(page));
 				}
+				if (isLimitReached()) {
+					return Collections.emptyList();
+				}
+				if (incompletePage > 0) {
+					// the search timed out, repeat the shard from the first incomplete page
+					this.checkpoint.put(shard.getKey(), Integer.toString(incompletePage));
+					this.failedShards.incrementAndGet();
+					LOGGER.log(Level.WARN, "Incomplete results for shard " + shard + " since page " + incompletePage);
+				} else if (shard.getTo().isAfter(this.crawlStart)) {
+					// repositories may still be created in this shard
+					this.checkpoint.remove(shard.getKey());
+				} else {
+					this.checkpoint.put(shard.getKey(), DiscoveryCheckpoint.DONE);
+				}
+			} catch (final IOException | RuntimeException e) {
+				this.failedShards.incrementAndGet();
+				LOGGER.log(Level.ERROR, "Could not search shard " + shard, e);
+			}
+			return Collections.emptyList();
+		}
 
-				for (var j = 0; (j < jarray.size()) && (maxProjects == -1 || matchedProjectCount < maxProjects); j++) {
-					totalCnt++;
-					final var jo = (JsonObject) jarray.get(j);
-					final var fullName = jo.get("full_name").toString().replace("\"", "");
+		private void processPage(final JsonArray jarray, final DiscoveryShard shard, final int page) {
+			// detect the build natures of the whole page at once
+			final List<String> fullNames = new ArrayList<>(jarray.size());
+			for (final JsonElement item : jarray) {
+				fullNames.add(item.getAsJsonObject().get("full_name").getAsString());
+			}
+			final var buildNatures = GitHubProjectSelector.this.buildNatureDetector.detect(fullNames);
 
-					final var stars = Integer.parseInt(jo.get("stargazers_count").toString());
+			final var respositoryResults = new HashSet<Repository>();
+			for (var j = 0; (j < jarray.size()) && !isLimitReached(); j++) {
+				final var totalCnt = this.total.incrementAndGet();
+				final var jo = (JsonObject) jarray.get(j);
+				final var fullName = jo.get("full_name").toString().replace("\"", "");
 
-					final var openIssues = Integer.parseInt(jo.get("open_issues").toString());
-					if (openIssues < MIN_OPEN_ISSUES) {
-						issueError++;
-						continue;
-					}
-					var accept = false;
-					for (final IGithubProjectSelector b : BUILD_NATURE_SELECTORS) {
-						accept |= b.accept(fullName, OAuthToken);
-					}
-					if (accept) {
-						matchedProjectCount++;
-						LOGGER.log(Level.INFO,
-								totalCnt + " MATCH " + fullName + " (" + matchedProjectCount + " projects)"
-										+ " -- repo " + (j + 1) + " page " + i);
-						final var url = jo.get("html_url").toString().replace("\"", "");
-						final var product = jo.get("name").toString().replace("\"", "");
-
-						final var owner = (JsonObject) jo.get("owner");
-						final var vendor = owner.get("login").toString().replace("\"", "");
-
-						respositoryResults.add(new Repository(url, vendor, product, stars, openIssues));
-					} else {
-						acceptError++;
-						LOGGER.error(totalCnt + " NO MATCH " + fullName + " -- repo " + (j + 1) + " page " + i);
-					}
+				final var stars = Integer.parseInt(jo.get("stargazers_count").toString());
+
+				final var openIssues = Integer.parseInt(jo.get("open_issues").toString());
+				if (openIssues < MIN_OPEN_ISSUES) {
+					this.issueErrors.incrementAndGet();
+					continue;
 				}
-				if ((maxProjects > 0 && matchedProjectCount >= maxProjects) || (jarray.size() == 0)) {
-					this.addDocumentsToElastic(respositoryResults);
-					break;
+				if (buildNatures.getOrDefault(fullName, false)) {
+					final var matchedProjectCount = this.matched.incrementAndGet();
+					LOGGER.log(Level.INFO, totalCnt + " MATCH " + fullName + " (" + matchedProjectCount + " projects)"
+							+ " -- repo " + (j + 1) + " page " + page + " shard " + shard);
+					final var url = jo.get("html_url").toString().replace("\"", "");
+					final var product = jo.get("name").toString().replace("\"", "");
+
+					final var owner = (JsonObject) jo.get("owner");
+					final var vendor = owner.get("login").toString().replace("\"", "");
+
+					respositoryResults.add(new Repository(url, vendor, product, stars, openIssues));
+				} else {
+					this.acceptErrors.incrementAndGet();
+					LOGGER.error(totalCnt + " NO MATCH " + fullName + " -- repo " + (j + 1) + " page " + page
+							+ " shard " + shard);
 				}
-				i++;
 			}
-		} catch (final IOException e) {
-			LOGGER.error(e);
+			if (!respositoryResults.isEmpty()) {
+				addDocumentsToElastic(this.bulkProcessor, respositoryResults);
+			}
 		}
-		LOGGER.info("Total Count : " + totalCnt);
-		LOGGER.info("Disregarded for issues: " + issueError);
-		LOGGER.info("Disregarded for lack of mvn/ gradle: " + acceptError);
-		LOGGER.info("Matched projects: " + matchedProjectCount);
 	}
 
-	private JsonObject getPage(final CloseableHttpClient httpClient, final int page, final int year, final int month)
-			throws IOException, ClientProtocolException {
-		final var url = "https://api.github.com/search/repositories?q=language%3Ajava"
-				+ "+created%3A" + year + "-" + String.format("%02d", month)
-				+ "+size%3A%3E" + MIN_SIZE
-				+ "+stars%3A%3E" + MIN_STARS
+	private JsonObject getPage(final CloseableHttpClient httpClient, final int page, final DiscoveryShard shard)
+			throws IOException {
+		final var query = "language:java " + shard.getQualifier() + " size:>" + MIN_SIZE + " stars:>" + MIN_STARS;
+		final var url = "https://api.github.com/search/repositories?q="
+				+ URLEncoder.encode(query, StandardCharsets.UTF_8)
 				+ "&page=" + page
 				+ "&per_page=" + RESULTS_PER_PAGE;
-		System.out.println("GET " + url);
+		LOGGER.log(Level.DEBUG, "GET " + url);
 		final var request = new HttpGet(url);
 		request.addHeader("content-type", "application/json");
-		request.addHeader("Authorization", "Token " + OAuthToken);
 
-		try {
-			Thread.sleep(50);
-		} catch (final InterruptedException e) {
-			LOGGER.error(e);
-			Thread.currentThread().interrupt();
-		}
-		HttpResponse result = httpClient.execute(request);
-		while (GitHubProjectSelector.rateLimit(result)) {
-			System.out.println("retry");
-			result = httpClient.execute(request);
+		try (var result = GitHubRateLimiter.getDefault().execute(httpClient, request)) {
+			final var string = EntityUtils.toString(result.getEntity(), "UTF-8");
+			if (result.getStatusLine().getStatusCode() != 200) {
+				throw new IOException("Search of shard " + shard + " failed: " + result.getStatusLine() + " " + string);
+			}
+			final var jobject = new JsonParser().parse(string).getAsJsonObject();
+			if (!jobject.has("items") || !jobject.get("items").isJsonArray()) {
+				throw new IOException("Search of shard " + shard + " returned no items: " + string);
+			}
+			return jobject;
 		}
-
-		final var string = EntityUtils.toString(result.getEntity(), "UTF-8");
-		return new JsonParser().parse(string).getAsJsonObject();
 	}
 
-	public static boolean rateLimit(final HttpResponse result) {
-		if (result.getStatusLine().getStatusCode() == 403) {
-			final var xRatelimitReset = Instant
-					.ofEpochSecond(Long.parseLong(result.getFirstHeader("x-ratelimit-reset").getValue()))
-					.toEpochMilli();
-			final var now = Instant.now().toEpochMilli();
-			var sleep = xRatelimitReset - now + 1000;
-			if (sleep <= 0) {
-				sleep = 1000;
-			}
+	/**
+	 * Creates the bulk processor indexing the repositories of a discovery
+	 *
+	 * @return The bulk processor, which has to be closed with
+	 *         {@link #closeBulkProcessor(BulkProcessor)}
+	 */
+	private BulkProcessor createBulkProcessor() {
+		return BulkProcessor
+				.builder((request, listener) -> this.elasticClient.bulkAsync(request, RequestOptions.DEFAULT, listener),
+						new BulkListener(), "repository-index")
+				.setBulkActions(this.bulkActions).setConcurrentRequests(this.concurrentRequests)
+				.setBulkSize(new ByteSizeValue(-1)).setBackoffPolicy(BackoffPolicy.exponentialBackoff()).build();
+	}
 
-			LOGGER.info("Rate limit: Sleep for " + (sleep / 1000) + "s until " + new Date(xRatelimitReset)
-					+ " + 1s");
-			try {
-				Thread.sleep(sleep);
-			} catch (final InterruptedException e) {
-				LOGGER.error(e);
-				Thread.currentThread().interrupt();
+	/**
+	 * Sends the pending repositories and waits for all bulk requests
+	 *
+	 * @param bulkProcessor The bulk processor
+	 */
+	private void closeBulkProcessor(final BulkProcessor bulkProcessor) {
+		try {
+			if (!bulkProcessor.awaitClose(10, TimeUnit.MINUTES)) {
+				LOGGER.log(Level.ERROR, "Timeout while waiting for the bulk requests");
 			}
-			return true;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.log(Level.ERROR, "Interrupted while waiting for the bulk requests", e);
 		}
-		return false;
+		LOGGER.log(Level.INFO, "Indexed repositories: " + this.indexedRepositories.get() + ", failed: "
+				+ this.failedRepositories.get());
 	}
 
 	/**
-	 * Adds the found repositories to an Elasticsearch DB.
+	 * Adds the found repositories to an Elasticsearch DB. The ID of a document is
+	 * the full name of its repository, so that repositories found again are
+	 * updated instead of being duplicated. The documents are sent as soon as the
+	 * bulk processor has collected enough repositories.
 	 *
+	 * @param bulkProcessor   The bulk processor of the discovery
 	 * @param repositoriesSet repositories to be added to the Elasticsearch database
 	 *                        (index).
 	 */
-	private void addDocumentsToElastic(final Set<Repository> repositoriesSet) {
-		final var repositories = new ArrayList<HashMap<String, Object>>();
-
+	private void addDocumentsToElastic(final BulkProcessor bulkProcessor, final Set<Repository> repositoriesSet) {
 		// Build the repository document
 		for (final Repository repositoryResult : repositoriesSet) {
 			final var repository = new HashMap<String, Object>();
@@ -273,23 +441,74 @@ public class GitHubProjectSelector implements Closeable {
 			repository.put(STARS, repositoryResult.getStars());
 			repository.put(URL, repositoryResult.getUrl());
 			repository.put(OPEN_ISSUES, repositoryResult.getOpenIssues());
-			repositories.add(repository);
+			bulkProcessor.add(new UpdateRequest(repositoryDatabaseName, getDocumentID(repositoryResult))
+					.doc(repository).docAsUpsert(true));
 		}
 
-		IndexRequest indexRequest = null;
+		LOGGER.log(Level.INFO, "Inserting " + repositoriesSet.size() + " documents into index.");
+	}
 
-		for (final var iterator = (repositories).iterator(); iterator.hasNext();) {
-			indexRequest = new IndexRequest(repositoryDatabaseName, "_doc").source(iterator.next());
+	/**
+	 * Returns the ID of the document of a repository
+	 *
+	 * @param repository The repository
+	 * @return The full name of the repository
+	 */
+	static String getDocumentID(final Repository repository) {
+		return repository.getVendor() + '/' + repository.getProduct();
+	}
 
-			try {
-				this.elasticClient.index(indexRequest, RequestOptions.DEFAULT);
-			} catch (final Exception e) {
-				LOGGER.log(Level.ERROR, "Could not index document " + iterator.toString());
-				LOGGER.log(Level.ERROR, e.getMessage(), e);
+	/**
+	 * A getter for the number of repositories which have been indexed
+	 *
+	 * @return The number of indexed repositories
+	 */
+	public long getIndexedRepositoryCount() {
+		return this.indexedRepositories.get();
+	}
+
+	/**
+	 * A getter for the number of repositories which couldn't be indexed
+	 *
+	 * @return The number of failed repositories
+	 */
+	public long getFailedRepositoryCount() {
+		return this.failedRepositories.get();
+	}
+
+	/**
+	 * Accounts the results of the bulk requests
+	 */
+	private class BulkListener implements BulkProcessor.Listener {
+
+		@Override
+		public void beforeBulk(final long executionId, final BulkRequest request) {
+			LOGGER.log(Level.DEBUG,
+					"Send bulk " + executionId + " with " + request.numberOfActions() + " repositories");
+		}
+
+		@Override
+		public void afterBulk(final long executionId, final BulkRequest request, final BulkResponse response) {
+			var failed = 0;
+			for (final var item : response.getItems()) {
+				if (item.isFailed()) {
+					failed++;
+				}
+			}
+			if (response.hasFailures()) {
+				LOGGER.log(Level.ERROR, "Bulk " + executionId + ": " + failed + " of " + request.numberOfActions()
+						+ " repositories failed: " + response.buildFailureMessage());
 			}
+			GitHubProjectSelector.this.failedRepositories.addAndGet(failed);
+			GitHubProjectSelector.this.indexedRepositories.addAndGet(request.numberOfActions() - failed);
 		}
 
-		LOGGER.log(Level.INFO, "Inserting " + repositories.size() + " documents into index.");
+		@Override
+		public void afterBulk(final long executionId, final BulkRequest request, final Throwable failure) {
+			GitHubProjectSelector.this.failedRepositories.addAndGet(request.numberOfActions());
+			LOGGER.log(Level.ERROR,
+					"Bulk " + executionId + " with " + request.numberOfActions() + " repositories failed", failure);
+		}
 	}
 
 	/**
@@ -320,17 +539,12 @@ public class GitHubProjectSelector implements Closeable {
 			final var repositoryHits = searchResponse.getHits();
 			final var repositorySearchHits = repositoryHits.getHits();
 
-			for (final SearchHit repository : repositorySearchHits) {
-
-				final var map = repository.getSourceAsMap();
-
-				final var product = map.get(PRODUCT).toString();
-				final var vendor = map.get(VENDOR).toString();
-
-				final var vulnerabilities = VulnerabilityDataQueryHandler.getVulnerabilities(product, vendor,
-						"", "TWO");
+			final var queries = getVulnerabilityQueries(repositorySearchHits);
+			final var vulnerabilities = VulnerabilityDataQueryHandler.getVulnerabilities(queries.values(), "TWO");
 
-				if (!vulnerabilities.isEmpty()) {
+			for (final SearchHit repository : repositorySearchHits) {
+				final var repositoryVulnerabilities = vulnerabilities.get(queries.get(repository));
+				if ((repositoryVulnerabilities != null) && !repositoryVulnerabilities.isEmpty()) {
 					numberOfRepositoriesWithVulnerabilities++;
 					results.add(repository);
 				}
@@ -343,6 +557,7 @@ public class GitHubProjectSelector implements Closeable {
 					+ percentageOfRepositoriesWithVulnerabilities + "%");
 			LOGGER.log(Level.INFO,
 					"Repositories with at least one vulnerability : " + numberOfRepositoriesWithVulnerabilities);
+			logVulnerabilityCacheStatistics();
 
 		} catch (final Exception e) {
 			LOGGER.log(Level.ERROR, e.getMessage(), e);
@@ -351,6 +566,28 @@ public class GitHubProjectSelector implements Closeable {
 		return results;
 	}
 
+	/**
+	 * Creates the vulnerability queries of repositories
+	 *
+	 * @param repositories The repositories
+	 * @return The queries by the repositories
+	 */
+	private static Map<SearchHit, VulnerabilityQuery> getVulnerabilityQueries(final SearchHit[] repositories) {
+		final var queries = new LinkedHashMap<SearchHit, VulnerabilityQuery>();
+		for (final SearchHit repository : repositories) {
+			final var map = repository.getSourceAsMap();
+			queries.put(repository,
+					new VulnerabilityQuery(map.get(PRODUCT).toString(), map.get(VENDOR).toString(), ""));
+		}
+		return queries;
+	}
+
+	private static void logVulnerabilityCacheStatistics() {
+		final var cache = VulnerabilityDataQueryHandler.getCache();
+		LOGGER.log(Level.INFO, "Vulnerability query cache: " + cache.getHits() + " hits, " + cache.getMisses()
+				+ " misses, " + cache.size() + " entries");
+	}
+
 	/**
 	 * Gets the average number of stars in the Elasticsearch repository database.
 	 */
@@ -400,13 +637,14 @@ public class GitHubProjectSelector implements Closeable {
 			final var repositoryHits = searchResponse.getHits();
 			final var searchHits = repositoryHits.getHits();
 
+			final var queries = getVulnerabilityQueries(searchHits);
+			final var vulnerabilities = VulnerabilityDataQueryHandler.getVulnerabilities(queries.values(), "TWO");
+
 			for (final SearchHit searchHit : searchHits) {
-				final var map = searchHit.getSourceAsMap();
-				final var product = map.get(PRODUCT).toString();
-				final var vendor = map.get(VENDOR).toString();
-				final var vulnerabilities = VulnerabilityDataQueryHandler.getVulnerabilities(product, vendor,
-						"", "TWO");
-				totalNumberOfVulnerabilites += vulnerabilities.size();
+				final var repositoryVulnerabilities = vulnerabilities.get(queries.get(searchHit));
+				if (repositoryVulnerabilities != null) {
+					totalNumberOfVulnerabilites += repositoryVulnerabilities.size();
+				}
 			}
 
 			averageVulnerabilitiesPerProject = totalNumberOfVulnerabilites / (double) totalNumberOfProjects;
@@ -415,6 +653,7 @@ public class GitHubProjectSelector implements Closeable {
 					"The average number of discovered vulnerabilities is : " + averageVulnerabilitiesPerProject);
 			LOGGER.log(Level.INFO,
 					"The total number of discovered vulnerabilities is : " + totalNumberOfVulnerabilites);
+			logVulnerabilityCacheStatistics();
 		} catch (final Exception e) {
 			LOGGER.log(Level.ERROR, e.getMessage(), e);
 		}
@@ -1,15 +1,23 @@
 package metric.correlation.analysis.selection;
 
+import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
 import java.util.regex.Pattern;
 
-import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
@@ -23,6 +31,11 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import metric.correlation.analysis.io.GitHubRateLimiter;
+import metric.correlation.analysis.io.GitReleaseResolver;
+import metric.correlation.analysis.io.GitReleaseResolver.Release;
 
 public class ProjectsOutputCreator {
 
@@ -53,11 +66,32 @@ public class ProjectsOutputCreator {
 	private static final int MAX_COMMITS = 1;
 	private static final int MAX_PROJECTS = 20;
 
+	/**
+	 * The number of repositories whose tags are resolved at the same time
+	 */
+	private static final int RESOLVER_THREADS = 8;
+
+	/**
+	 * If the tags of projects which have already been cloned should be read from
+	 * their clones instead of the GitHub API
+	 */
+	private static final boolean USE_LOCAL_RELEASES = true;
+
+	/**
+	 * Matches the names of tags which aren't releases
+	 */
+	private static final Pattern PRE_RELEASE = Pattern
+			.compile(".*(\\.|-|_|^)(snapshot|doc|pre|alpha|beta|rc|m|prototype)(?![a-z]).*");
+
 	/**
 	 * @author Antoniya Ivanova - prepares the JSON output for the repository
 	 *         search, includes the releases for each repository and what
 	 *         version/commit they relate to.
 	 *
+	 *         The tags of {@value #RESOLVER_THREADS} repositories are requested
+	 *         at the same time over a shared connection pool. Each project is
+	 *         written to a temporary file as soon as its tags have been resolved,
+	 *         which replaces the output file once all projects have been written.
 	 */
 	public void getProjectReleases() {
 
@@ -69,46 +103,80 @@ public class ProjectsOutputCreator {
 			return;
 		}
 
-		final var resultJSON = new JsonObject();
-		final var resultArray = new JsonArray();
-		resultJSON.add(PROJECTS, resultArray);
-
-		try (var httpClient = HttpClientBuilder.create().build()) {
+		final var connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(RESOLVER_THREADS);
+		connectionManager.setDefaultMaxPerRoute(RESOLVER_THREADS);
+		final var executor = Executors.newFixedThreadPool(RESOLVER_THREADS);
+		final var gson = new Gson();
+		final var output = new File(PROJECTS_DATA_OUTPUT_FILE).getAbsoluteFile();
+		output.getParentFile().mkdirs();
+		final File tmp;
+		try {
+			tmp = File.createTempFile(output.getName(), ".tmp", output.getParentFile());
+		} catch (final IOException e) {
+			LOGGER.log(Level.ERROR, e.getMessage(), e);
+			executor.shutdownNow();
+			return;
+		}
+		try (var httpClient = HttpClients.custom().setConnectionManager(connectionManager).build();
+				var jsonWriter = new JsonWriter(Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8))) {
+			final var completion = new ExecutorCompletionService<JsonObject>(executor);
 
 			// Iterate the vulnerable projects
 			for (final SearchHit repository : repositoriesWithCVEs) {
-				final var projectJSON = new JsonObject();
-
 				final var map = repository.getSourceAsMap();
-
 				final var productName = map.get("Product").toString();
 				final var vendorName = map.get("Vendor").toString();
-				final var url = "http://www.github.com/" + vendorName + "/" + productName + ".git";
-
-				projectJSON.addProperty(PRODUCT_NAME, productName);
-				projectJSON.addProperty(VENDOR_NAME, vendorName);
-				projectJSON.addProperty(URL, url);
-
-				final var commits = this.getReleaseCommits(httpClient, vendorName, productName);
-				projectJSON.add(COMMITS, commits);
-
-				if (commits.size() != 0) {
-					resultArray.add(projectJSON);
-				}
-
+				completion.submit(() -> this.createProjectJson(httpClient, vendorName, productName));
 			}
 
-			FileUtils.createDirectory("Resources");
-
-			try (var fileWriter = new FileWriter(PROJECTS_DATA_OUTPUT_FILE)) {
-				fileWriter.write(resultJSON.toString());
+			jsonWriter.beginObject().name(PROJECTS).beginArray();
+			var written = 0;
+			for (var i = 0; i < repositoriesWithCVEs.size(); i++) {
+				final JsonObject projectJSON;
+				try {
+					projectJSON = completion.take().get();
+				} catch (final ExecutionException e) {
+					LOGGER.log(Level.ERROR, e.getCause().getMessage(), e.getCause());
+					continue;
+				}
+				if (projectJSON.get(COMMITS).getAsJsonArray().size() != 0) {
+					gson.toJson(projectJSON, jsonWriter);
+					jsonWriter.flush();
+					written++;
+				}
 			}
+			jsonWriter.endArray().endObject();
+			// the previous output is only replaced by a complete document
+			jsonWriter.close();
+			Files.move(tmp.toPath(), output.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			LOGGER.log(Level.INFO, "Wrote the releases of " + written + " of " + repositoriesWithCVEs.size()
+					+ " projects");
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.log(Level.ERROR, e.getMessage(), e);
 		} catch (final Exception e) {
 			LOGGER.log(Level.ERROR, e.getMessage(), e);
+		} finally {
+			executor.shutdownNow();
+			tmp.delete();
 		}
 
 	}
 
+	private JsonObject createProjectJson(final CloseableHttpClient httpClient, final String vendorName,
+			final String productName) throws IOException {
+		final var projectJSON = new JsonObject();
+		final var url = "http://www.github.com/" + vendorName + "/" + productName + ".git";
+
+		projectJSON.addProperty(PRODUCT_NAME, productName);
+		projectJSON.addProperty(VENDOR_NAME, vendorName);
+		projectJSON.addProperty(URL, url);
+		projectJSON.add(COMMITS, this.getReleaseCommits(httpClient, vendorName, productName));
+		return projectJSON;
+	}
+
 	public JsonArray getReleaseCommits(final CloseableHttpClient httpClient, final String vendorName,
 			final String productName) throws IOException {
 		return this.getReleaseCommits(httpClient, vendorName, productName, MAX_COMMITS);
@@ -116,6 +184,9 @@ public class ProjectsOutputCreator {
 
 	public JsonArray getReleaseCommits(final CloseableHttpClient httpClient, final String vendorName,
 			final String productName, final Integer commitLimit) throws IOException {
+		if (USE_LOCAL_RELEASES && GitReleaseResolver.isCloned(productName)) {
+			return this.getLocalReleaseCommits(productName, commitLimit);
+		}
 		final var commits = new JsonArray();
 		// Iterate over the project release pages
 		for (var i = 1; i < 100; i++) {
@@ -123,18 +194,15 @@ public class ProjectsOutputCreator {
 					+ "&per_page=100";
 
 			final var request = new HttpGet(gitURL);
-			request.addHeader("Authorization", "Token " + GitHubProjectSelector.OAuthToken);
 			request.addHeader("content-type", "application/json");
 
-			HttpResponse result = httpClient.execute(request);
-			while (GitHubProjectSelector.rateLimit(result)) {
-				result = httpClient.execute(request);
-			}
-
-			if (result.getStatusLine().getStatusCode() != 200) {
-				throw new IOException(result.getStatusLine().toString());
+			final String json;
+			try (var result = GitHubRateLimiter.getDefault().execute(httpClient, request)) {
+				if (result.getStatusLine().getStatusCode() != 200) {
+					throw new IOException(result.getStatusLine().toString());
+				}
+				json = EntityUtils.toString(result.getEntity(), "UTF-8");
 			}
-			final var json = EntityUtils.toString(result.getEntity(), "UTF-8");
 			final var jsonObject = new JsonParser().parse(json);
 			if (jsonObject.isJsonObject()) {
 				throw new IOException(((JsonObject) jsonObject).get("message").toString());
@@ -148,6 +216,34 @@ public class ProjectsOutputCreator {
 		return commits;
 	}
 
+	private JsonArray getLocalReleaseCommits(final String productName, final Integer limit) throws IOException {
+		final var commits = new JsonArray();
+		try (var resolver = new GitReleaseResolver(GitReleaseResolver.getLocation(productName))) {
+			for (final Release release : resolver.getReleases()) {
+				if (isRelease(release.getName())) {
+					final var commit = new JsonObject();
+					commit.addProperty(COMMIT_ID, release.getCommitId());
+					commit.addProperty(VERSION, release.getName());
+					commits.add(commit);
+					if (commits.size() >= limit) {
+						break;
+					}
+				}
+			}
+		}
+		return commits;
+	}
+
+	/**
+	 * Checks if a tag names a release
+	 *
+	 * @param version The name of the tag
+	 * @return false, iff the tag names a snapshot, pre-release or documentation
+	 */
+	public static boolean isRelease(final String version) {
+		return !PRE_RELEASE.matcher(version.toLowerCase()).matches();
+	}
+
 	/**
 	 *
 	 * @param commits
@@ -166,8 +262,7 @@ public class ProjectsOutputCreator {
 					jo.get(COMMIT).getAsJsonObject().get("sha").toString().replace("\"", ""));
 			final var version = jo.get(NAME).toString().replace("\"", "");
 			commit.addProperty(VERSION, version);
-			if (!version.toLowerCase()
-					.matches(".*(\\.|-|_|^)(snapshot|doc|pre|alpha|beta|rc|m|prototype)(?![a-z]).*")) {
+			if (isRelease(version)) {
 				commits.add(commit);
 				if (commits.size() >= limit) {
 					return true;
@@ -207,11 +302,8 @@ public class ProjectsOutputCreator {
 		projectJSON.addProperty(PRODUCT_NAME, rep.getProduct());
 		projectJSON.addProperty(VENDOR_NAME, rep.getVendor());
 		projectJSON.addProperty(URL, URL);
-		final var httpClient = HttpClientBuilder.create().build();
-		JsonArray commits;
-		try {
-			commits = this.getReleaseCommits(httpClient, rep.getVendor(), rep.getProduct());
-			projectJSON.add(COMMITS, commits);
+		try (var httpClient = HttpClientBuilder.create().build()) {
+			projectJSON.add(COMMITS, this.getReleaseCommits(httpClient, rep.getVendor(), rep.getProduct()));
 		} catch (final Exception e) {
 			LOGGER.log(Level.ERROR, e.getMessage(), e);
 			projectJSON.add(COMMITS, new JsonArray());
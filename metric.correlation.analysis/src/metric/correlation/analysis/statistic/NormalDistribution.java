@@ -31,17 +31,32 @@ public class NormalDistribution {
 	}
 
 	public void testAndStoreNormalDistribution(final Map<String, List<Double>> metricValues, final File resultFile) {
+		final Map<String, double[]> columns = new LinkedHashMap<>();
+		for (final Entry<String, List<Double>> entry : metricValues.entrySet()) {
+			final List<Double> list = entry.getValue();
+			final double[] doubleArray = new double[list.size()];
+			for(int i = 0; i < list.size(); i++) {
+				doubleArray[i] = list.get(i);
+			}
+			columns.put(entry.getKey(), doubleArray);
+		}
+		testAndStoreNormalDistributionOfColumns(columns, resultFile);
+	}
+
+	/**
+	 * Tests if the values of the metrics are normally distributed and stores the
+	 * results
+	 *
+	 * @param columns    The values by the metric names
+	 * @param resultFile The file for the results
+	 */
+	public void testAndStoreNormalDistributionOfColumns(final Map<String, double[]> columns, final File resultFile) {
 
 		try (BufferedWriter writer = new BufferedWriter(new FileWriter(resultFile))){
 			writer.write(
 					"Metric name, W-Value, W-crit, Normal Distribution, P-Value, Significance, Normal Distribution");
-			for (final Entry<String, List<Double>> entry : metricValues.entrySet()) {
-				final List<Double> list = entry.getValue();
-				final double[] doubleArray = new double[list.size()];
-				for(int i = 0; i < list.size(); i++) {
-					doubleArray[i] = list.get(i);
-				}
-				final Normality norm = new Normality(doubleArray);
+			for (final Entry<String, double[]> entry : columns.entrySet()) {
+				final Normality norm = new Normality(entry.getValue());
 				final double wValue = norm.shapiroWilkWvalue();
 				final double wCritical = norm.shapiroWilkCriticalW();
 				final boolean normalDistribution = wValue <= wCritical;
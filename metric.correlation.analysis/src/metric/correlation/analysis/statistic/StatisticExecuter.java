@@ -39,6 +39,8 @@ import org.junit.Test;
 import metric.correlation.analysis.calculation.impl.IssueMetrics;
 import metric.correlation.analysis.calculation.impl.SourceMeterMetrics;
 import metric.correlation.analysis.calculation.impl.VersionMetrics;
+import metric.correlation.analysis.io.ColumnarResults;
+import metric.correlation.analysis.io.Storage;
 
 public class StatisticExecuter {
 
@@ -70,7 +72,7 @@ public class StatisticExecuter {
 		if (!out.exists()) {
 			out.mkdirs();
 		}
-		calculateStatistics(getMetricMap(in), out);
+		calculateColumnStatistics(getMetricColumns(in), out);
 	}
 
 	/**
@@ -82,10 +84,25 @@ public class StatisticExecuter {
 	 * @throws IOException
 	 */
 	public void calculateStatistics(final LinkedHashMap<String, List<Double>> map, final File out) throws IOException {
-		final Set<String> keySet = map.keySet();
+		calculateColumnStatistics(toColumns(map), out);
+	}
+
+	/**
+	 * Calculates correlations for the given metric columns and saves them at the
+	 * given location
+	 *
+	 * @param columns The mapping from metric names to values, all columns have
+	 *                the same length
+	 * @param out     The output file
+	 * @throws IOException
+	 */
+	public void calculateColumnStatistics(final LinkedHashMap<String, double[]> columns, final File out)
+			throws IOException {
+		final Set<String> keySet = columns.keySet();
 		final ArrayList<String> metricNames = new ArrayList<>(keySet);
 
-		final RealMatrix matrix = createMatrix(map);
+		final RealMatrix matrix = new Array2DRowRealMatrix(columns.values().toArray(new double[0][]), false)
+				.transpose();
 
 		//		RealMatrix pearsonMatrix = new PearsonsCorrelation().computeCorrelationMatrix(matrix);
 		//		CorreltationMatrixPrinter.storeMatrix(pearsonMatrix, metricNames, new File(out, "PearsonCorrelationMatrix.csv"));
@@ -106,17 +123,17 @@ public class StatisticExecuter {
 		for (int i = 0; i < keySet.size(); i++) {
 
 			final String xMetric = metricNames.get(i);
-			final List<Double> xValues = map.get(xMetric);
+			final double[] xValues = columns.get(xMetric);
 
 			for (int j = i + 1; j < keySet.size(); j++) {
 				final String yMetric = metricNames.get(j);
-				final List<Double> yValues = map.get(yMetric);
+				final double[] yValues = columns.get(yMetric);
 
 				final XYSeriesCollection scatterPlotResult = new XYSeriesCollection();
 				final XYSeries ySeries = new XYSeries(yMetric);
 
-				for (int counter = 0; counter < xValues.size(); counter++) {
-					ySeries.add(xValues.get(counter), yValues.get(counter));
+				for (int counter = 0; counter < xValues.length; counter++) {
+					ySeries.add(xValues[counter], yValues[counter]);
 				}
 
 				scatterPlotResult.addSeries(ySeries);
@@ -128,7 +145,82 @@ public class StatisticExecuter {
 			}
 		}
 
-		new NormalDistribution().testAndStoreNormalDistribution(map, new File(out, "shapiroWilkTestAll.csv"));
+		new NormalDistribution().testAndStoreNormalDistributionOfColumns(columns,
+				new File(out, "shapiroWilkTestAll.csv"));
+	}
+
+	/**
+	 * Reads the metric values of a results file. If the {@link Storage} has
+	 * written a columnar file next to the csv file and the csv file hasn't been
+	 * modified afterwards, the columnar file is mapped into the memory instead of
+	 * parsing the csv file.
+	 *
+	 * @param dataFile The csv file
+	 * @return The values of the rows without missing values by the metric names
+	 * @throws IOException If there is an exception reading the file
+	 */
+	private LinkedHashMap<String, double[]> getMetricColumns(final File dataFile) throws IOException {
+		if (!ColumnarResults.isCurrent(dataFile)) {
+			return toColumns(getMetricMap(dataFile));
+		}
+		final ColumnarResults results = ColumnarResults.read(ColumnarResults.getColumnsFile(dataFile));
+		final List<double[]> values = new ArrayList<>();
+		final List<String> keys = new ArrayList<>();
+		for (final String key : results.getKeys()) {
+			if (!results.isText(key)) {
+				keys.add(key);
+				values.add(results.getDoubles(key));
+			}
+		}
+		if (keys.size() == results.getKeys().size()) {
+			throw new IllegalStateException("Project name not found");
+		}
+
+		// Drop the rows with missing values
+		final boolean[] valid = new boolean[results.getRowCount()];
+		int validRows = 0;
+		for (int row = 0; row < valid.length; row++) {
+			valid[row] = true;
+			for (final double[] column : values) {
+				if (Double.isNaN(column[row])) {
+					valid[row] = false;
+					break;
+				}
+			}
+			if (valid[row]) {
+				validRows++;
+			}
+		}
+		final LinkedHashMap<String, double[]> metrics = new LinkedHashMap<>(keys.size());
+		for (int i = 0; i < keys.size(); i++) {
+			final double[] column = values.get(i);
+			if (validRows == column.length) {
+				metrics.put(keys.get(i), column);
+				continue;
+			}
+			final double[] filtered = new double[validRows];
+			int next = 0;
+			for (int row = 0; row < column.length; row++) {
+				if (valid[row]) {
+					filtered[next++] = column[row];
+				}
+			}
+			metrics.put(keys.get(i), filtered);
+		}
+		return metrics;
+	}
+
+	private static LinkedHashMap<String, double[]> toColumns(final Map<String, List<Double>> metricValues) {
+		final LinkedHashMap<String, double[]> columns = new LinkedHashMap<>(metricValues.size());
+		for (final Map.Entry<String, List<Double>> entry : metricValues.entrySet()) {
+			final List<Double> s = entry.getValue();
+			final double[] d = new double[s.size()];
+			for (int i = 0; i < s.size(); i++) {
+				d[i] = s.get(i);
+			}
+			columns.put(entry.getKey(), d);
+		}
+		return columns;
 	}
 
 	/**
@@ -0,0 +1,150 @@
+package metric.correlation.analysis.vulnerabilities;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A BK-tree of strings over the Levenshtein distance. As the Levenshtein
+ * distance is a metric, a lookup only has to visit the children whose edge
+ * distance differs by at most the search radius from the distance to the
+ * query.
+ */
+class BKTree {
+
+	private Node root;
+	private int size;
+
+	/**
+	 * Adds a string to the tree
+	 *
+	 * @param value The string
+	 */
+	void add(final String value) {
+		if (this.root == null) {
+			this.root = new Node(value);
+			this.size++;
+			return;
+		}
+		Node node = this.root;
+		while (true) {
+			final int distance = levenshtein(node.value, value);
+			if (distance == 0) {
+				return;
+			}
+			final Node child = node.children.get(distance);
+			if (child == null) {
+				node.children.put(distance, new Node(value));
+				this.size++;
+				return;
+			}
+			node = child;
+		}
+	}
+
+	/**
+	 * A getter for the number of strings in the tree
+	 *
+	 * @return The size
+	 */
+	int size() {
+		return this.size;
+	}
+
+	/**
+	 * Finds all strings within a Levenshtein distance
+	 *
+	 * @param query  The query
+	 * @param radius The maximal distance
+	 * @return The strings
+	 */
+	List<String> search(final String query, final int radius) {
+		final List<String> results = new ArrayList<>();
+		if (this.root == null) {
+			return results;
+		}
+		final ArrayDeque<Node> stack = new ArrayDeque<>();
+		stack.push(this.root);
+		while (!stack.isEmpty()) {
+			final Node node = stack.pop();
+			final int distance = levenshtein(node.value, query);
+			if (distance <= radius) {
+				results.add(node.value);
+			}
+			for (final Map.Entry<Integer, Node> child : node.children.entrySet()) {
+				if (Math.abs(child.getKey() - distance) <= radius) {
+					stack.push(child.getValue());
+				}
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Computes the Levenshtein distance of two strings
+	 *
+	 * @param a The first string
+	 * @param b The second string
+	 * @return The minimal number of insertions, deletions and substitutions
+	 */
+	static int levenshtein(final String a, final String b) {
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			for (int j = 1; j <= b.length(); j++) {
+				final int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+			}
+			final int[] tmp = previous;
+			previous = current;
+			current = tmp;
+		}
+		return previous[b.length()];
+	}
+
+	/**
+	 * Computes the optimal string alignment distance of two strings, i.e., the
+	 * Levenshtein distance with transpositions of adjacent characters as
+	 * additional edit operation, as used by fuzzy queries with transpositions
+	 *
+	 * @param a The first string
+	 * @param b The second string
+	 * @return The distance
+	 */
+	static int optimalStringAlignment(final String a, final String b) {
+		final int[][] d = new int[a.length() + 1][b.length() + 1];
+		for (int i = 0; i <= a.length(); i++) {
+			d[i][0] = i;
+		}
+		for (int j = 0; j <= b.length(); j++) {
+			d[0][j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			for (int j = 1; j <= b.length(); j++) {
+				final int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+				if ((i > 1) && (j > 1) && (a.charAt(i - 1) == b.charAt(j - 2))
+						&& (a.charAt(i - 2) == b.charAt(j - 1))) {
+					d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+				}
+			}
+		}
+		return d[a.length()][b.length()];
+	}
+
+	private static final class Node {
+
+		private final String value;
+		private final Map<Integer, Node> children = new HashMap<>(4);
+
+		Node(final String value) {
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package metric.correlation.analysis.vulnerabilities;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.search.SearchHit;
+
+import metric.correlation.analysis.database.ElasticSearchHelper;
+
+/**
+ * The vulnerability index stored in Elasticsearch, queried by the
+ * {@link VulnerabilityDataQueryHandler}
+ */
+public class ElasticsearchVulnerabilityIndex implements IVulnerabilityIndex {
+
+	/**
+	 * Checks if Elasticsearch is running
+	 *
+	 * @return true, iff the cluster can be reached
+	 */
+	public static boolean isAvailable() {
+		try {
+			ElasticSearchHelper.getSharedClient().info(RequestOptions.DEFAULT);
+			return true;
+		} catch (final IOException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public Set<Map<String, Object>> getVulnerabilities(final VulnerabilityQuery query, final String fuzziness)
+			throws IOException {
+		final var hits = VulnerabilityDataQueryHandler.getVulnerabilities(query.getProduct(), query.getVendor(),
+				query.getVersion(), fuzziness);
+		if (hits == null) {
+			throw new IOException("Could not query the vulnerabilities of " + query);
+		}
+		return toDocuments(hits);
+	}
+
+	@Override
+	public Map<VulnerabilityQuery, Set<Map<String, Object>>> getVulnerabilities(
+			final Collection<VulnerabilityQuery> queries, final String fuzziness) throws IOException {
+		final var hits = VulnerabilityDataQueryHandler.getVulnerabilities(queries, fuzziness);
+		final Map<VulnerabilityQuery, Set<Map<String, Object>>> results = new LinkedHashMap<>();
+		for (final VulnerabilityQuery query : queries) {
+			final var queryHits = hits.get(query);
+			if (queryHits == null) {
+				throw new IOException("Could not query the vulnerabilities of " + query);
+			}
+			results.put(query, toDocuments(queryHits));
+		}
+		return results;
+	}
+
+	private static Set<Map<String, Object>> toDocuments(final Set<SearchHit> hits) {
+		return Collections
+				.unmodifiableSet(hits.stream().map(SearchHit::getSourceAsMap).collect(Collectors.toSet()));
+	}
+}
@@ -0,0 +1,45 @@
+package metric.correlation.analysis.vulnerabilities;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of the vulnerability documents created by the
+ * {@link VulnerabilityDataImporter}. A document maps the keys "ID", "Vendor",
+ * "Product", "Versions", "CVSS2_baseScore", "CVSS3_baseScore" and
+ * "Description" to its values.
+ */
+public interface IVulnerabilityIndex {
+
+	/**
+	 * Searches the vulnerabilities of a product. Products and vendors are matched
+	 * fuzzily and afterwards filtered by their Levenshtein distance, as described
+	 * at {@link VulnerabilityDataQueryHandler#getVulnerabilities(String, String, String, String)}.
+	 *
+	 * @param query     The (product, vendor, version) tuple
+	 * @param fuzziness The fuzziness level of the search ("ZERO","ONE","TWO","AUTO")
+	 * @return The documents of the found vulnerabilities
+	 * @throws IOException If the index cannot be queried
+	 */
+	Set<Map<String, Object>> getVulnerabilities(VulnerabilityQuery query, String fuzziness) throws IOException;
+
+	/**
+	 * Searches the vulnerabilities of many products
+	 *
+	 * @param queries   The (product, vendor, version) tuples
+	 * @param fuzziness The fuzziness level of the search ("ZERO","ONE","TWO","AUTO")
+	 * @return The documents of the found vulnerabilities by the given tuples
+	 * @throws IOException If the index cannot be queried
+	 */
+	default Map<VulnerabilityQuery, Set<Map<String, Object>>> getVulnerabilities(
+			final Collection<VulnerabilityQuery> queries, final String fuzziness) throws IOException {
+		final Map<VulnerabilityQuery, Set<Map<String, Object>>> results = new LinkedHashMap<>();
+		for (final VulnerabilityQuery query : queries) {
+			results.put(query, getVulnerabilities(query, fuzziness));
+		}
+		return results;
+	}
+}
@@ -0,0 +1,174 @@
+package metric.correlation.analysis.vulnerabilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+/**
+ * Tracks which pages of an import have been indexed completely and persists the
+ * start index of the first page which still has to be imported. Pages are
+ * completed out of order by the asynchronous bulk requests, the checkpoint only
+ * advances over a contiguous prefix of completed pages. A page containing a
+ * failed document is never completed, so that a resumed import retries it.
+ */
+public class ImportCheckpoint {
+
+	private static final Logger LOGGER = Logger.getLogger(ImportCheckpoint.class);
+
+	private final File file;
+
+	/**
+	 * The pending document IDs of the registered pages by their start index
+	 */
+	private final TreeMap<Integer, Set<String>> pendingPages = new TreeMap<>();
+
+	/**
+	 * The end indexes of the registered pages by their start index
+	 */
+	private final Map<Integer, Integer> pageEnds = new HashMap<>();
+
+	/**
+	 * The start index of the page of each pending document
+	 */
+	private final Map<String, Integer> documentPages = new HashMap<>();
+
+	private final Set<Integer> failedPages = new HashSet<>();
+
+	private int completed;
+
+	/**
+	 * Creates a new checkpoint stored in the given file
+	 *
+	 * @param file The file
+	 */
+	public ImportCheckpoint(final File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Loads the stored checkpoint
+	 *
+	 * @return The start index of the first page which has not been imported, 0 if
+	 *         there is no checkpoint
+	 */
+	public synchronized int load() {
+		if (this.file.exists()) {
+			try {
+				this.completed = Integer
+						.parseInt(new String(Files.readAllBytes(this.file.toPath()), StandardCharsets.UTF_8).trim());
+			} catch (final IOException | NumberFormatException e) {
+				LOGGER.log(Level.WARN, "Ignoring unreadable checkpoint " + this.file, e);
+				this.completed = 0;
+			}
+		} else {
+			this.completed = 0;
+		}
+		return this.completed;
+	}
+
+	/**
+	 * Registers a page whose documents are about to be indexed. Pages have to be
+	 * registered in the order of their start index.
+	 *
+	 * @param startIndex  The start index of the page
+	 * @param endIndex    The start index of the following page
+	 * @param documentIDs The IDs of the documents of the page
+	 */
+	public synchronized void register(final int startIndex, final int endIndex,
+			final Collection<String> documentIDs) {
+		this.pendingPages.put(startIndex, new HashSet<>(documentIDs));
+		this.pageEnds.put(startIndex, endIndex);
+		for (final String id : documentIDs) {
+			this.documentPages.put(id, startIndex);
+		}
+		advance();
+	}
+
+	/**
+	 * Acknowledges the result of indexing a document
+	 *
+	 * @param documentID The ID of the document
+	 * @param success    If the document has been indexed successfully
+	 */
+	public synchronized void acknowledge(final String documentID, final boolean success) {
+		final Integer page = this.documentPages.remove(documentID);
+		if (page == null) {
+			return;
+		}
+		if (success) {
+			this.pendingPages.get(page).remove(documentID);
+		} else {
+			this.failedPages.add(page);
+		}
+		advance();
+	}
+
+	/**
+	 * A getter for the start index of the first page which hasn't been imported
+	 * completely
+	 *
+	 * @return The start index
+	 */
+	public synchronized int getCompleted() {
+		return this.completed;
+	}
+
+	/**
+	 * Checks if all registered pages have been imported successfully
+	 *
+	 * @return true, iff no page is pending
+	 */
+	public synchronized boolean isDone() {
+		return this.pendingPages.isEmpty();
+	}
+
+	/**
+	 * Deletes the stored checkpoint
+	 *
+	 * @throws IOException If the file cannot be deleted
+	 */
+	public synchronized void delete() throws IOException {
+		Files.deleteIfExists(this.file.toPath());
+	}
+
+	private void advance() {
+		final int before = this.completed;
+		while (!this.pendingPages.isEmpty()) {
+			final Map.Entry<Integer, Set<String>> first = this.pendingPages.firstEntry();
+			if (!first.getValue().isEmpty() || this.failedPages.contains(first.getKey())) {
+				break;
+			}
+			this.pendingPages.pollFirstEntry();
+			this.completed = this.pageEnds.remove(first.getKey());
+		}
+		if (this.completed != before) {
+			store();
+		}
+	}
+
+	private void store() {
+		final File tmp = new File(this.file.getPath() + ".tmp");
+		try {
+			final File parent = this.file.getAbsoluteFile().getParentFile();
+			if (parent != null) {
+				parent.mkdirs();
+			}
+			Files.write(tmp.toPath(), Integer.toString(this.completed).getBytes(StandardCharsets.UTF_8));
+			Files.move(tmp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException e) {
+			LOGGER.log(Level.ERROR, "Cannot store checkpoint " + this.file, e);
+		}
+	}
+}
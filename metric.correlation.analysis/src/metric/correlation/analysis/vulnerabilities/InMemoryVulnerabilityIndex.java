@@ -0,0 +1,296 @@
+package metric.correlation.analysis.vulnerabilities;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import metric.correlation.analysis.vulnerabilities.cve.data.CVEPage;
+
+/**
+ * A vulnerability index held in memory, e.g., for offline runs without
+ * Elasticsearch. It reproduces the fuzzy queries of the
+ * {@link VulnerabilityDataQueryHandler}: The terms of the vendor and product
+ * names are grouped by their first {@value #PREFIX_LENGTH} characters, which
+ * have to match exactly, in a sorted prefix index. Each group is a BK-tree
+ * answering edit distance lookups. As in Elasticsearch, transpositions count as
+ * a single edit and at most {@value #MAX_EXPANSIONS} of the closest terms are
+ * used.
+ */
+public class InMemoryVulnerabilityIndex implements IVulnerabilityIndex {
+
+	private static final Logger LOGGER = Logger.getLogger(InMemoryVulnerabilityIndex.class);
+
+	/**
+	 * The number of leading characters of a term which have to match exactly
+	 */
+	public static final int PREFIX_LENGTH = 5;
+
+	/**
+	 * The maximal number of terms a fuzzy lookup expands to
+	 */
+	public static final int MAX_EXPANSIONS = 4;
+
+	private final List<Map<String, Object>> documents;
+	private final FieldIndex products;
+	private final FieldIndex vendors;
+
+	/**
+	 * Creates an index of documents as created by the
+	 * {@link VulnerabilityDataImporter}
+	 *
+	 * @param documents The documents
+	 */
+	public InMemoryVulnerabilityIndex(final Collection<Map<String, Object>> documents) {
+		this.documents = new ArrayList<>(documents.size());
+		for (final Map<String, Object> document : documents) {
+			this.documents.add(Collections.unmodifiableMap(document));
+		}
+		this.products = new FieldIndex(this.documents, "Product");
+		this.vendors = new FieldIndex(this.documents, "Vendor");
+	}
+
+	/**
+	 * Loads an index from NVD CVE API 2.0 JSON files, as returned by the API or
+	 * contained in the NVD data feeds. Files ending with ".gz" are decompressed.
+	 *
+	 * @param export A JSON file or a folder containing JSON files
+	 * @return The index
+	 * @throws IOException If a file cannot be read
+	 */
+	public static InMemoryVulnerabilityIndex load(final File export) throws IOException {
+		final List<File> files = new ArrayList<>();
+		if (export.isDirectory()) {
+			final File[] children = export.listFiles(
+					(dir, name) -> name.endsWith(".json") || name.endsWith(".json.gz"));
+			if (children != null) {
+				Arrays.sort(children);
+				files.addAll(Arrays.asList(children));
+			}
+		} else {
+			files.add(export);
+		}
+		final var importer = new VulnerabilityDataImporter();
+		final var gson = new Gson();
+		final List<Map<String, Object>> documents = new ArrayList<>();
+		for (final File file : files) {
+			try (InputStream in = open(file);
+					Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+				final CVEPage page = gson.fromJson(reader, CVEPage.class);
+				if ((page != null) && (page.getVulnerabilities() != null)) {
+					documents.addAll(importer.processCVEs(page).values());
+				}
+			} catch (final JsonParseException e) {
+				throw new IOException("Cannot parse " + file, e);
+			}
+		}
+		LOGGER.log(Level.INFO, "Loaded " + documents.size() + " vulnerability documents from " + files.size()
+				+ " files");
+		return new InMemoryVulnerabilityIndex(documents);
+	}
+
+	private static InputStream open(final File file) throws IOException {
+		final InputStream in = new FileInputStream(file);
+		return file.getName().endsWith(".gz") ? new GZIPInputStream(in) : in;
+	}
+
+	/**
+	 * A getter for the number of indexed documents
+	 *
+	 * @return The number of documents
+	 */
+	public int size() {
+		return this.documents.size();
+	}
+
+	@Override
+	public Set<Map<String, Object>> getVulnerabilities(final VulnerabilityQuery query, final String fuzziness) {
+		final var normalized = query.normalize();
+		final var productHits = filterVersion(
+				this.products.lookup(normalized.getProduct(), getMaxEdits(normalized.getProduct(), fuzziness)),
+				normalized.getVersion());
+		final var vendorHits = filterVersion(
+				this.vendors.lookup(normalized.getVendor(), getMaxEdits(normalized.getVendor(), fuzziness)),
+				normalized.getVersion());
+		final Set<Integer> hits = VulnerabilityDataQueryHandler.filterHits(normalized, productHits, vendorHits,
+				this.documents::get);
+		return Collections
+				.unmodifiableSet(hits.stream().map(this.documents::get).collect(Collectors.toSet()));
+	}
+
+	/**
+	 * Returns the maximal edit distance of a fuzziness level, AUTO allows no edits
+	 * for terms shorter than 3 characters and one edit for terms shorter than 6
+	 * characters
+	 *
+	 * @param term      The searched term
+	 * @param fuzziness The fuzziness level ("ZERO","ONE","TWO","AUTO")
+	 * @return The maximal number of edits
+	 */
+	static int getMaxEdits(final String term, final String fuzziness) {
+		switch (fuzziness) {
+			case "ZERO":
+				return 0;
+			case "ONE":
+				return 1;
+			case "TWO":
+				return 2;
+			case "AUTO":
+				final int length = term.codePointCount(0, term.length());
+				if (length < 3) {
+					return 0;
+				}
+				return length < 6 ? 1 : 2;
+			default:
+				throw new IllegalArgumentException("Unknown fuzziness: " + fuzziness);
+		}
+	}
+
+	private List<Integer> filterVersion(final List<Integer> hits, final String version) {
+		if (version.isEmpty() || "*".equals(version)) {
+			return hits;
+		}
+		final var term = version.toLowerCase();
+		final List<Integer> filtered = new ArrayList<>(hits.size());
+		for (final Integer hit : hits) {
+			final var versions = this.documents.get(hit).get("Versions");
+			if (versions instanceof Collection) {
+				for (final Object candidate : (Collection<?>) versions) {
+					if (term.equals(String.valueOf(candidate).toLowerCase())) {
+						filtered.add(hit);
+						break;
+					}
+				}
+			}
+		}
+		return filtered;
+	}
+
+	/**
+	 * Splits a name into the terms which are indexed for it
+	 *
+	 * @param value The name
+	 * @return The lower case terms
+	 */
+	static List<String> tokenize(final String value) {
+		final List<String> terms = new ArrayList<>();
+		for (final String token : value.toLowerCase().split("[^\\p{L}\\p{N}.']+")) {
+			int start = 0;
+			int end = token.length();
+			while ((start < end) && ((token.charAt(start) == '.') || (token.charAt(start) == '\''))) {
+				start++;
+			}
+			while ((end > start) && ((token.charAt(end - 1) == '.') || (token.charAt(end - 1) == '\''))) {
+				end--;
+			}
+			if (start < end) {
+				terms.add(token.substring(start, end));
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * The fuzzy term index of a single field
+	 */
+	private static final class FieldIndex {
+
+		private final Map<String, int[]> postings;
+		private final TreeMap<String, BKTree> byPrefix = new TreeMap<>();
+
+		FieldIndex(final List<Map<String, Object>> documents, final String field) {
+			final Map<String, List<Integer>> terms = new HashMap<>();
+			for (int i = 0; i < documents.size(); i++) {
+				final Object value = documents.get(i).get(field);
+				if (value == null) {
+					continue;
+				}
+				for (final String term : tokenize(value.toString())) {
+					final List<Integer> documentsOfTerm = terms.computeIfAbsent(term, t -> new ArrayList<>(1));
+					if (documentsOfTerm.isEmpty() || (documentsOfTerm.get(documentsOfTerm.size() - 1) != i)) {
+						documentsOfTerm.add(i);
+					}
+				}
+			}
+			this.postings = new HashMap<>(terms.size() * 2);
+			for (final Map.Entry<String, List<Integer>> entry : terms.entrySet()) {
+				final String term = entry.getKey().intern();
+				this.postings.put(term, entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+				this.byPrefix.computeIfAbsent(prefix(term), p -> new BKTree()).add(term);
+			}
+		}
+
+		private static String prefix(final String term) {
+			return term.substring(0, Math.min(PREFIX_LENGTH, term.length()));
+		}
+
+		/**
+		 * Finds the documents containing one of the closest terms within an edit
+		 * distance which start with the prefix of the searched term
+		 *
+		 * @param term     The searched term
+		 * @param maxEdits The maximal edit distance
+		 * @return The sorted indexes of the documents
+		 */
+		List<Integer> lookup(final String term, final int maxEdits) {
+			if (term.isEmpty()) {
+				return Collections.emptyList();
+			}
+			if (maxEdits == 0) {
+				return toList(this.postings.get(term));
+			}
+			final String prefix = prefix(term);
+			final Collection<BKTree> trees;
+			if (term.length() >= PREFIX_LENGTH) {
+				final BKTree tree = this.byPrefix.get(prefix);
+				trees = tree == null ? Collections.emptyList() : Collections.singleton(tree);
+			} else {
+				trees = this.byPrefix.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values();
+			}
+			final List<Map.Entry<String, Integer>> candidates = new ArrayList<>();
+			for (final BKTree tree : trees) {
+				// A transposition is a single edit but two Levenshtein operations
+				for (final String candidate : tree.search(term, 2 * maxEdits)) {
+					final int distance = BKTree.optimalStringAlignment(term, candidate);
+					if ((distance <= maxEdits) && candidate.startsWith(prefix)) {
+						candidates.add(Map.entry(candidate, distance));
+					}
+				}
+			}
+			candidates.sort(Map.Entry.<String, Integer>comparingByValue()
+					.thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())));
+			final int[] merged = candidates.stream().limit(MAX_EXPANSIONS)
+					.flatMapToInt(candidate -> Arrays.stream(this.postings.get(candidate.getKey()))).distinct()
+					.sorted().toArray();
+			return toList(merged);
+		}
+
+		private static List<Integer> toList(final int[] values) {
+			if (values == null) {
+				return Collections.emptyList();
+			}
+			return Arrays.stream(values).boxed().collect(Collectors.toList());
+		}
+	}
+}
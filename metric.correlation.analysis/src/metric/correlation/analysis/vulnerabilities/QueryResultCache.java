@@ -0,0 +1,139 @@
+package metric.correlation.analysis.vulnerabilities;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A thread safe cache of query results which evicts the least recently used
+ * entry once the maximal size is reached and expires entries after a time to
+ * live. Hits and misses are counted.
+ *
+ * @param <K> The type of the query keys
+ * @param <V> The type of the query results
+ */
+public class QueryResultCache<K, V> {
+
+	private final int maxSize;
+	private final long ttlNanos;
+	private final LongSupplier clock;
+
+	private final LinkedHashMap<K, Entry<V>> entries;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Creates a new cache
+	 *
+	 * @param maxSize The maximal number of entries
+	 * @param ttl     The time to live of an entry
+	 * @param unit    The unit of the time to live
+	 */
+	public QueryResultCache(final int maxSize, final long ttl, final TimeUnit unit) {
+		this(maxSize, ttl, unit, System::nanoTime);
+	}
+
+	/**
+	 * Creates a new cache with a custom clock
+	 *
+	 * @param maxSize The maximal number of entries
+	 * @param ttl     The time to live of an entry
+	 * @param unit    The unit of the time to live
+	 * @param clock   A clock returning nanoseconds
+	 */
+	public QueryResultCache(final int maxSize, final long ttl, final TimeUnit unit, final LongSupplier clock) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("The size of the cache has to be positive: " + maxSize);
+		}
+		this.maxSize = maxSize;
+		this.ttlNanos = unit.toNanos(ttl);
+		this.clock = clock;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<K, Entry<V>> eldest) {
+				return size() > QueryResultCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns a cached result
+	 *
+	 * @param key The key of the query
+	 * @return The result or null, if there is no valid result
+	 */
+	public synchronized V get(final K key) {
+		final Entry<V> entry = this.entries.get(key);
+		if ((entry == null) || ((this.clock.getAsLong() - entry.created) > this.ttlNanos)) {
+			if (entry != null) {
+				this.entries.remove(key);
+			}
+			this.misses.incrementAndGet();
+			return null;
+		}
+		this.hits.incrementAndGet();
+		return entry.value;
+	}
+
+	/**
+	 * Caches the result of a query
+	 *
+	 * @param key   The key of the query
+	 * @param value The result
+	 */
+	public synchronized void put(final K key, final V value) {
+		this.entries.put(key, new Entry<>(value, this.clock.getAsLong()));
+	}
+
+	/**
+	 * Removes all entries, the counters are kept
+	 */
+	public synchronized void clear() {
+		this.entries.clear();
+	}
+
+	/**
+	 * A getter for the number of cached entries including expired ones
+	 *
+	 * @return The number of entries
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * A getter for the number of requests answered from the cache
+	 *
+	 * @return The number of hits
+	 */
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	/**
+	 * A getter for the number of requests which couldn't be answered from the
+	 * cache
+	 *
+	 * @return The number of misses
+	 */
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	private static final class Entry<V> {
+
+		private final V value;
+		private final long created;
+
+		Entry(final V value, final long created) {
+			this.value = value;
+			this.created = created;
+		}
+	}
+}
@@ -1,24 +1,52 @@
 package metric.correlation.analysis.vulnerabilities;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
 import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.ConsoleAppender;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.apache.log4j.PatternLayout;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.reindex.DeleteByQueryRequest;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
 
 import metric.correlation.analysis.database.ElasticSearchHelper;
 import metric.correlation.analysis.vulnerabilities.cve.data.CVE;
@@ -42,11 +70,95 @@ public class VulnerabilityDataImporter {
 	private static final String NVD_NIST_PARAM_START = "startIndex=";
 	private static final String NVD_NIST_PARAM_RESULTS = "resultsPerPage=";
 	private static final int NVD_NIST_PARAM_RESULTS_VALUE = 2000;
+	private static final String NVD_NIST_PARAM_MOD_START = "lastModStartDate=";
+	private static final String NVD_NIST_PARAM_MOD_END = "lastModEndDate=";
+	private static final DateTimeFormatter NVD_DATE_FORMAT = DateTimeFormatter
+			.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSxxx");
+
+	/**
+	 * The maximal number of days of a lastModified window accepted by the NVD
+	 */
+	private static final int MAX_SYNC_DAYS = 120;
+	private static final Duration MAX_SYNC_WINDOW = Duration.ofDays(MAX_SYNC_DAYS);
 
 	private static final Logger LOGGER = Logger.getLogger(VulnerabilityDataImporter.class);
 
+	/**
+	 * The default number of documents after which a bulk request is sent
+	 */
+	public static final int DEFAULT_BULK_ACTIONS = 1000;
+
+	/**
+	 * The default size in MB after which a bulk request is sent
+	 */
+	public static final int DEFAULT_BULK_SIZE_MB = 5;
+
+	/**
+	 * The default interval in seconds after which pending documents are sent
+	 */
+	public static final int DEFAULT_FLUSH_INTERVAL_SECONDS = 5;
+
+	/**
+	 * The default number of bulk requests which may be executed at the same time
+	 */
+	public static final int DEFAULT_CONCURRENT_REQUESTS = 2;
+
+	/**
+	 * The default file storing the progress of an import
+	 */
+	public static final File DEFAULT_CHECKPOINT_FILE = new File("vulnerability-import.checkpoint");
+
+	/**
+	 * The number of pages which may be buffered between two stages of the import
+	 */
+	private static final int PIPELINE_CAPACITY = 2;
+
 	protected static String vulnerabilityDatabaseName = "vulnerability_database";
 
+	private final int bulkActions;
+	private final int bulkSizeMB;
+	private final int flushIntervalSeconds;
+	private final int concurrentRequests;
+
+	private final AtomicLong indexedDocuments = new AtomicLong();
+	private final AtomicLong failedDocuments = new AtomicLong();
+
+	/**
+	 * The default file storing the time of the last synchronization
+	 */
+	public static final File DEFAULT_SYNC_FILE = new File("vulnerability-sync.timestamp");
+
+	private File checkpointFile = DEFAULT_CHECKPOINT_FILE;
+	private File syncFile = DEFAULT_SYNC_FILE;
+	private String nvdUrl = NVD_NIST_URL;
+
+	/**
+	 * Creates an importer using the default bulk settings
+	 */
+	public VulnerabilityDataImporter() {
+		this(DEFAULT_BULK_ACTIONS, DEFAULT_BULK_SIZE_MB, DEFAULT_FLUSH_INTERVAL_SECONDS, DEFAULT_CONCURRENT_REQUESTS);
+	}
+
+	/**
+	 * Creates an importer with custom bulk settings
+	 *
+	 * @param bulkActions          The number of documents after which a bulk
+	 *                             request is sent
+	 * @param bulkSizeMB           The size in MB after which a bulk request is
+	 *                             sent
+	 * @param flushIntervalSeconds The interval in seconds after which pending
+	 *                             documents are sent
+	 * @param concurrentRequests   The number of bulk requests which may be
+	 *                             executed at the same time
+	 */
+	public VulnerabilityDataImporter(final int bulkActions, final int bulkSizeMB, final int flushIntervalSeconds,
+			final int concurrentRequests) {
+		this.bulkActions = bulkActions;
+		this.bulkSizeMB = bulkSizeMB;
+		this.flushIntervalSeconds = flushIntervalSeconds;
+		this.concurrentRequests = concurrentRequests;
+	}
+
 	public static void main(final String[] args) throws IOException {
 		final var consoleAppender = new ConsoleAppender();
 		final var PATTERN = "%m%n";
@@ -54,38 +166,366 @@ public class VulnerabilityDataImporter {
 		consoleAppender.setThreshold(Level.INFO);
 		consoleAppender.activateOptions();
 		Logger.getRootLogger().addAppender(consoleAppender);
-		new VulnerabilityDataImporter().addCVEsToElastic();
+		if ((args.length > 0) && "sync".equals(args[0])) {
+			new VulnerabilityDataImporter().syncCVEs();
+		} else {
+			new VulnerabilityDataImporter().addCVEsToElastic();
+		}
+	}
+
+	/**
+	 * Sets the file storing the start index of the first page which hasn't been
+	 * imported completely
+	 *
+	 * @param checkpointFile The file
+	 */
+	public void setCheckpointFile(final File checkpointFile) {
+		this.checkpointFile = checkpointFile;
+	}
+
+	/**
+	 * Sets the file storing the time of the last synchronization
+	 *
+	 * @param syncFile The file
+	 */
+	public void setSyncFile(final File syncFile) {
+		this.syncFile = syncFile;
+	}
+
+	/**
+	 * Sets the URL of the NVD CVE API, e.g., to use a mirror
+	 *
+	 * @param nvdUrl The URL
+	 */
+	public void setNvdUrl(final String nvdUrl) {
+		this.nvdUrl = nvdUrl;
 	}
 
 	/**
 	 * Adds a list of Documents to the Elastic Database (index) at
 	 * {@value vulnerabilityDatabaseName}.
 	 *
-	 * @throws IOException If a document cannot be added
+	 * The pages are downloaded, parsed and indexed by a pipeline of three threads
+	 * connected by bounded queues. An interrupted import is resumed at the
+	 * checkpoint of the first page which hasn't been indexed completely.
+	 *
+	 * @return true, iff all CVEs have been imported
+	 * @throws IOException If a page cannot be downloaded or parsed
+	 */
+	public boolean addCVEsToElastic() throws IOException {
+		final var checkpoint = new ImportCheckpoint(this.checkpointFile);
+		final var start = checkpoint.load();
+		if (start > 0) {
+			LOGGER.log(Level.INFO, "Resume import at index " + start);
+		}
+		final BlockingQueue<Page> downloaded = new ArrayBlockingQueue<>(PIPELINE_CAPACITY);
+		final BlockingQueue<Page> parsed = new ArrayBlockingQueue<>(PIPELINE_CAPACITY);
+		final ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+			final var thread = new Thread(runnable, "vulnerability-import");
+			thread.setDaemon(true);
+			return thread;
+		});
+		final var bulkProcessor = createBulkProcessor(checkpoint);
+		var finished = false;
+		try {
+			executor.execute(() -> this.fetchPages(start, downloaded));
+			executor.execute(() -> this.parsePages(downloaded, parsed));
+			this.indexPages(parsed, bulkProcessor, checkpoint);
+			finished = true;
+		} finally {
+			executor.shutdownNow();
+			try {
+				if (!bulkProcessor.awaitClose(10, TimeUnit.MINUTES)) {
+					LOGGER.log(Level.ERROR, "Timeout while waiting for pending bulk requests");
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				LOGGER.log(Level.ERROR, e.getMessage(), e);
+			}
+		}
+		LOGGER.log(Level.INFO, "Indexed " + this.indexedDocuments.get() + " documents, " + this.failedDocuments.get()
+				+ " documents failed");
+		if (finished && checkpoint.isDone()) {
+			checkpoint.delete();
+			return true;
+		}
+		LOGGER.log(Level.WARN, "Import is incomplete, it will be resumed at index " + checkpoint.getCompleted());
+		return false;
+	}
+
+	/**
+	 * Synchronizes the Elastic Database with the CVEs which have been modified
+	 * since the last synchronization. If there hasn't been a synchronization yet,
+	 * all CVEs are imported. The time of the synchronization is only stored if all
+	 * changes have been applied.
+	 *
+	 * @throws IOException If the changes cannot be downloaded or applied
+	 */
+	public void syncCVEs() throws IOException {
+		final var now = OffsetDateTime.now(ZoneOffset.UTC);
+		final var lastSync = this.loadLastSync();
+		if (lastSync == null) {
+			LOGGER.log(Level.INFO, "There is no previous synchronization, importing all CVEs");
+			if (!this.addCVEsToElastic()) {
+				throw new IOException("The import of all CVEs is incomplete");
+			}
+		} else {
+			LOGGER.log(Level.INFO, "Synchronize CVEs modified since " + lastSync);
+			var from = lastSync;
+			while (from.isBefore(now)) {
+				final var to = from.plus(MAX_SYNC_WINDOW).isBefore(now) ? from.plus(MAX_SYNC_WINDOW) : now;
+				this.syncWindow(from, to);
+				from = to;
+			}
+		}
+		this.storeLastSync(now);
+	}
+
+	/**
+	 * Synchronizes the CVEs modified in a time window, the NVD restricts the
+	 * length of the window to {@value #MAX_SYNC_DAYS} days
+	 *
+	 * @param from The start of the window
+	 * @param to   The end of the window
+	 * @throws IOException If the changes cannot be downloaded or applied
 	 */
-	public void addCVEsToElastic() throws IOException {
+	private void syncWindow(final OffsetDateTime from, final OffsetDateTime to) throws IOException {
+		final var filter = '&' + NVD_NIST_PARAM_MOD_START + encode(from) + '&' + NVD_NIST_PARAM_MOD_END + encode(to);
+		final var gson = new Gson();
 		var index = 0;
-		var more = true;
-		do {
-			System.out.print("Get batch from " + index + " to " + (index + NVD_NIST_PARAM_RESULTS_VALUE - 1));
-			try (final var stream = new URL(
-					NVD_NIST_URL + '?' + NVD_NIST_PARAM_RESULTS + NVD_NIST_PARAM_RESULTS_VALUE + '&'
-							+ NVD_NIST_PARAM_START + index)
-					.openStream()) {
-				final var content = new Gson().fromJson(new InputStreamReader(stream), CVEPage.class);
-				final var totalResults = content.getTotalResults();
-				System.out.println(" of " + totalResults);
-				more = content.getResultsPerPage() >= NVD_NIST_PARAM_RESULTS_VALUE;
-				this.processCVEs(content);
+		var total = Integer.MAX_VALUE;
+		while (index < total) {
+			final CVEPage page;
+			try {
+				page = gson.fromJson(this.download(index, filter), CVEPage.class);
+			} catch (final JsonParseException e) {
+				throw new IOException("Cannot parse page at index " + index, e);
+			}
+			total = page.getTotalResults();
+			final var cveIDs = new HashSet<String>();
+			for (final var vulnerability : page.getVulnerabilities()) {
+				cveIDs.add(vulnerability.getCve().getID());
+			}
+			LOGGER.log(Level.INFO, "Apply " + cveIDs.size() + " changed CVEs of " + total + " modified between "
+					+ from + " and " + to);
+			this.applyChanges(cveIDs, this.processCVEs(page));
+			index += NVD_NIST_PARAM_RESULTS_VALUE;
+		}
+	}
+
+	/**
+	 * Replaces the documents of modified CVEs. The new documents are upserted by
+	 * their IDs and afterwards all other documents of the CVEs are deleted, which
+	 * also removes rejected CVEs and products which are no longer affected.
+	 *
+	 * @param cveIDs    The IDs of the modified CVEs
+	 * @param documents The new documents of the CVEs by their document IDs
+	 * @throws IOException If the changes cannot be applied
+	 */
+	protected void applyChanges(final Set<String> cveIDs, final Map<String, Map<String, Object>> documents)
+			throws IOException {
+		if (cveIDs.isEmpty()) {
+			return;
+		}
+		final var client = ElasticSearchHelper.getSharedClient();
+		if (!documents.isEmpty()) {
+			final var bulk = new BulkRequest();
+			for (final var document : documents.entrySet()) {
+				bulk.add(new IndexRequest(vulnerabilityDatabaseName, "_doc").id(document.getKey())
+						.source(document.getValue()));
+			}
+			final var response = client.bulk(bulk, RequestOptions.DEFAULT);
+			if (response.hasFailures()) {
+				throw new IOException(response.buildFailureMessage());
+			}
+		}
+		final var query = QueryBuilders.boolQuery().must(QueryBuilders.termsQuery("ID.keyword", cveIDs))
+				.mustNot(QueryBuilders.idsQuery().addIds(documents.keySet().toArray(new String[0])));
+		final var response = client.deleteByQuery(new DeleteByQueryRequest(vulnerabilityDatabaseName)
+				.setQuery(query).setRefresh(true), RequestOptions.DEFAULT);
+		if (!response.getBulkFailures().isEmpty() || !response.getSearchFailures().isEmpty()) {
+			throw new IOException("Cannot delete outdated documents of " + cveIDs);
+		}
+		if (response.getDeleted() > 0) {
+			LOGGER.log(Level.INFO, "Deleted " + response.getDeleted() + " outdated documents");
+		}
+	}
+
+	private static String encode(final OffsetDateTime time) {
+		return URLEncoder.encode(NVD_DATE_FORMAT.format(time), StandardCharsets.UTF_8);
+	}
+
+	private OffsetDateTime loadLastSync() throws IOException {
+		if (!this.syncFile.exists()) {
+			return null;
+		}
+		try {
+			return OffsetDateTime
+					.parse(new String(Files.readAllBytes(this.syncFile.toPath()), StandardCharsets.UTF_8).trim());
+		} catch (final DateTimeParseException e) {
+			throw new IOException("Invalid synchronization timestamp in " + this.syncFile, e);
+		}
+	}
+
+	private void storeLastSync(final OffsetDateTime time) throws IOException {
+		Files.write(this.syncFile.toPath(), time.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Downloads the pages starting at the given index
+	 *
+	 * @param start      The index of the first CVE
+	 * @param downloaded The queue receiving the pages
+	 */
+	private void fetchPages(final int start, final BlockingQueue<Page> downloaded) {
+		try {
+			var index = start;
+			var total = Integer.MAX_VALUE;
+			while (index < total) {
+				final var json = this.download(index, "");
+				total = readTotalResults(json);
+				LOGGER.log(Level.INFO, "Downloaded CVEs " + index + " to "
+						+ (Math.min(index + NVD_NIST_PARAM_RESULTS_VALUE, total) - 1) + " of " + total);
+				downloaded.put(new Page(index, json, null, null));
 				index += NVD_NIST_PARAM_RESULTS_VALUE;
 			}
-		} while (more);
+			downloaded.put(Page.END);
+		} catch (final IOException e) {
+			try {
+				downloaded.put(new Page(-1, null, null, e));
+			} catch (final InterruptedException e1) {
+				Thread.currentThread().interrupt();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Downloads a page
+	 *
+	 * @param index  The index of the first CVE of the page
+	 * @param filter Additional query parameters starting with '&amp;' or an empty
+	 *               string
+	 * @return The content of the page
+	 * @throws IOException If the page cannot be downloaded
+	 */
+	private String download(final int index, final String filter) throws IOException {
+		try (final var stream = new URL(this.nvdUrl + '?' + NVD_NIST_PARAM_RESULTS + NVD_NIST_PARAM_RESULTS_VALUE + '&'
+				+ NVD_NIST_PARAM_START + index + filter).openStream()) {
+			return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Reads the total number of results from the header of a page without parsing
+	 * the vulnerabilities
+	 *
+	 * @param json The page
+	 * @return The number of results or -1, if the page doesn't contain it
+	 * @throws IOException If the page isn't valid JSON
+	 */
+	private static int readTotalResults(final String json) throws IOException {
+		try (var reader = new JsonReader(new StringReader(json))) {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if ("totalResults".equals(reader.nextName())) {
+					return reader.nextInt();
+				}
+				reader.skipValue();
+			}
+			return -1;
+		} catch (final IllegalStateException e) {
+			throw new IOException("Unexpected page content", e);
+		}
+	}
+
+	/**
+	 * Parses the downloaded pages
+	 *
+	 * @param downloaded The downloaded pages
+	 * @param parsed     The queue receiving the parsed pages
+	 */
+	private void parsePages(final BlockingQueue<Page> downloaded, final BlockingQueue<Page> parsed) {
+		final var gson = new Gson();
+		try {
+			while (true) {
+				final var page = downloaded.take();
+				if (page.json == null) {
+					parsed.put(page);
+					return;
+				}
+				try {
+					parsed.put(new Page(page.startIndex, null, gson.fromJson(page.json, CVEPage.class), null));
+				} catch (final JsonParseException e) {
+					parsed.put(new Page(-1, null, null,
+							new IOException("Cannot parse page at index " + page.startIndex, e)));
+					return;
+				}
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Hands the documents of the parsed pages to the bulk processor
+	 *
+	 * @param parsed        The parsed pages
+	 * @param bulkProcessor The bulk processor
+	 * @param checkpoint    The checkpoint tracking the pages
+	 * @throws IOException If a page couldn't be downloaded or parsed
+	 */
+	private void indexPages(final BlockingQueue<Page> parsed, final BulkProcessor bulkProcessor,
+			final ImportCheckpoint checkpoint) throws IOException {
+		try {
+			while (true) {
+				final var page = parsed.take();
+				if (page.error != null) {
+					throw new IOException("Import failed", page.error);
+				}
+				if (page.content == null) {
+					return;
+				}
+				final var documents = this.processCVEs(page.content);
+				checkpoint.register(page.startIndex, page.startIndex + NVD_NIST_PARAM_RESULTS_VALUE,
+						documents.keySet());
+				for (final var document : documents.entrySet()) {
+					bulkProcessor.add(new IndexRequest(vulnerabilityDatabaseName, "_doc").id(document.getKey())
+							.source(document.getValue()));
+				}
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Import has been interrupted");
+		}
 	}
 
-	private void processCVEs(final CVEPage data) {
+	/**
+	 * Creates the documents of a page
+	 *
+	 * @param data The page
+	 * @return The documents by their IDs
+	 */
+	Map<String, Map<String, Object>> processCVEs(final CVEPage data) {
+		final var documents = new LinkedHashMap<String, Map<String, Object>>();
 		for (final var vulnerability : data.getVulnerabilities()) {
-			this.indexInElasticsearch(this.processCVEItem(vulnerability));
+			for (final var document : this.processCVEItem(vulnerability)) {
+				documents.put(getDocumentID(document), document);
+			}
 		}
+		return documents;
+	}
+
+	/**
+	 * Creates a deterministic ID for a document, so that repeated imports of a
+	 * page overwrite the documents instead of duplicating them
+	 *
+	 * @param document The document
+	 * @return The ID
+	 */
+	private static String getDocumentID(final Map<String, Object> document) {
+		return document.get("ID") + ":" + document.get("Vendor") + ":" + document.get("Product");
 	}
 
 	private List<Map<String, Object>> processCVEItem(final Vulnerability cveItem) {
@@ -169,22 +609,88 @@ public class VulnerabilityDataImporter {
 		return products;
 	}
 
-	private void indexInElasticsearch(final List<Map<String, Object>> documents) {
-		try (final var client = ElasticSearchHelper.getElasticSearchClient()) {
+	/**
+	 * Creates a bulk processor sending the documents to the shared Elasticsearch
+	 * client
+	 *
+	 * @param checkpoint The checkpoint tracking the pages
+	 * @return The bulk processor
+	 */
+	private BulkProcessor createBulkProcessor(final ImportCheckpoint checkpoint) {
+		final var client = ElasticSearchHelper.getSharedClient();
+		return BulkProcessor
+				.builder((request, listener) -> client.bulkAsync(request, RequestOptions.DEFAULT, listener),
+						new BulkListener(checkpoint), "vulnerability-import")
+				.setBulkActions(this.bulkActions).setBulkSize(new ByteSizeValue(this.bulkSizeMB, ByteSizeUnit.MB))
+				.setFlushInterval(TimeValue.timeValueSeconds(this.flushIntervalSeconds))
+				.setConcurrentRequests(this.concurrentRequests)
+				.setBackoffPolicy(BackoffPolicy.exponentialBackoff()).build();
+	}
+
+	/**
+	 * Reports the results of the bulk requests
+	 */
+	private class BulkListener implements BulkProcessor.Listener {
+
+		private final ImportCheckpoint checkpoint;
 
-			final var iterator = documents.iterator();
-			while (iterator.hasNext()) {
-				try {
-					client.index(new IndexRequest(vulnerabilityDatabaseName, "_doc").source(iterator.next()),
-							RequestOptions.DEFAULT);
-				} catch (final Exception e) {
-					LOGGER.log(Level.ERROR, "Could not index document " + iterator.toString());
-					LOGGER.log(Level.ERROR, e.getMessage(), e);
+		BulkListener(final ImportCheckpoint checkpoint) {
+			this.checkpoint = checkpoint;
+		}
+
+		@Override
+		public void beforeBulk(final long executionId, final BulkRequest request) {
+			LOGGER.log(Level.DEBUG, "Send bulk " + executionId + " with " + request.numberOfActions() + " documents");
+		}
+
+		@Override
+		public void afterBulk(final long executionId, final BulkRequest request, final BulkResponse response) {
+			var failed = 0;
+			for (final var item : response.getItems()) {
+				if (item.isFailed()) {
+					failed++;
 				}
+				this.checkpoint.acknowledge(item.getId(), !item.isFailed());
+			}
+			if (response.hasFailures()) {
+				LOGGER.log(Level.ERROR, "Bulk " + executionId + ": " + failed + " of " + request.numberOfActions()
+						+ " documents failed: " + response.buildFailureMessage());
+			}
+			VulnerabilityDataImporter.this.failedDocuments.addAndGet(failed);
+			VulnerabilityDataImporter.this.indexedDocuments.addAndGet(request.numberOfActions() - failed);
+		}
 
+		@Override
+		public void afterBulk(final long executionId, final BulkRequest request, final Throwable failure) {
+			VulnerabilityDataImporter.this.failedDocuments.addAndGet(request.numberOfActions());
+			for (final var document : request.requests()) {
+				this.checkpoint.acknowledge(document.id(), false);
 			}
-		} catch (final IOException e) {
-			LOGGER.log(Level.ERROR, e.getMessage(), e);
+			LOGGER.log(Level.ERROR,
+					"Bulk " + executionId + " with " + request.numberOfActions() + " documents failed", failure);
+		}
+	}
+
+	/**
+	 * A page passed between the stages of the import
+	 */
+	private static final class Page {
+
+		/**
+		 * Marks the end of the import
+		 */
+		private static final Page END = new Page(-1, null, null, null);
+
+		private final int startIndex;
+		private final String json;
+		private final CVEPage content;
+		private final IOException error;
+
+		Page(final int startIndex, final String json, final CVEPage content, final IOException error) {
+			this.startIndex = startIndex;
+			this.json = json;
+			this.content = content;
+			this.error = error;
 		}
 	}
 }
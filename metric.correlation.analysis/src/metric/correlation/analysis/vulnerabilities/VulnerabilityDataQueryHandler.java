@@ -9,13 +9,25 @@ import static org.elasticsearch.index.query.QueryBuilders.termQuery;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchScrollRequest;
 import org.elasticsearch.client.RequestOptions;
@@ -48,6 +60,25 @@ public class VulnerabilityDataQueryHandler {
 
 	private static final Logger LOGGER = Logger.getLogger(VulnerabilityDataQueryHandler.class);
 
+	/**
+	 * The maximal number of cached query results
+	 */
+	public static final int CACHE_SIZE = 10000;
+
+	/**
+	 * The time to live of cached query results in minutes
+	 */
+	public static final int CACHE_TTL_MINUTES = 60;
+
+	/**
+	 * The number of (product, vendor, version) tuples searched by one
+	 * multi-search request
+	 */
+	public static final int MULTI_SEARCH_BATCH_SIZE = 100;
+
+	private static final QueryResultCache<List<String>, Set<SearchHit>> CACHE = new QueryResultCache<>(CACHE_SIZE,
+			CACHE_TTL_MINUTES, TimeUnit.MINUTES);
+
 	public static void main(final String[] args) throws IOException {
 		final var vul = getVulnerabilities("xmlgraphics-batik", "apache", "*", "AUTO");
 
@@ -115,74 +146,187 @@ public class VulnerabilityDataQueryHandler {
 	 * @param version   - version name as String or * for all versions
 	 * @param fuzziness - the fuzziness level of the search
 	 *                  ("ZERO","ONE","TWO","AUTO");
-	 * @return An ArrayList of the resulting search hits from the database.
+	 * @return An unmodifiable set of the resulting search hits from the database or
+	 *         null, if the database cannot be queried.
 	 */
-	public static Set<SearchHit> getVulnerabilities(String product, String vendor, final String version,
+	public static Set<SearchHit> getVulnerabilities(final String product, final String vendor, final String version,
 			final String fuzziness) {
-		final var l = new Levenshtein();
-		try (final var elasticClient = ElasticSearchHelper.getElasticSearchClient()) {
+		final var query = new VulnerabilityQuery(product, vendor, version).normalize();
+		final var key = getCacheKey(query, fuzziness);
+		final var cached = CACHE.get(key);
+		if (cached != null) {
+			return cached;
+		}
 
-			// Normalize the input
-			product = product.toLowerCase().replace("-", "").replace("_", "");
-			vendor = vendor.toLowerCase().replace("-", "").replace("_", "");
+		try {
+			final var elasticClient = ElasticSearchHelper.getSharedClient();
 
 			// Search for vulnerabilities by product name first
-			final var resultsByProductName = new ArrayList<SearchHit>();
+			final var productHits = search(elasticClient,
+					buildQuery("Product", query.getProduct(), query.getVersion(), fuzziness));
 
-			final var productQuery = buildQuery("Product", product, version, fuzziness);
-			final var productHits = search(elasticClient, productQuery);
-			if (productHits.length == 0) {
-				LOGGER.log(Level.INFO, "No vulnerabilities found for product " + product + ".");
+			// Search for remaining vulnerabilities by vendor name
+			final var vendorHits = search(elasticClient,
+					buildQuery("Vendor", query.getVendor(), query.getVersion(), fuzziness));
+
+			final var results = filterHits(query, productHits, vendorHits);
+			CACHE.put(key, results);
+			return results;
+		} catch (final Exception e) {
+			LOGGER.log(Level.ERROR, "Could not query the vulnerabilities.");
+			LOGGER.log(Level.ERROR, e.getMessage(), e);
+		}
+		return null;
+	}
+
+	/**
+	 * Get the vulnerabilities for many (product, vendor, version) tuples. The
+	 * searches are sent as multi-search requests of
+	 * {@value #MULTI_SEARCH_BATCH_SIZE} tuples and the hits are filtered in
+	 * parallel.
+	 *
+	 * @param queries   - the tuples
+	 * @param fuzziness - the fuzziness level of the search
+	 *                  ("ZERO","ONE","TWO","AUTO");
+	 * @return The unmodifiable sets of the resulting search hits by the given
+	 *         tuples, tuples whose searches failed are missing
+	 */
+	public static Map<VulnerabilityQuery, Set<SearchHit>> getVulnerabilities(
+			final Collection<VulnerabilityQuery> queries, final String fuzziness) {
+		final var results = new ConcurrentHashMap<VulnerabilityQuery, Set<SearchHit>>();
+		final var pending = new LinkedHashMap<VulnerabilityQuery, List<VulnerabilityQuery>>();
+		for (final var query : queries) {
+			final var normalized = query.normalize();
+			final var cached = CACHE.get(getCacheKey(normalized, fuzziness));
+			if (cached == null) {
+				pending.computeIfAbsent(normalized, k -> new ArrayList<>()).add(query);
 			} else {
-				for (final SearchHit hit : productHits) {
-					final var searchHitMap = hit.getSourceAsMap();
-					if ((l.distance(vendor, (String) searchHitMap.get("Vendor")) <= (vendor.length() / 2))) {
-						resultsByProductName.add(hit);
-					}
-				}
+				results.put(query, cached);
 			}
+		}
 
-			// Search for remaining vulnerabilities by vendor name
-			final var resultsByVendorName = new ArrayList<SearchHit>();
+		final var elasticClient = ElasticSearchHelper.getSharedClient();
+		final var normalizedQueries = new ArrayList<>(pending.keySet());
+		for (var start = 0; start < normalizedQueries.size(); start += MULTI_SEARCH_BATCH_SIZE) {
+			final var batch = normalizedQueries.subList(start,
+					Math.min(start + MULTI_SEARCH_BATCH_SIZE, normalizedQueries.size()));
+			final var request = new MultiSearchRequest();
+			for (final var query : batch) {
+				request.add(createSearchRequest(
+						buildQuery("Product", query.getProduct(), query.getVersion(), fuzziness)));
+				request.add(createSearchRequest(
+						buildQuery("Vendor", query.getVendor(), query.getVersion(), fuzziness)));
+			}
+			final MultiSearchResponse.Item[] responses;
+			try {
+				responses = elasticClient.msearch(request, RequestOptions.DEFAULT).getResponses();
+			} catch (final IOException e) {
+				LOGGER.log(Level.ERROR, "Could not execute a multi-search for " + batch.size() + " tuples.");
+				LOGGER.log(Level.ERROR, e.getMessage(), e);
+				continue;
+			}
+			IntStream.range(0, batch.size()).parallel().forEach(i -> {
+				final var productResponse = responses[2 * i];
+				final var vendorResponse = responses[(2 * i) + 1];
+				final var query = batch.get(i);
+				if (productResponse.isFailure() || vendorResponse.isFailure()) {
+					LOGGER.log(Level.ERROR, "Could not search vulnerabilities of " + query + ": "
+							+ (productResponse.isFailure() ? productResponse : vendorResponse).getFailureMessage());
+					return;
+				}
+				final var hits = filterHits(query, productResponse.getResponse().getHits().getHits(),
+						vendorResponse.getResponse().getHits().getHits());
+				CACHE.put(getCacheKey(query, fuzziness), hits);
+				for (final var original : pending.get(query)) {
+					results.put(original, hits);
+				}
+			});
+		}
+		return results;
+	}
 
-			final var vendorQuery = buildQuery("Vendor", vendor, version, fuzziness);
-			final var vendorHits = search(elasticClient, vendorQuery);
-			if (vendorHits.length == 0) {
-				LOGGER.log(Level.INFO, "No vulnerabilities found for vendor " + vendor + ".");
-			} else {
-				for (final SearchHit hit : vendorHits) {
-					final var searchHitMap = hit.getSourceAsMap();
-					if ((l.distance(product, (String) searchHitMap.get("Product")) <= (product.length() / 2))) {
-						resultsByVendorName.add(hit);
-					}
+	private static List<String> getCacheKey(final VulnerabilityQuery normalized, final String fuzziness) {
+		return List.of(normalized.getProduct(), normalized.getVendor(), normalized.getVersion(),
+				fuzziness.toUpperCase());
+	}
+
+	private static Set<SearchHit> filterHits(final VulnerabilityQuery query, final SearchHit[] productHits,
+			final SearchHit[] vendorHits) {
+		return filterHits(query, Arrays.asList(productHits), Arrays.asList(vendorHits), SearchHit::getSourceAsMap);
+	}
+
+	/**
+	 * Keeps the hits of the product search whose vendor is similar to the searched
+	 * vendor and the hits of the vendor search whose product is similar to the
+	 * searched product
+	 *
+	 * @param <T>         The type of the hits
+	 * @param query       The normalized query
+	 * @param productHits The hits of the search by product name
+	 * @param vendorHits  The hits of the search by vendor name
+	 * @param source      A function returning the document of a hit
+	 * @return An unmodifiable set of the remaining hits
+	 */
+	static <T> Set<T> filterHits(final VulnerabilityQuery query, final Collection<T> productHits,
+			final Collection<T> vendorHits, final Function<T, Map<String, Object>> source) {
+		final var l = new Levenshtein();
+		final var product = query.getProduct();
+		final var vendor = query.getVendor();
+
+		final var resultsByProductName = new ArrayList<T>();
+		if (productHits.isEmpty()) {
+			LOGGER.log(Level.INFO, "No vulnerabilities found for product " + product + ".");
+		} else {
+			for (final T hit : productHits) {
+				final var searchHitMap = source.apply(hit);
+				if ((l.distance(vendor, (String) searchHitMap.get("Vendor")) <= (vendor.length() / 2))) {
+					resultsByProductName.add(hit);
 				}
 			}
+		}
 
-			final var results = new HashSet<SearchHit>();
-			results.addAll(resultsByVendorName);
-			results.addAll(resultsByProductName);
-
-			if (!results.isEmpty()) {
-				LOGGER.log(Level.INFO, "Found vulnerabilities for " + product);
-				for (final SearchHit searchHit : results) {
-					final var searchHitMap = searchHit.getSourceAsMap();
-					LOGGER.log(Level.INFO, searchHitMap.get("ID"));
+		final var resultsByVendorName = new ArrayList<T>();
+		if (vendorHits.isEmpty()) {
+			LOGGER.log(Level.INFO, "No vulnerabilities found for vendor " + vendor + ".");
+		} else {
+			for (final T hit : vendorHits) {
+				final var searchHitMap = source.apply(hit);
+				if ((l.distance(product, (String) searchHitMap.get("Product")) <= (product.length() / 2))) {
+					resultsByVendorName.add(hit);
 				}
 			}
+		}
 
-			return results;
-		} catch (final Exception e) {
-			LOGGER.log(Level.ERROR, "Could not close elastic client.");
-			LOGGER.log(Level.ERROR, e.getMessage(), e);
+		final var results = new HashSet<T>();
+		results.addAll(resultsByVendorName);
+		results.addAll(resultsByProductName);
+
+		if (!results.isEmpty()) {
+			LOGGER.log(Level.INFO, "Found vulnerabilities for " + product);
+			for (final T searchHit : results) {
+				final var searchHitMap = source.apply(searchHit);
+				LOGGER.log(Level.INFO, searchHitMap.get("ID"));
+			}
 		}
-		return null;
+		return Collections.unmodifiableSet(results);
+	}
+
+	/**
+	 * A getter for the cache of the results of
+	 * {@link #getVulnerabilities(String, String, String, String)}, e.g., to read
+	 * its hit and miss counters
+	 *
+	 * @return The cache
+	 */
+	public static QueryResultCache<List<String>, Set<SearchHit>> getCache() {
+		return CACHE;
 	}
 
 	private static BoolQueryBuilder buildQuery(final String key, final String value, final String version,
 			final String fuzziness) {
 		var productQuery = QueryBuilders.boolQuery().must(buildFuzzyQuery(key, value, fuzziness));
 		// Add search for version, if given
-		if (version.isEmpty()) {
+		if (!version.isEmpty() && !"*".equals(version)) {
 			LOGGER.log(Level.INFO,
 					"Searching for vulnerabilities of " + key + ": " + value + ", version " + version + ".");
 			productQuery = productQuery.must(termQuery("Versions", version));
@@ -193,22 +337,21 @@ public class VulnerabilityDataQueryHandler {
 		return productQuery;
 	}
 
-	private static SearchHit[] search(final RestHighLevelClient elasticClient, final BoolQueryBuilder productQuery) {
+	private static SearchRequest createSearchRequest(final BoolQueryBuilder query) {
 		final var searchRequest = new SearchRequest(INDEX_NAME).types(INDEX_TYPE);
 		final var source = searchRequest.source();
 		source.size(5000);
-		source.query(productQuery);
+		source.query(query);
+		return searchRequest;
+	}
 
-		SearchHit[] searchHits;
-		try {
-			final var searchResponse = elasticClient.search(searchRequest, RequestOptions.DEFAULT);
-			searchHits = searchResponse.getHits().getHits();
-		} catch (final IOException e) {
-			LOGGER.log(Level.ERROR, "Could not get a search response by product name.");
-			LOGGER.log(Level.ERROR, e.getMessage(), e);
-			searchHits = new SearchHit[0];
-		}
-		return searchHits;
+	/**
+	 * Searches the vulnerabilities matching a query. Failures are thrown instead of
+	 * returning no hits, as the results are cached.
+	 */
+	private static SearchHit[] search(final RestHighLevelClient elasticClient, final BoolQueryBuilder productQuery)
+			throws IOException {
+		return elasticClient.search(createSearchRequest(productQuery), RequestOptions.DEFAULT).getHits().getHits();
 	}
 
 	private static FuzzyQueryBuilder buildFuzzyQuery(final String type, final String typeName, final String fuzziness) {
@@ -242,6 +385,15 @@ public class VulnerabilityDataQueryHandler {
 	 * @return A HashMap containing the Metrics for a given set of searchHits
 	 */
 	public Map<String, String> getMetrics(final Set<SearchHit> documents) {
+		return getMetricsOfDocuments(documents.stream().map(SearchHit::getSourceAsMap).collect(Collectors.toList()));
+	}
+
+	/**
+	 * @param documents - The documents of the vulnerabilities of a version of a
+	 *                  product
+	 * @return A HashMap containing the Metrics for the given documents
+	 */
+	public Map<String, String> getMetricsOfDocuments(final Collection<Map<String, Object>> documents) {
 		final double numberOfVulnerabilities = documents.size();
 		var averageCVSS2 = 0D;
 		var averageCVSS3 = 0D;
@@ -249,8 +401,7 @@ public class VulnerabilityDataQueryHandler {
 		var maxCVSS3 = 0D;
 
 		if (numberOfVulnerabilities > 0) {
-			for (final SearchHit searchHit : documents) {
-				final var searchHitMap = searchHit.getSourceAsMap();
+			for (final Map<String, Object> searchHitMap : documents) {
 				final var CVSS2 = (double) searchHitMap.get("CVSS2_baseScore");
 				final var CVSS3 = (double) searchHitMap.get("CVSS3_baseScore");
 
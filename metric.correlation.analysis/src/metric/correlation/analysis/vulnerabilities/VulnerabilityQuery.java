@@ -0,0 +1,91 @@
+package metric.correlation.analysis.vulnerabilities;
+
+import java.util.Objects;
+
+/**
+ * A (product, vendor, version) tuple for which vulnerabilities are searched
+ */
+public final class VulnerabilityQuery {
+
+	private final String product;
+	private final String vendor;
+	private final String version;
+
+	/**
+	 * Creates a new query
+	 *
+	 * @param product The product name
+	 * @param vendor  The vendor of the product
+	 * @param version The version name, * for all versions or an empty string if
+	 *                there is no version information
+	 */
+	public VulnerabilityQuery(final String product, final String vendor, final String version) {
+		this.product = Objects.requireNonNull(product);
+		this.vendor = Objects.requireNonNull(vendor);
+		this.version = Objects.requireNonNull(version);
+	}
+
+	/**
+	 * Normalizes the query the same way as the names are normalized in the
+	 * vulnerability database
+	 *
+	 * @return The normalized query
+	 */
+	public VulnerabilityQuery normalize() {
+		return new VulnerabilityQuery(normalize(this.product), normalize(this.vendor), this.version.trim());
+	}
+
+	private static String normalize(final String name) {
+		return name.toLowerCase().replace("-", "").replace("_", "");
+	}
+
+	/**
+	 * A getter for the product name
+	 *
+	 * @return The product
+	 */
+	public String getProduct() {
+		return this.product;
+	}
+
+	/**
+	 * A getter for the vendor name
+	 *
+	 * @return The vendor
+	 */
+	public String getVendor() {
+		return this.vendor;
+	}
+
+	/**
+	 * A getter for the version
+	 *
+	 * @return The version
+	 */
+	public String getVersion() {
+		return this.version;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.product, this.vendor, this.version);
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof VulnerabilityQuery)) {
+			return false;
+		}
+		final VulnerabilityQuery other = (VulnerabilityQuery) obj;
+		return this.product.equals(other.product) && this.vendor.equals(other.vendor)
+				&& this.version.equals(other.version);
+	}
+
+	@Override
+	public String toString() {
+		return this.vendor + ':' + this.product + ':' + this.version;
+	}
+}